@@ -0,0 +1,190 @@
+package com.github.jsoncat.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 编译期生成类索引，启动时不再扫描类路径
+ * <p>
+ * Every type of the compilation is written to {@value #INDEX_LOCATION} with its supertypes and its runtime
+ * annotations, together with the route methods (@GetMapping / @PostMapping) and the injection points
+ * (@Autowired / @Value fields). ClassIndex reads it instead of scanning the packages when it is on the classpath.
+ * The annotations are matched by name, the processor does not depend on the framework.
+ * </p>
+ * Lines of the index, the names are binary names (as Class.getName()):
+ * <pre>
+ * type &lt;class&gt; [&lt;supertype&gt;...]
+ * annotated &lt;annotation&gt; &lt;class&gt;
+ * route &lt;class&gt; &lt;method&gt; [&lt;parameter type&gt;...]
+ * injection &lt;class&gt; &lt;field&gt;
+ * </pre>
+ **/
+@SupportedAnnotationTypes("*")
+public class JsonCatIndexProcessor extends AbstractProcessor {
+    public static final String INDEX_LOCATION = "META-INF/jsoncat.index";
+    private static final String GET_MAPPING = "com.github.jsoncat.annotation.springmvc.GetMapping";
+    private static final String POST_MAPPING = "com.github.jsoncat.annotation.springmvc.PostMapping";
+    private static final String AUTOWIRED = "com.github.jsoncat.annotation.ioc.Autowired";
+    private static final String VALUE = "com.github.jsoncat.annotation.config.Value";
+
+    private final List<String> lines = new ArrayList<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+        for (Element element : roundEnv.getRootElements()) {
+            if (element instanceof TypeElement) {
+                indexType((TypeElement) element);
+            }
+        }
+        // the annotations are left to the other processors (lombok...)
+        return false;
+    }
+
+    private void indexType(TypeElement type) {
+        String className = binaryName(type);
+        StringBuilder typeLine = new StringBuilder("type ").append(className);
+        for (String supertype : supertypesOf(type.asType(), new LinkedHashSet<>())) {
+            typeLine.append(' ').append(supertype);
+        }
+        lines.add(typeLine.toString());
+        for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+            Element annotationType = annotation.getAnnotationType().asElement();
+            Retention retention = annotationType.getAnnotation(Retention.class);
+            // only the annotations visible to reflection, as a scan would find them
+            if (retention != null && retention.value() == RetentionPolicy.RUNTIME) {
+                lines.add("annotated " + binaryName((TypeElement) annotationType) + " " + className);
+            }
+        }
+        for (Element member : type.getEnclosedElements()) {
+            if (member.getKind() == ElementKind.METHOD && (isAnnotated(member, GET_MAPPING) || isAnnotated(member, POST_MAPPING))) {
+                StringBuilder routeLine = new StringBuilder("route ").append(className).append(' ').append(member.getSimpleName());
+                for (VariableElement parameter : ((ExecutableElement) member).getParameters()) {
+                    routeLine.append(' ').append(className(parameter.asType()));
+                }
+                lines.add(routeLine.toString());
+            } else if (member.getKind() == ElementKind.FIELD && (isAnnotated(member, AUTOWIRED) || isAnnotated(member, VALUE))) {
+                lines.add("injection " + className + " " + member.getSimpleName());
+            } else if (member instanceof TypeElement) {
+                indexType((TypeElement) member);
+            }
+        }
+    }
+
+    /**
+     * @return the superclasses and interfaces of the type, directly or not, except java.lang.Object
+     */
+    private Set<String> supertypesOf(TypeMirror type, Set<String> supertypes) {
+        for (TypeMirror supertype : processingEnv.getTypeUtils().directSupertypes(type)) {
+            TypeElement element = (TypeElement) processingEnv.getTypeUtils().asElement(supertype);
+            String name = binaryName(element);
+            if (!Object.class.getName().equals(name) && supertypes.add(name)) {
+                supertypesOf(supertype, supertypes);
+            }
+        }
+        return supertypes;
+    }
+
+    private static boolean isAnnotated(Element element, String annotationName) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the name of the erased type as Class.getName() returns it, such as "int", "[I" or "[Ljava.lang.String;"
+     */
+    private String className(TypeMirror type) {
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+        if (erasure.getKind().isPrimitive()) {
+            return erasure.toString();
+        }
+        if (erasure.getKind() == TypeKind.ARRAY) {
+            return "[" + descriptor(((ArrayType) erasure).getComponentType());
+        }
+        return binaryName((TypeElement) ((DeclaredType) erasure).asElement());
+    }
+
+    private String descriptor(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "Z";
+            case BYTE:
+                return "B";
+            case CHAR:
+                return "C";
+            case SHORT:
+                return "S";
+            case INT:
+                return "I";
+            case LONG:
+                return "J";
+            case FLOAT:
+                return "F";
+            case DOUBLE:
+                return "D";
+            case ARRAY:
+                return "[" + descriptor(((ArrayType) type).getComponentType());
+            default:
+                return "L" + className(type) + ";";
+        }
+    }
+
+    private String binaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+
+    private void writeIndex() {
+        if (lines.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+            try (Writer writer = new OutputStreamWriter(index.openOutputStream(), StandardCharsets.UTF_8)) {
+                writer.write("# generated by " + getClass().getName() + ", do not edit\n");
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write " + INDEX_LOCATION + ": " + e);
+        }
+    }
+}
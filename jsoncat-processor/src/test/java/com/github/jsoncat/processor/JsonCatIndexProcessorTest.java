@@ -0,0 +1,72 @@
+package com.github.jsoncat.processor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonCatIndexProcessorTest {
+
+    @Test
+    void should_index_the_types_routes_and_injection_points(@TempDir Path dir) throws IOException {
+        Path sources = Files.createDirectories(dir.resolve("src"));
+        Path classes = Files.createDirectories(dir.resolve("classes"));
+        write(sources, "com/github/jsoncat/annotation/springmvc/GetMapping.java",
+                "package com.github.jsoncat.annotation.springmvc;\n"
+                        + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+                        + "public @interface GetMapping { String value() default \"\"; }\n");
+        write(sources, "com/github/jsoncat/annotation/ioc/Autowired.java",
+                "package com.github.jsoncat.annotation.ioc;\n"
+                        + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+                        + "public @interface Autowired { }\n");
+        write(sources, "demo/Marker.java",
+                "package demo;\n"
+                        + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+                        + "public @interface Marker { }\n");
+        write(sources, "demo/Service.java", "package demo;\npublic interface Service extends Runnable { }\n");
+        write(sources, "demo/Controller.java",
+                "package demo;\n"
+                        + "import com.github.jsoncat.annotation.ioc.Autowired;\n"
+                        + "import com.github.jsoncat.annotation.springmvc.GetMapping;\n"
+                        + "@Marker @Deprecated\n"
+                        + "public class Controller {\n"
+                        + "    @Autowired private Service service;\n"
+                        + "    private String notInjected;\n"
+                        + "    @GetMapping(\"/{id}\") public String get(int id, String[] names, java.util.List<String> list) { return null; }\n"
+                        + "    public void notARoute() { }\n"
+                        + "    public static class Impl implements Service { public void run() { } }\n"
+                        + "}\n");
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        int status = compiler.run(null, null, null, "-proc:only", "-implicit:none", "-processor", JsonCatIndexProcessor.class.getName(),
+                "-d", classes.toString(), "-sourcepath", sources.toString(),
+                sources.resolve("demo/Controller.java").toString(), sources.resolve("demo/Service.java").toString());
+        assertEquals(0, status);
+
+        List<String> lines = Files.readAllLines(classes.resolve(JsonCatIndexProcessor.INDEX_LOCATION), StandardCharsets.UTF_8);
+        assertTrue(lines.contains("type demo.Controller"));
+        assertTrue(lines.contains("type demo.Controller$Impl demo.Service java.lang.Runnable"));
+        assertTrue(lines.contains("type demo.Service java.lang.Runnable"));
+        assertTrue(lines.contains("annotated demo.Marker demo.Controller"));
+        assertTrue(lines.contains("annotated java.lang.Deprecated demo.Controller"));
+        assertTrue(lines.contains("route demo.Controller get int [Ljava.lang.String; java.util.List"));
+        assertTrue(lines.contains("injection demo.Controller service"));
+        assertEquals(1, lines.stream().filter(line -> line.startsWith("route ")).count());
+        assertEquals(1, lines.stream().filter(line -> line.startsWith("injection ")).count());
+    }
+
+    private static void write(Path sources, String file, String content) throws IOException {
+        Path path = sources.resolve(file);
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.jsoncat.benchmark;
+
+import com.github.jsoncat.server.AccessLog;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What logging a request costs the I/O threads: the former per-request INFO log of the whole request
+ * (slf4j-simple writes it synchronously to stderr) against recording it in the access log ring buffer.
+ * <p>
+ * ./gradlew jmh -PjmhInclude=AccessLogBenchmark
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(4)
+public class AccessLogBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(AccessLogBenchmark.class);
+    private static final InetSocketAddress CLIENT = new InetSocketAddress("127.0.0.1", 50000);
+
+    private final FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/user/1?name=jsoncat");
+    private Path dir;
+    private AccessLog accessLog;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("jsoncat-access-log");
+        accessLog = new AccessLog(dir.resolve("access.log"), 1, 64 * 1024, 100 * 1024 * 1024, 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        accessLog.close();
+        Files.deleteIfExists(dir.resolve("access.log"));
+        Files.deleteIfExists(dir.resolve("access.log.1"));
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public void infoLog() {
+        log.info("Handle http request:{}", request);
+    }
+
+    @Benchmark
+    public void accessLog() {
+        accessLog.record(CLIENT, request.method(), request.uri(), request.protocolVersion(), 200, 27, 1000);
+    }
+}
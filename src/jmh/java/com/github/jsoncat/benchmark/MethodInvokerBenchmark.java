@@ -0,0 +1,73 @@
+package com.github.jsoncat.benchmark;
+
+import com.github.jsoncat.core.invoke.FastClassMethodInvoker;
+import com.github.jsoncat.core.invoke.MethodInvoker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the ways to call a controller-like method with boxed parameters:
+ * the reflective call used before ({@link Method#invoke}), a spread {@link MethodHandle} kept in a field,
+ * and the generated invoker used by the request handlers and aop proxies.
+ * <p>
+ * ./gradlew jmh -PjmhInclude=MethodInvokerBenchmark
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MethodInvokerBenchmark {
+    private UserController controller;
+    private Method method;
+    private MethodHandle methodHandle;
+    private MethodInvoker generatedInvoker;
+    private Object[] args;
+
+    @Setup
+    public void setUp() throws Exception {
+        controller = new UserController();
+        method = UserController.class.getMethod("get", String.class, String.class, Integer.class);
+        methodHandle = MethodHandles.lookup().unreflect(method)
+                .asSpreader(Object[].class, method.getParameterCount())
+                .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+        generatedInvoker = new FastClassMethodInvoker(method);
+        args = new Object[]{"yasuo", "hasaki", 18};
+    }
+
+    @Benchmark
+    public Object direct() {
+        return controller.get((String) args[0], (String) args[1], (Integer) args[2]);
+    }
+
+    @Benchmark
+    public Object reflection() throws Exception {
+        return method.invoke(controller, args);
+    }
+
+    @Benchmark
+    public Object methodHandle() throws Throwable {
+        return (Object) methodHandle.invokeExact((Object) controller, args);
+    }
+
+    @Benchmark
+    public Object generatedInvoker() throws Throwable {
+        return generatedInvoker.invoke(controller, args);
+    }
+
+    public static class UserController {
+        public String get(String name, String des, Integer age) {
+            return name.length() + des.length() + age > 0 ? name : des;
+        }
+    }
+}
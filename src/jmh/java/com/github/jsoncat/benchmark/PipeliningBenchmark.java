@@ -0,0 +1,126 @@
+package com.github.jsoncat.benchmark;
+
+import com.github.jsoncat.server.ConnectionGuard;
+import com.github.jsoncat.server.HttpServerInitializer;
+import com.github.jsoncat.server.RequestLimiter;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One client connection sends REQUESTS requests to an in-process server, keeping up to "depth" of them in flight
+ * (depth 1 is a client without pipelining). No route is registered, so this measures the connection handling:
+ * decoding, the ordered response writes and the consolidated flushes.
+ * <p>
+ * ./gradlew jmh -PjmhInclude=PipeliningBenchmark
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+// the request log would dominate the measurement
+@Fork(jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class PipeliningBenchmark {
+    private static final int REQUESTS = 1024;
+
+    @Param({"1", "16"})
+    private int depth;
+
+    private EventLoopGroup serverGroup;
+    private EventLoopGroup clientGroup;
+    private Channel server;
+    private Channel client;
+    private volatile CountDownLatch latch;
+    // only accessed on the client event loop
+    private int sent;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        serverGroup = new NioEventLoopGroup(1);
+        clientGroup = new NioEventLoopGroup(1);
+        server = new ServerBootstrap().group(serverGroup).channel(NioServerSocketChannel.class)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .childHandler(new HttpServerInitializer(null, false, 64, null, null,
+                        new ConnectionGuard(0, 0, 0, 0, 0), new RequestLimiter(0), null, null))
+                .bind("127.0.0.1", 0).sync().channel();
+        client = new Bootstrap().group(clientGroup).channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new HttpClientCodec(), new HttpObjectAggregator(64 * 1024),
+                                new SimpleChannelInboundHandler<FullHttpResponse>() {
+                                    @Override
+                                    protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse msg) {
+                                        latch.countDown();
+                                        if (sent < REQUESTS) {
+                                            send(ctx.channel());
+                                            ctx.flush();
+                                        }
+                                    }
+                                });
+                    }
+                }).connect(server.localAddress()).sync().channel();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        client.close().sync();
+        server.close().sync();
+        clientGroup.shutdownGracefully().sync();
+        serverGroup.shutdownGracefully().sync();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public void requests() throws InterruptedException {
+        latch = new CountDownLatch(REQUESTS);
+        client.eventLoop().execute(() -> {
+            sent = 0;
+            for (int i = 0; i < depth; i++) {
+                send(client);
+            }
+            client.flush();
+        });
+        latch.await();
+    }
+
+    private void send(Channel channel) {
+        sent++;
+        DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/nothing");
+        request.headers().set(HttpHeaderNames.HOST, "localhost");
+        channel.write(request);
+    }
+}
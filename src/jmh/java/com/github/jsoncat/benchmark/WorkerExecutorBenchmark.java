@@ -0,0 +1,194 @@
+package com.github.jsoncat.benchmark;
+
+import com.github.jsoncat.annotation.springmvc.GetMapping;
+import com.github.jsoncat.annotation.springmvc.RestController;
+import com.github.jsoncat.annotation.springmvc.WorkerPool;
+import com.github.jsoncat.core.aop.factory.InterceptorFactory;
+import com.github.jsoncat.core.config.ConfigurationManager;
+import com.github.jsoncat.core.ioc.BeanFactory;
+import com.github.jsoncat.core.ioc.DependencyInjection;
+import com.github.jsoncat.core.springmvc.factory.RequestExecutorFactory;
+import com.github.jsoncat.core.springmvc.factory.RouteMethodMapper;
+import com.github.jsoncat.factory.ClassFactory;
+import com.github.jsoncat.server.ConnectionGuard;
+import com.github.jsoncat.server.HttpServerInitializer;
+import com.github.jsoncat.server.RequestLimiter;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Send a burst of requests to a sleep-heavy route (a controller blocked on a slow dependency) of an in-process
+ * server, executed on a pool of 200 platform threads or on virtual threads, and measure how long the burst takes.
+ * CONNECTIONS clients pipeline DEPTH requests each, so the whole burst is in flight at once.
+ * <p>
+ * On a jvm without virtual threads (before Java 21) the "virtual" pool falls back to platform threads:
+ * ./gradlew jmh -PjmhInclude=WorkerExecutorBenchmark
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+// the request log would dominate the measurement
+@Fork(jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class WorkerExecutorBenchmark {
+    private static final String[] PACKAGE_NAMES = {"com.github.jsoncat.benchmark"};
+    private static final int CONNECTIONS = 16;
+    // the default limit of pipelined requests per connection
+    private static final int DEPTH = 64;
+    private static final long SLEEP_MILLIS = 50;
+
+    @Param({"platform", "virtual"})
+    private String type;
+
+    private EventLoopGroup serverGroup;
+    private EventLoopGroup clientGroup;
+    private Channel server;
+    private final List<Channel> clients = new ArrayList<>();
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile CountDownLatch latch;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        loadRoutes();
+        serverGroup = new NioEventLoopGroup();
+        clientGroup = new NioEventLoopGroup();
+        server = new ServerBootstrap().group(serverGroup).channel(NioServerSocketChannel.class)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new HttpServerInitializer(null, false, DEPTH, null, null,
+                        new ConnectionGuard(0, 0, 0, 0, 0), new RequestLimiter(0), null, null))
+                .bind("127.0.0.1", 0).sync().channel();
+        Bootstrap bootstrap = new Bootstrap().group(clientGroup).channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new HttpClientCodec(), new HttpObjectAggregator(64 * 1024),
+                                new SimpleChannelInboundHandler<FullHttpResponse>() {
+                                    @Override
+                                    protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse msg) {
+                                        if (!HttpResponseStatus.OK.equals(msg.status())) {
+                                            failures.incrementAndGet();
+                                        }
+                                        latch.countDown();
+                                    }
+                                });
+                    }
+                });
+        for (int i = 0; i < CONNECTIONS; i++) {
+            clients.add(bootstrap.connect(server.localAddress()).sync().channel());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        for (Channel client : clients) {
+            client.close().sync();
+        }
+        server.close().sync();
+        clientGroup.shutdownGracefully().sync();
+        serverGroup.shutdownGracefully().sync();
+        RequestExecutorFactory.shutdown();
+    }
+
+    @Benchmark
+    public void sleepHeavyEndpoint() throws InterruptedException {
+        latch = new CountDownLatch(CONNECTIONS * DEPTH);
+        for (Channel client : clients) {
+            client.eventLoop().execute(() -> {
+                for (int i = 0; i < DEPTH; i++) {
+                    DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/sleep/" + type);
+                    request.headers().set(HttpHeaderNames.HOST, "localhost");
+                    client.write(request);
+                }
+                client.flush();
+            });
+        }
+        latch.await();
+        if (failures.get() > 0) {
+            // a rejected request is answered at once, the burst would look faster
+            throw new IllegalStateException(failures.get() + " requests failed");
+        }
+    }
+
+    /**
+     * the pools are configured like an application would, the platform pool queues the whole burst
+     */
+    private static void loadRoutes() throws IOException {
+        ClassFactory.loadClass(PACKAGE_NAMES);
+        BeanFactory.loadBeans(PACKAGE_NAMES);
+        Path config = Files.createTempFile("jsoncat-benchmark", ".yaml");
+        config.toFile().deleteOnExit();
+        Files.write(config, Arrays.asList(
+                "jsoncat:",
+                "  server:",
+                "    executors:",
+                "      platform:",
+                "        threads: 200",
+                "        queue-size: " + CONNECTIONS * DEPTH,
+                "      virtual:",
+                "        type: virtual"), StandardCharsets.UTF_8);
+        BeanFactory.getBean(ConfigurationManager.class).loadResources(Collections.singletonList(config));
+        InterceptorFactory.loadInterceptors(PACKAGE_NAMES);
+        DependencyInjection.inject(PACKAGE_NAMES);
+        BeanFactory.applyBeanPostProcessors();
+        RouteMethodMapper.loadRoutes();
+    }
+
+    @RestController("/sleep")
+    public static class SleepController {
+
+        @GetMapping("/platform")
+        @WorkerPool("platform")
+        public String onPlatformThread() throws InterruptedException {
+            Thread.sleep(SLEEP_MILLIS);
+            return "slept";
+        }
+
+        @GetMapping("/virtual")
+        @WorkerPool("virtual")
+        public String onVirtualThread() throws InterruptedException {
+            Thread.sleep(SLEEP_MILLIS);
+            return "slept";
+        }
+    }
+}
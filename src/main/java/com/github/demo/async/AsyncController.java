@@ -0,0 +1,38 @@
+package com.github.demo.async;
+
+import com.github.demo.user.User;
+import com.github.demo.user.UserService;
+import com.github.jsoncat.annotation.ioc.Autowired;
+import com.github.jsoncat.annotation.springmvc.AsyncTimeout;
+import com.github.jsoncat.annotation.springmvc.GetMapping;
+import com.github.jsoncat.annotation.springmvc.PathVariable;
+import com.github.jsoncat.annotation.springmvc.RestController;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * the worker thread is released as soon as the future is returned, the response is written when it completes
+ **/
+@RestController("/async")
+public class AsyncController {
+    @Autowired
+    private UserService userService;
+
+    // fan out to two lookups and combine them
+    @GetMapping("/users/{first}/{second}")
+    public CompletableFuture<List<User>> getUsers(@PathVariable("first") Integer first, @PathVariable("second") Integer second) {
+        CompletableFuture<User> firstUser = CompletableFuture.supplyAsync(() -> userService.get(first));
+        CompletableFuture<User> secondUser = CompletableFuture.supplyAsync(() -> userService.get(second));
+        return firstUser.thenCombine(secondUser, Arrays::asList);
+    }
+
+    // never completes, the client gets a 504
+    @GetMapping("/never")
+    @AsyncTimeout(200)
+    public CompletableFuture<String> never() {
+        return new CompletableFuture<>();
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.github.demo.compression;
+
+import com.github.jsoncat.annotation.springmvc.Compress;
+import com.github.jsoncat.annotation.springmvc.GetMapping;
+import com.github.jsoncat.annotation.springmvc.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * requires jsoncat.server.compression.enabled
+ **/
+@RestController("/compression")
+public class CompressionController {
+    private static final List<String> HEROES = new ArrayList<>();
+
+    static {
+        for (int i = 0; i < 200; i++) {
+            HEROES.add("德玛西亚之力-盖伦-" + i);
+        }
+    }
+
+    @GetMapping("/heroes")
+    public List<String> heroes() {
+        return HEROES;
+    }
+
+    // the payload never changes, the compressed body is cached
+    @Compress(cacheable = true)
+    @GetMapping("/heroes/cached")
+    public List<String> cachedHeroes() {
+        return HEROES;
+    }
+
+    @Compress(false)
+    @GetMapping("/heroes/raw")
+    public List<String> rawHeroes() {
+        return HEROES;
+    }
+}
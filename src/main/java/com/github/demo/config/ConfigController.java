@@ -3,6 +3,7 @@ package com.github.demo.config;
 import com.github.jsoncat.annotation.config.Value;
 import com.github.jsoncat.annotation.ioc.Autowired;
 import com.github.jsoncat.annotation.springmvc.GetMapping;
+import com.github.jsoncat.annotation.springmvc.NonBlocking;
 import com.github.jsoncat.annotation.springmvc.RequestParam;
 import com.github.jsoncat.annotation.springmvc.RestController;
 import com.github.jsoncat.core.config.ConfigurationManager;
@@ -12,6 +13,7 @@ import com.github.jsoncat.core.config.ConfigurationManager;
  * @createTime 2020年10月19日 13:34:00
  **/
 @RestController("/config")
+@NonBlocking
 public class ConfigController {
     @Autowired
     private ConfigurationManager configurationManager;
@@ -0,0 +1,40 @@
+package com.github.demo.executor;
+
+import com.github.jsoncat.annotation.springmvc.GetMapping;
+import com.github.jsoncat.annotation.springmvc.NonBlocking;
+import com.github.jsoncat.annotation.springmvc.RestController;
+import com.github.jsoncat.annotation.springmvc.WorkerPool;
+
+/**
+ * the routes answer the name of the thread executing them
+ **/
+@RestController("/executor")
+public class ExecutorController {
+
+    @GetMapping("/default")
+    public String onDefaultPool() {
+        return Thread.currentThread().getName();
+    }
+
+    @GetMapping("/io")
+    @NonBlocking
+    public String onIoThread() {
+        return Thread.currentThread().getName();
+    }
+
+    // the "single" pool has one thread and a queue of one task, see application.yaml
+    @GetMapping("/single")
+    @WorkerPool("single")
+    public String onSinglePool() throws InterruptedException {
+        Thread.sleep(500);
+        return Thread.currentThread().getName();
+    }
+
+    // the thread, not only its name, tells a virtual thread from the platform threads of the fallback
+    @GetMapping("/virtual")
+    @WorkerPool("virtual")
+    public String onVirtualPool() {
+        return Thread.currentThread().toString();
+    }
+
+}
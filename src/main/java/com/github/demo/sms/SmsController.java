@@ -5,12 +5,14 @@ import com.github.jsoncat.annotation.springmvc.PostMapping;
 import com.github.jsoncat.annotation.ioc.Qualifier;
 import com.github.jsoncat.annotation.springmvc.RequestBody;
 import com.github.jsoncat.annotation.springmvc.RestController;
+import com.github.jsoncat.annotation.springmvc.WorkerPool;
 
 /**
  * @author shuang.kou
  * @createTime 2020年09月30日 15:43:00
  **/
 @RestController("/sms")
+@WorkerPool("sms")
 public class SmsController {
     @Autowired
     @Qualifier("aliSmsServiceImpl")
@@ -0,0 +1,27 @@
+package com.github.demo.upload;
+
+import com.github.jsoncat.annotation.springmvc.PostMapping;
+import com.github.jsoncat.annotation.springmvc.RequestBody;
+import com.github.jsoncat.annotation.springmvc.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * the body is streamed, so an upload is not limited by the size of the aggregator
+ **/
+@RestController("/upload")
+public class UploadController {
+
+    @PostMapping
+    public long upload(@RequestBody InputStream body) throws IOException {
+        byte[] buffer = new byte[8192];
+        long size = 0;
+        int read;
+        while ((read = body.read(buffer)) != -1) {
+            size += read;
+        }
+        return size;
+    }
+
+}
@@ -8,6 +8,8 @@ import com.github.jsoncat.annotation.springmvc.RequestBody;
 import com.github.jsoncat.annotation.springmvc.RequestParam;
 import com.github.jsoncat.annotation.springmvc.RestController;
 
+import java.util.stream.Stream;
+
 /**
  * @author shuang.kou
  * @createTime 2020年09月24日 14:52:00
@@ -24,6 +26,12 @@ public class UserController {
         return new User(name, des, age);
     }
 
+    // written as a chunked json array
+    @GetMapping("/all")
+    public Stream<User> list() {
+        return userService.list();
+    }
+
     @GetMapping("/{id}")
     public User get(@PathVariable("id") Integer id) {
         return userService.get(id);
@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * @author shuang.kou
@@ -26,6 +27,10 @@ public class UserService  {
         return users.get(id);
     }
 
+    public Stream<User> list() {
+        return new ArrayList<>(users.values()).stream();
+    }
+
     public List<User> create(@RequestBody UserDto userDto) {
         users.put(++id, new User(userDto.getName(), userDto.getDes(), userDto.getAge()));
         return new ArrayList<>(users.values());
@@ -0,0 +1,22 @@
+package com.github.jsoncat.annotation.springmvc;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * How long a route returning a CompletableFuture/CompletionStage may take to complete it, the client gets a 504
+ * when the time is up. Routes without it use "jsoncat.server.async.timeout-millis" (30 seconds by default).
+ * Can be put on a controller to apply to all its routes.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AsyncTimeout {
+    /**
+     * the timeout in milliseconds
+     */
+    long value();
+}
@@ -0,0 +1,30 @@
+package com.github.jsoncat.annotation.springmvc;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * How the responses of a route are compressed when "jsoncat.server.compression.enabled" is on.
+ * Can be put on a controller to apply to all its routes.
+ * <pre>
+ * &#64;Compress(false)              never compress, eg: the payload is already compressed
+ * &#64;Compress(cacheable = true)   the route keeps returning the same payload, reuse the compressed bytes
+ * </pre>
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Compress {
+    /**
+     * false to send the responses uncompressed whatever the client accepts
+     */
+    boolean value() default true;
+
+    /**
+     * keep the compressed bodies in a cache so identical payloads are not compressed again
+     */
+    boolean cacheable() default false;
+}
@@ -0,0 +1,17 @@
+package com.github.jsoncat.annotation.springmvc;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The route never blocks, so it is executed directly on the netty I/O thread instead of a worker pool.
+ * Can be put on a controller to apply to all its routes.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface NonBlocking {
+}
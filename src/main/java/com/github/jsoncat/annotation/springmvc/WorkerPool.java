@@ -0,0 +1,22 @@
+package com.github.jsoncat.annotation.springmvc;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Execute the route on a dedicated worker pool, so a slow dependency can not exhaust the default pool.
+ * The pool is configured by "jsoncat.server.executors.{name}.threads" and "jsoncat.server.executors.{name}.queue-size".
+ * Can be put on a controller to apply to all its routes.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface WorkerPool {
+    /**
+     * the name of the worker pool
+     */
+    String value();
+}
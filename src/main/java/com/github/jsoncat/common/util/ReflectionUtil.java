@@ -1,8 +1,8 @@
 package com.github.jsoncat.common.util;
 
+import com.github.jsoncat.core.invoke.MethodInvoker;
+import com.github.jsoncat.core.scanner.ClassIndex;
 import lombok.extern.slf4j.Slf4j;
-import org.reflections.Reflections;
-import org.reflections.scanners.TypeAnnotationsScanner;
 
 import javax.validation.ConstraintViolationException;
 import java.lang.annotation.Annotation;
@@ -22,15 +22,15 @@ public class ReflectionUtil {
 
     /**
      * 子类扫描
-     * scan the classes marked by the specified annotation in the specified package
+     * scan the classes marked by the specified annotation in the specified package,
+     * the packages are scanned once and every query is answered by the same ClassIndex
      *
      * @param packageNames specified package name
      * @param annotation   specified annotation
      * @return the classes marked by the specified annotation in the specified package
      */
     public static Set<Class<?>> scanAnnotatedClass(String[] packageNames, Class<? extends Annotation> annotation) {
-        Reflections reflections = new Reflections(packageNames, new TypeAnnotationsScanner());
-        Set<Class<?>> annotatedClass = reflections.getTypesAnnotatedWith(annotation, true);
+        Set<Class<?>> annotatedClass = ClassIndex.of(packageNames).getTypesAnnotatedWith(annotation);
         log.info("The number of class Annotated with @" + annotation.getSimpleName() + ":[{}]", annotatedClass.size());
         return annotatedClass;
     }
@@ -42,10 +42,8 @@ public class ReflectionUtil {
      * @param packageNames   specified package name
      * @param interfaceClass specified interface
      */
-    public static <T> Set<Class<? extends T>> getSubClass(Object[] packageNames, Class<T> interfaceClass) {
-        Reflections reflections = new Reflections(packageNames);
-        return reflections.getSubTypesOf(interfaceClass);
-
+    public static <T> Set<Class<? extends T>> getSubClass(String[] packageNames, Class<T> interfaceClass) {
+        return ClassIndex.of(packageNames).getSubTypesOf(interfaceClass);
     }
 
     /**
@@ -80,19 +78,18 @@ public class ReflectionUtil {
     }
 
     /**
-     * execute the target method
+     * execute the target method through a pre-built invoker
      *
-     * @param method target method
-     * @param args   method parameters
+     * @param methodInvoker the invoker of the target method
+     * @param args          method parameters
      * @return the result of method execution
      */
-    public static Object executeTargetMethod(Object targetObject, Method method, Object... args) {
+    public static Object executeTargetMethod(Object targetObject, MethodInvoker methodInvoker, Object... args) {
         try {
-            return method.invoke(targetObject, args);
-        } catch (Throwable t) {
-            if (t.getCause() != null && t.getCause() instanceof ConstraintViolationException) {
-                throw (ConstraintViolationException) t.getCause();
-            }
+            return methodInvoker.invoke(targetObject, args);
+        } catch (ConstraintViolationException e) {
+            throw e;
+        } catch (Throwable ignored) {
         }
         return null;
     }
@@ -4,16 +4,24 @@ import com.github.jsoncat.annotation.boot.ComponentScan;
 import com.github.jsoncat.common.Banner;
 import com.github.jsoncat.core.aop.factory.InterceptorFactory;
 import com.github.jsoncat.core.boot.ApplicationRunner;
+import com.github.jsoncat.core.boot.StartupStep;
+import com.github.jsoncat.core.boot.StartupTimeline;
 import com.github.jsoncat.core.config.Configuration;
 import com.github.jsoncat.core.config.ConfigurationManager;
 import com.github.jsoncat.core.ioc.BeanFactory;
 import com.github.jsoncat.core.ioc.DependencyInjection;
+import com.github.jsoncat.core.scanner.ClassIndex;
+import com.github.jsoncat.core.springmvc.factory.RequestExecutorFactory;
 import com.github.jsoncat.core.springmvc.factory.RouteMethodMapper;
 import com.github.jsoncat.factory.ClassFactory;
 import com.github.jsoncat.server.HttpServer;
+import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -25,32 +33,82 @@ import java.util.Objects;
  * @author shuang.kou
  * @createTime 2020年09月24日 16:49:00
  **/
+@Slf4j
 public final class ApplicationContext {
     private static final ApplicationContext APPLICATION_CONTEXT = new ApplicationContext();
+    private static final String STARTUP_REPORT_PREFIX = "jsoncat.startup.report.";
+    private static final int DEFAULT_STARTUP_REPORT_TOP = 10;
+    private HttpServer httpServer;
+    private Thread shutdownHook;
+    private boolean stopped;
 
 
     public void run(Class<?> applicationClass) {
+        StartupTimeline.reset();
         //print banner
         Banner.print();
         //analyse package
         String[] packageNames = getPackageNames(applicationClass);
         // Load classes with custom annotation
-        ClassFactory.loadClass(packageNames);
-        // Load routes
-        RouteMethodMapper.loadRoutes();
+        phase("scan-classes", () -> ClassFactory.loadClass(packageNames));
         // Load beans managed by the ioc container
-        BeanFactory.loadBeans();
+        phase("load-beans", () -> BeanFactory.loadBeans(packageNames));
         //load configuration
-        loadResources(applicationClass);
+        phase("load-configuration", () -> loadResources(applicationClass));
         // Load interceptors
-        InterceptorFactory.loadInterceptors(packageNames);
+        phase("load-interceptors", () -> InterceptorFactory.loadInterceptors(packageNames));
         // Traverse all the beans in the ioc container and inject instances for all @Autowired annotated attributes.
-        DependencyInjection.inject(packageNames);
+        phase("inject-dependencies", () -> DependencyInjection.inject(packageNames));
         // Applies bean post processors on the classes which are from ClassFactory.
         // For example, the class annotated by @Component or @RestController.
-        BeanFactory.applyBeanPostProcessors();
+        phase("apply-bean-post-processors", BeanFactory::applyBeanPostProcessors);
+        // Load routes, every route is bound to the final (maybe proxied) controller bean
+        phase("load-routes", RouteMethodMapper::loadRoutes);
+        // The classes are all loaded, the scan index is not needed any more
+        ClassIndex.clear();
         // Perform some callback events
-        callRunners();
+        phase("run-runners", this::callRunners);
+        //The last step is to start web application
+        phase("start-server", this::start);
+        reportStartup();
+        awaitTermination();
+    }
+
+    /**
+     * start the web application, it is stopped gracefully by stop() or when the jvm exits (SIGTERM of a rolling deploy)
+     *
+     * @throws IllegalStateException if it has been stopped, the worker pools the routes are bound to are shut down
+     */
+    public synchronized void start() {
+        if (stopped) {
+            throw new IllegalStateException("The web application has been stopped, it can't be started again");
+        }
+        if (httpServer != null) {
+            return;
+        }
+        HttpServer server = new HttpServer();
+        // not kept if the port can't be bound, so start() can be called again
+        server.start();
+        httpServer = server;
+        shutdownHook = new Thread(this::stop, "jsoncat-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * stop accepting, drain the in-flight requests, then release the event loops and the worker pools
+     */
+    public synchronized void stop() {
+        if (httpServer == null || stopped) {
+            return;
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException ignored) {
+            // the jvm is shutting down, this is the hook
+        }
+        stopped = true;
+        httpServer.stop();
+        RequestExecutorFactory.shutdown();
     }
 
     public static ApplicationContext getApplicationContext() {
@@ -68,22 +126,56 @@ public final class ApplicationContext {
                 : new String[]{applicationClass.getPackage().getName()};
     }
 
+    private static void phase(String name, Runnable phase) {
+        StartupStep step = StartupTimeline.startPhase(name);
+        try {
+            phase.run();
+        } finally {
+            step.end();
+        }
+    }
+
     /**
-     * The last step is to start web application
+     * log the startup timeline, and export it as json if a path is configured
      */
+    private void reportStartup() {
+        ConfigurationManager configurationManager = BeanFactory.getBean(ConfigurationManager.class);
+        if (configurationManager.getBoolean(STARTUP_REPORT_PREFIX + "enabled", false)) {
+            log.info(StartupTimeline.toReport(configurationManager.getInt(STARTUP_REPORT_PREFIX + "top", DEFAULT_STARTUP_REPORT_TOP)));
+        }
+        String path = configurationManager.getString(STARTUP_REPORT_PREFIX + "path");
+        if (path != null && !path.trim().isEmpty()) {
+            try {
+                Path file = Paths.get(path.trim());
+                if (file.getParent() != null) {
+                    Files.createDirectories(file.getParent());
+                }
+                Files.write(file, StartupTimeline.toJson().getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                log.warn("Unable to export the startup timeline to {}", path, e);
+            }
+        }
+    }
+
     private void callRunners() {
         List<ApplicationRunner> runners = new ArrayList<>(BeanFactory.getBeansOfType(ApplicationRunner.class).values());
-        //The last step is to start web application
-        //添加 web服务
-        runners.add(() -> {
-            HttpServer httpServer = new HttpServer();
-            httpServer.start();
-        });
         for (ApplicationRunner runner : new LinkedHashSet<>(runners)) {
             runner.run();
         }
     }
 
+    /**
+     * block the main thread until the web application is stopped
+     */
+    private void awaitTermination() {
+        try {
+            httpServer.awaitTermination();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for the web application to stop");
+        }
+    }
+
 
     /**
      * 加载配置到ConfigurationManager
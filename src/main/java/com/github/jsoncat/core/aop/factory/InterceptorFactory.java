@@ -6,6 +6,8 @@ import com.github.jsoncat.common.util.ReflectionUtil;
 import com.github.jsoncat.core.aop.intercept.BeanValidationInterceptor;
 import com.github.jsoncat.core.aop.intercept.Interceptor;
 import com.github.jsoncat.core.aop.intercept.InternallyAspectInterceptor;
+import com.github.jsoncat.core.boot.StartupStep;
+import com.github.jsoncat.core.boot.StartupTimeline;
 import com.github.jsoncat.exception.CannotInitializeConstructorException;
 import com.github.jsoncat.factory.ClassFactory;
 import lombok.Getter;
@@ -37,17 +39,25 @@ public class InterceptorFactory {
         Set<Class<?>> aspects = ClassFactory.CLASSES.get(Aspect.class);
         // 遍历所有拦截器类
         interceptorClasses.forEach(interceptorClass -> {
+            StartupStep step = StartupTimeline.start("interceptor", interceptorClass.getName());
             try {
                 interceptors.add(interceptorClass.newInstance());
             } catch (InstantiationException | IllegalAccessException e) {
                 throw new CannotInitializeConstructorException("not init constructor , the interceptor name :" + interceptorClass.getSimpleName());
+            } finally {
+                step.end();
             }
         });
 
         //遍历所有aop切面类
         aspects.forEach(aClass -> {
-            Object obj = ReflectionUtil.newInstance(aClass);
-            Interceptor interceptor = new InternallyAspectInterceptor(obj);
+            Interceptor interceptor;
+            StartupStep step = StartupTimeline.start("aspect", aClass.getName());
+            try {
+                interceptor = new InternallyAspectInterceptor(ReflectionUtil.newInstance(aClass));
+            } finally {
+                step.end();
+            }
             if (aClass.isAnnotationPresent(Order.class)) {
                 Order order = aClass.getAnnotation(Order.class);
                 interceptor.setOrder(order.value());
@@ -55,7 +65,12 @@ public class InterceptorFactory {
             interceptors.add(interceptor);
         });
         // 添加参数验证拦截器
-        interceptors.add(new BeanValidationInterceptor());
+        StartupStep step = StartupTimeline.start("interceptor", BeanValidationInterceptor.class.getName());
+        try {
+            interceptors.add(new BeanValidationInterceptor());
+        } finally {
+            step.end();
+        }
         // 根据 order 为拦截器排序
         interceptors = interceptors.stream().sorted(Comparator.comparing(Interceptor::getOrder)).collect(Collectors.toList());
     }
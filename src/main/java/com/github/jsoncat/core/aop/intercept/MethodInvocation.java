@@ -1,6 +1,7 @@
 package com.github.jsoncat.core.aop.intercept;
 
 import com.github.jsoncat.common.util.ReflectionUtil;
+import com.github.jsoncat.core.invoke.MethodInvokerFactory;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
@@ -22,6 +23,6 @@ public class MethodInvocation {
     private final Object[] args;
 
     public Object proceed() {
-        return ReflectionUtil.executeTargetMethod(targetObject, targetMethod, args);
+        return ReflectionUtil.executeTargetMethod(targetObject, MethodInvokerFactory.get(targetMethod), args);
     }
 }
@@ -0,0 +1,134 @@
+package com.github.jsoncat.core.boot;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动过程中的一步：一个阶段，或者一个 bean 的实例化 / 代理创建
+ * <p>
+ * The allocated bytes are those of the thread running the step (-1 if the JVM does not tell), the loaded
+ * classes are counted JVM wide, so steps running at the same time on several threads count the same classes.
+ * </p>
+ **/
+@JsonPropertyOrder({"category", "name", "thread", "startMillis", "durationMillis", "allocatedBytes", "loadedClasses", "children"})
+public final class StartupStep implements AutoCloseable {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final ClassLoadingMXBean CLASS_LOADING = ManagementFactory.getClassLoadingMXBean();
+
+    private final String category;
+    private final String name;
+    private final StartupStep parent;
+    // the step open on the thread before this one, it is the current step again once this one is ended
+    private final StartupStep previous;
+    private final String thread;
+    private final long bootNanos;
+    private final long startNanos;
+    private final long startAllocatedBytes;
+    private final long startLoadedClasses;
+    private final List<StartupStep> children = new CopyOnWriteArrayList<>();
+    // 0 until the step is ended
+    private volatile long endNanos;
+    private volatile long allocatedBytes = -1;
+    private volatile long loadedClasses;
+
+    StartupStep(String category, String name, StartupStep parent, StartupStep previous, long bootNanos) {
+        this.category = category;
+        this.name = name;
+        this.parent = parent;
+        this.previous = previous;
+        this.thread = Thread.currentThread().getName();
+        this.bootNanos = bootNanos;
+        this.startAllocatedBytes = currentThreadAllocatedBytes();
+        this.startLoadedClasses = CLASS_LOADING.getTotalLoadedClassCount();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * the kind of step: phase, bean, proxy, aspect...
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getThread() {
+        return thread;
+    }
+
+    /**
+     * @return the time from the start of the boot to the start of the step
+     */
+    public double getStartMillis() {
+        return toMillis(startNanos - bootNanos);
+    }
+
+    /**
+     * @return the wall time of the step, up to now if it is not ended
+     */
+    public double getDurationMillis() {
+        long end = endNanos;
+        return toMillis((end == 0 ? System.nanoTime() : end) - startNanos);
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public long getLoadedClasses() {
+        return loadedClasses;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    public List<StartupStep> getChildren() {
+        return children;
+    }
+
+    @JsonIgnore
+    public StartupStep getParent() {
+        return parent;
+    }
+
+    /**
+     * end the step, the steps started after it on the same thread are no longer its children
+     */
+    public void end() {
+        if (endNanos != 0) {
+            return;
+        }
+        endNanos = System.nanoTime();
+        long allocated = currentThreadAllocatedBytes();
+        allocatedBytes = allocated < 0 || startAllocatedBytes < 0 ? -1 : allocated - startAllocatedBytes;
+        loadedClasses = CLASS_LOADING.getTotalLoadedClassCount() - startLoadedClasses;
+        StartupTimeline.ended(this, previous);
+    }
+
+    @Override
+    public void close() {
+        end();
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,151 @@
+package com.github.jsoncat.core.boot;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 启动时间线：记录每个启动阶段以及每个 bean 的实例化、代理创建的耗时、分配的内存和加载的类
+ * <p>
+ * A step started while another step is open on the same thread is its child:
+ * <pre>
+ * StartupStep step = StartupTimeline.start("bean", beanName);
+ * try {
+ *     ...
+ * } finally {
+ *     step.end();
+ * }
+ * </pre>
+ * The timeline is printed as a report sorted by wall time and exported as JSON (in timeline order), so the
+ * beans and aspects which make a cold start slow can be found.
+ * </p>
+ **/
+public final class StartupTimeline {
+    public static final String PHASE = "phase";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    // the steps started while no other step was open
+    private static final List<StartupStep> STEPS = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<StartupStep> CURRENT = new ThreadLocal<>();
+    private static volatile long bootNanos = System.nanoTime();
+    // the uptime of the jvm when the boot started
+    private static volatile long jvmUptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+
+    private StartupTimeline() {
+    }
+
+    /**
+     * forget the recorded steps, the next steps are timed from now
+     */
+    public static void reset() {
+        STEPS.clear();
+        CURRENT.remove();
+        bootNanos = System.nanoTime();
+        jvmUptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    /**
+     * start a step, it must be ended on the same thread
+     */
+    public static StartupStep start(String category, String name) {
+        return start(CURRENT.get(), category, name);
+    }
+
+    /**
+     * start a step as a child of a step open on another thread, such as the phase which submitted the task
+     */
+    public static StartupStep start(StartupStep parent, String category, String name) {
+        StartupStep step = new StartupStep(category, name, parent, CURRENT.get(), bootNanos);
+        (parent == null ? STEPS : parent.getChildren()).add(step);
+        CURRENT.set(step);
+        return step;
+    }
+
+    /**
+     * @return the innermost step open on the current thread, null if none
+     */
+    public static StartupStep current() {
+        return CURRENT.get();
+    }
+
+    public static StartupStep startPhase(String name) {
+        return start(PHASE, name);
+    }
+
+    static void ended(StartupStep step, StartupStep previous) {
+        if (CURRENT.get() == step) {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public static List<StartupStep> getSteps() {
+        return new ArrayList<>(STEPS);
+    }
+
+    /**
+     * @param top the number of slowest beans, proxies... listed after the phases
+     * @return the phases then the other steps, each sorted by wall time, slowest first
+     */
+    public static String toReport(int top) {
+        List<StartupStep> phases = new ArrayList<>();
+        List<StartupStep> others = new ArrayList<>();
+        forEach(STEPS, step -> (PHASE.equals(step.getCategory()) ? phases : others).add(step));
+        Comparator<StartupStep> slowestFirst = Comparator.comparingDouble(StartupStep::getDurationMillis).reversed();
+        phases.sort(slowestFirst);
+        others.sort(slowestFirst);
+        double total = 0;
+        for (StartupStep step : STEPS) {
+            total += step.getDurationMillis();
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "Startup timeline: %.1f ms (the jvm was up for %d ms before)%n", total, jvmUptimeMillis));
+        appendRows(sb, "phase", phases, phases.size());
+        if (!others.isEmpty()) {
+            appendRows(sb, "slowest steps", others, top);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the steps in timeline order with their children
+     */
+    public static String toJson() {
+        Map<String, Object> timeline = new LinkedHashMap<>();
+        timeline.put("jvmUptimeMillis", jvmUptimeMillis);
+        timeline.put("steps", STEPS);
+        try {
+            return OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(timeline);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to export the startup timeline", e);
+        }
+    }
+
+    private static void appendRows(StringBuilder sb, String title, List<StartupStep> steps, int limit) {
+        sb.append(String.format(Locale.ROOT, "  %-60s %10s %12s %8s%n", title, "ms", "alloc KB", "classes"));
+        for (StartupStep step : steps.subList(0, Math.min(limit, steps.size()))) {
+            String name = PHASE.equals(step.getCategory()) ? step.getName() : step.getCategory() + " " + step.getName();
+            String allocated = step.getAllocatedBytes() < 0 ? "-" : String.valueOf(step.getAllocatedBytes() / 1024);
+            sb.append(String.format(Locale.ROOT, "  %-60s %10.2f %12s %8d%n", name, step.getDurationMillis(), allocated,
+                    step.getLoadedClasses()));
+        }
+    }
+
+    private static void forEach(List<StartupStep> steps, Consumer<StartupStep> action) {
+        for (StartupStep step : steps) {
+            action.accept(step);
+            forEach(step.getChildren(), action);
+        }
+    }
+}
@@ -24,6 +24,23 @@ public class AbstractConfiguration implements Configuration {
         return Boolean.parseBoolean(result);
     }
 
+    @Override
+    public int getInt(String id, int defaultValue) {
+        String result = CONFIGURATION_CACHE.get(id);
+        return result == null ? defaultValue : Integer.parseInt(result.trim());
+    }
+
+    @Override
+    public String getString(String id, String defaultValue) {
+        return CONFIGURATION_CACHE.getOrDefault(id, defaultValue);
+    }
+
+    @Override
+    public boolean getBoolean(String id, boolean defaultValue) {
+        String result = CONFIGURATION_CACHE.get(id);
+        return result == null ? defaultValue : Boolean.parseBoolean(result.trim());
+    }
+
     @Override
     public void put(String id, String content) {
         CONFIGURATION_CACHE.put(id, content);
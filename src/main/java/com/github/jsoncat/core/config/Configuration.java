@@ -15,6 +15,12 @@ public interface Configuration {
 
     Boolean getBoolean(String id);
 
+    int getInt(String id, int defaultValue);
+
+    String getString(String id, String defaultValue);
+
+    boolean getBoolean(String id, boolean defaultValue);
+
     default void put(String id, String content) {
     }
 
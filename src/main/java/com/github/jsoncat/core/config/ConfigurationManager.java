@@ -40,6 +40,21 @@ public class ConfigurationManager implements Configuration {
         return configuration.getBoolean(id);
     }
 
+    @Override
+    public int getInt(String id, int defaultValue) {
+        return configuration.getInt(id, defaultValue);
+    }
+
+    @Override
+    public String getString(String id, String defaultValue) {
+        return configuration.getString(id, defaultValue);
+    }
+
+    @Override
+    public boolean getBoolean(String id, boolean defaultValue) {
+        return configuration.getBoolean(id, defaultValue);
+    }
+
     @Override
     public void loadResources(List<Path> resourcePaths) {
         try {
@@ -0,0 +1,32 @@
+package com.github.jsoncat.core.invoke;
+
+import net.sf.cglib.reflect.FastClass;
+import net.sf.cglib.reflect.FastMethod;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Invoke a method through a class generated by cglib for the declaring class.
+ * The generated class calls the method directly (a switch over the method index), so there is
+ * no access check and no native/reflective dispatch on each call.
+ */
+public final class FastClassMethodInvoker implements MethodInvoker {
+    private final FastMethod fastMethod;
+
+    public FastClassMethodInvoker(Method method) {
+        this.fastMethod = FastClass.create(method.getDeclaringClass()).getMethod(method);
+        if (fastMethod.getIndex() < 0) {
+            throw new IllegalArgumentException("method is not visible to the generated class: " + method);
+        }
+    }
+
+    @Override
+    public Object invoke(Object targetObject, Object[] args) throws Throwable {
+        try {
+            return fastMethod.invoke(targetObject, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
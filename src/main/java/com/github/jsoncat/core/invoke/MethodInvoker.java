@@ -0,0 +1,16 @@
+package com.github.jsoncat.core.invoke;
+
+/**
+ * Invoke a method on a target object.
+ * Unlike {@link java.lang.reflect.Method#invoke}, the exception thrown by the target method is rethrown as it is
+ * instead of being wrapped in an InvocationTargetException.
+ */
+public interface MethodInvoker {
+
+    /**
+     * @param targetObject the object the method is invoked on, ignored for static methods
+     * @param args         method parameters, null is treated as no parameter
+     * @return the result of method execution, null if the method is void
+     */
+    Object invoke(Object targetObject, Object[] args) throws Throwable;
+}
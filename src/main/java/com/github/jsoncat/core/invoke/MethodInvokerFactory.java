@@ -0,0 +1,33 @@
+package com.github.jsoncat.core.invoke;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 方法调用器工厂，每个方法只创建一次调用器
+ **/
+@Slf4j
+public class MethodInvokerFactory {
+    private static final Map<Method, MethodInvoker> METHOD_INVOKERS = new ConcurrentHashMap<>(128);
+
+    public static MethodInvoker get(Method method) {
+        MethodInvoker methodInvoker = METHOD_INVOKERS.get(method);
+        if (methodInvoker == null) {
+            methodInvoker = METHOD_INVOKERS.computeIfAbsent(method, MethodInvokerFactory::create);
+        }
+        return methodInvoker;
+    }
+
+    private static MethodInvoker create(Method method) {
+        try {
+            return new FastClassMethodInvoker(method);
+        } catch (RuntimeException e) {
+            // eg: private methods are not visible to the generated class
+            log.warn("can not generate invoker for [{}], fall back to reflection: {}", method, e.toString());
+            return new ReflectiveMethodInvoker(method);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.jsoncat.core.invoke;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Fallback invoker based on {@link Method#invoke}, used when cglib can not create a FastClass for the declaring class
+ */
+public final class ReflectiveMethodInvoker implements MethodInvoker {
+    private final Method method;
+
+    public ReflectiveMethodInvoker(Method method) {
+        method.setAccessible(true);
+        this.method = method;
+    }
+
+    @Override
+    public Object invoke(Object targetObject, Object[] args) throws Throwable {
+        try {
+            return method.invoke(targetObject, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
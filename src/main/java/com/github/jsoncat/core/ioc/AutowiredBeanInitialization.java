@@ -7,14 +7,15 @@ import com.github.jsoncat.common.util.ObjectUtil;
 import com.github.jsoncat.common.util.ReflectionUtil;
 import com.github.jsoncat.core.aop.factory.AopProxyBeanPostProcessorFactory;
 import com.github.jsoncat.core.aop.intercept.BeanPostProcessor;
+import com.github.jsoncat.core.boot.StartupStep;
+import com.github.jsoncat.core.boot.StartupTimeline;
 import com.github.jsoncat.core.config.ConfigurationManager;
+import com.github.jsoncat.core.scanner.BuildTimeIndex;
 import com.github.jsoncat.exception.CanNotDetermineTargetBeanException;
 import com.github.jsoncat.exception.InterfaceNotHaveImplementedClassException;
 
 import java.lang.reflect.Field;
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author shuang.kou
@@ -27,33 +28,29 @@ public class AutowiredBeanInitialization {
         this.packageNames = packageNames;
     }
 
-    //二级缓存（解决循环依赖问题）
-    /**
-     * 存放注入了属性的的bean
-     */
-    private static final Map<String, Object> SINGLETON_OBJECTS = new ConcurrentHashMap<>(64);
-
     /**
      * 初始化对象属性
+     * 所有 bean 都在注入前创建好了，循环依赖不需要二级缓存：字段直接指向容器中的实例（或其代理）
      * @param beanInstance
      */
     public void initialize(Object beanInstance) {
         Class<?> beanClass = beanInstance.getClass();
-        Field[] beanFields = beanClass.getDeclaredFields();
+        Field[] beanFields = getInjectionPoints(beanClass);
         // 遍历bean的属性
         for (Field beanField : beanFields) {
             //注入对象
             if (beanField.isAnnotationPresent(Autowired.class)) {
                 //获取容器中的字段对象
                 Object beanFieldInstance = processAutowiredAnnotationField(beanField);
-                //获取字段对象bean名称
-                String beanFieldName = BeanHelper.getBeanName(beanField.getType());
-                // 解决循环依赖问题
-                beanFieldInstance = resolveCircularDependency(beanInstance, beanFieldInstance, beanFieldName);
-                // AOP 获取一个代理类（jdk/cglib）
-                BeanPostProcessor beanPostProcessor = AopProxyBeanPostProcessorFactory.get(beanField.getType());
-                //包装代理方法
-                beanFieldInstance = beanPostProcessor.postProcessAfterInitialization(beanFieldInstance);
+                StartupStep step = StartupTimeline.start("proxy", beanClass.getName() + "." + beanField.getName());
+                try {
+                    // AOP 获取一个代理类（jdk/cglib）
+                    BeanPostProcessor beanPostProcessor = AopProxyBeanPostProcessorFactory.get(beanField.getType());
+                    //包装代理方法
+                    beanFieldInstance = beanPostProcessor.postProcessAfterInitialization(beanFieldInstance);
+                } finally {
+                    step.end();
+                }
                 //设置到字段
                 ReflectionUtil.setField(beanInstance, beanField, beanFieldInstance);
             }
@@ -67,6 +64,15 @@ public class AutowiredBeanInitialization {
         }
     }
 
+    /**
+     * 只遍历构建期索引里记录的注入点，没有索引时遍历所有字段
+     */
+    static Field[] getInjectionPoints(Class<?> beanClass) {
+        BuildTimeIndex buildTimeIndex = BuildTimeIndex.get();
+        Field[] fields = buildTimeIndex == null ? null : buildTimeIndex.getInjectionPoints(beanClass);
+        return fields != null ? fields : beanClass.getDeclaredFields();
+    }
+
     /**
      * 处理被 @Autowired 注解标记的字段
      *
@@ -74,11 +80,25 @@ public class AutowiredBeanInitialization {
      * @return 目标类的字段对应的对象
      */
     private Object processAutowiredAnnotationField(Field beanField) {
+        //缓存中的对象
+        Object beanFieldInstance = BeanFactory.BEANS.get(getBeanFieldName(beanField));
+        if (beanFieldInstance == null) {
+            throw new CanNotDetermineTargetBeanException("can not determine target bean of" + beanField.getType().getName());
+        }
+        return beanFieldInstance;
+    }
+
+    /**
+     * 被 @Autowired 注解标记的字段要注入的 bean 的名字
+     *
+     * @param beanField 目标类的字段
+     * @return 字段类型的 bean 名字，字段类型为接口时是其实现类的 bean 名字
+     */
+    String getBeanFieldName(Field beanField) {
         //当前字段的类型
         Class<?> beanFieldClass = beanField.getType();
         //根据类型获取注入的bean名字
         String beanFieldName = BeanHelper.getBeanName(beanFieldClass);
-        Object beanFieldInstance;
         //当注入类型为接口时
         if (beanFieldClass.isInterface()) {
             // 获取接口的实现类
@@ -97,12 +117,7 @@ public class AutowiredBeanInitialization {
                 beanFieldName = qualifier == null ? beanFieldName : qualifier.value();
             }
         }
-        //缓存中的对象
-        beanFieldInstance = BeanFactory.BEANS.get(beanFieldName);
-        if (beanFieldInstance == null) {
-            throw new CanNotDetermineTargetBeanException("can not determine target bean of" + beanFieldClass.getName());
-        }
-        return beanFieldInstance;
+        return beanFieldName;
     }
 
     /**
@@ -123,17 +138,4 @@ public class AutowiredBeanInitialization {
         return ObjectUtil.convert(beanField.getType(), value);
     }
 
-    /**
-     * 二级缓存解决循环依赖问题
-     */
-    private Object resolveCircularDependency(Object beanInstance, Object beanFieldInstance, String beanFieldName) {
-        if (SINGLETON_OBJECTS.containsKey(beanFieldName)) {
-            beanFieldInstance = SINGLETON_OBJECTS.get(beanFieldName);
-        } else {
-            SINGLETON_OBJECTS.put(beanFieldName, beanFieldInstance);
-            initialize(beanInstance);
-        }
-        return beanFieldInstance;
-    }
-
 }
@@ -0,0 +1,186 @@
+package com.github.jsoncat.core.ioc;
+
+import com.github.jsoncat.annotation.ioc.Autowired;
+import com.github.jsoncat.exception.CanNotDetermineTargetBeanException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Field;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * bean 之间通过 @Autowired 字段形成的依赖图
+ * <p>
+ * The graph is built from the bean classes before any bean is created, so a dependency which can not be resolved
+ * fails the boot before the (maybe expensive) constructors run. The beans are split in waves: a bean is in a later
+ * wave than all the beans it depends on, the beans of a wave are independent and are processed in parallel.
+ * The beans of a dependency cycle are in the same wave, a cycle is legal because the fields are injected once all
+ * the beans of the wave are created.
+ * </p>
+ **/
+@Slf4j
+public final class BeanDependencyGraph {
+    // key: bean name, value: the names of the beans it depends on
+    private final Map<String, Set<String>> dependencies = new LinkedHashMap<>();
+    private final List<List<String>> waves = new ArrayList<>();
+    private final List<List<String>> cycles = new ArrayList<>();
+
+    /**
+     * @param beanClasses    key: bean name, value: bean class
+     * @param existingBeans  the names of the beans already created (not part of the graph), they can be injected
+     * @param initialization resolves the bean name of an @Autowired field
+     */
+    public BeanDependencyGraph(Map<String, Class<?>> beanClasses, Set<String> existingBeans, AutowiredBeanInitialization initialization) {
+        beanClasses.forEach((beanName, beanClass) -> {
+            Set<String> beanDependencies = new LinkedHashSet<>();
+            for (Field field : AutowiredBeanInitialization.getInjectionPoints(beanClass)) {
+                if (!field.isAnnotationPresent(Autowired.class)) {
+                    continue;
+                }
+                String dependency = initialization.getBeanFieldName(field);
+                if (beanClasses.containsKey(dependency)) {
+                    beanDependencies.add(dependency);
+                } else if (!existingBeans.contains(dependency)) {
+                    throw new CanNotDetermineTargetBeanException("can not determine target bean of" + field.getType().getName());
+                }
+            }
+            dependencies.put(beanName, beanDependencies);
+        });
+        computeWaves();
+    }
+
+    /**
+     * @return the names of the beans, a bean is in a later wave than the beans it depends on
+     */
+    public List<List<String>> getWaves() {
+        return Collections.unmodifiableList(waves);
+    }
+
+    /**
+     * @return the beans which depend on each other, directly or not
+     */
+    public List<List<String>> getCycles() {
+        return Collections.unmodifiableList(cycles);
+    }
+
+    /**
+     * apply the action to every bean, wave after wave, the beans of a wave in parallel
+     *
+     * @param parallelism the number of threads, 1 to apply the actions on the calling thread
+     */
+    public void forEachInWaves(int parallelism, Consumer<String> action) {
+        forEachInWaves(parallelism, beanName -> {
+            action.accept(beanName);
+            return null;
+        }, (beanName, result) -> {
+        });
+    }
+
+    /**
+     * compute a result for every bean, wave after wave, the beans of a wave in parallel. Once a wave is complete
+     * its results are handed to the consumer on the calling thread, in the order of getWaves(), so what the consumer
+     * does (such as registering the beans) does not depend on the timing of the threads.
+     *
+     * @param parallelism the number of threads, 1 to compute the results on the calling thread
+     */
+    public <T> void forEachInWaves(int parallelism, Function<String, T> action, BiConsumer<String, T> consumer) {
+        if (parallelism <= 1) {
+            waves.forEach(wave -> wave.forEach(beanName -> consumer.accept(beanName, action.apply(beanName))));
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (List<String> wave : waves) {
+                List<ForkJoinTask<T>> tasks = new ArrayList<>(wave.size());
+                for (String beanName : wave) {
+                    tasks.add(pool.submit(() -> action.apply(beanName)));
+                }
+                // rethrows the exception of a failed action
+                List<T> results = new ArrayList<>(wave.size());
+                tasks.forEach(task -> results.add(task.join()));
+                for (int i = 0; i < wave.size(); i++) {
+                    consumer.accept(wave.get(i), results.get(i));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tarjan's algorithm: the strongly connected components (the cycles, or single beans) are found dependencies
+     * first, so the wave of a component is known once its dependencies are
+     */
+    private void computeWaves() {
+        Map<String, Integer> index = new HashMap<>();
+        Map<String, Integer> lowLink = new HashMap<>();
+        Deque<String> stack = new ArrayDeque<>();
+        Set<String> onStack = new LinkedHashSet<>();
+        Map<String, Integer> waveOf = new HashMap<>();
+        for (String beanName : dependencies.keySet()) {
+            if (!index.containsKey(beanName)) {
+                connect(beanName, index, lowLink, stack, onStack, waveOf);
+            }
+        }
+    }
+
+    private void connect(String beanName, Map<String, Integer> index, Map<String, Integer> lowLink, Deque<String> stack,
+                         Set<String> onStack, Map<String, Integer> waveOf) {
+        index.put(beanName, index.size());
+        lowLink.put(beanName, index.get(beanName));
+        stack.push(beanName);
+        onStack.add(beanName);
+        for (String dependency : dependencies.get(beanName)) {
+            if (!index.containsKey(dependency)) {
+                connect(dependency, index, lowLink, stack, onStack, waveOf);
+                lowLink.put(beanName, Math.min(lowLink.get(beanName), lowLink.get(dependency)));
+            } else if (onStack.contains(dependency)) {
+                lowLink.put(beanName, Math.min(lowLink.get(beanName), index.get(dependency)));
+            }
+        }
+        if (!lowLink.get(beanName).equals(index.get(beanName))) {
+            return;
+        }
+        // beanName is the root of a component, its members are on the stack
+        List<String> component = new ArrayList<>();
+        String member;
+        do {
+            member = stack.pop();
+            onStack.remove(member);
+            component.add(member);
+        } while (!member.equals(beanName));
+        int wave = 0;
+        for (String bean : component) {
+            for (String dependency : dependencies.get(bean)) {
+                if (!component.contains(dependency)) {
+                    wave = Math.max(wave, waveOf.get(dependency) + 1);
+                }
+            }
+        }
+        for (String bean : component) {
+            waveOf.put(bean, wave);
+        }
+        while (waves.size() <= wave) {
+            waves.add(new ArrayList<>());
+        }
+        waves.get(wave).addAll(component);
+        if (component.size() > 1 || dependencies.get(beanName).contains(beanName)) {
+            Collections.reverse(component);
+            cycles.add(component);
+            log.info("Circular dependency between the beans {}, resolved by field injection", component);
+        }
+    }
+}
@@ -5,97 +5,132 @@ import com.github.jsoncat.annotation.springmvc.RestController;
 import com.github.jsoncat.common.util.ReflectionUtil;
 import com.github.jsoncat.core.aop.factory.AopProxyBeanPostProcessorFactory;
 import com.github.jsoncat.core.aop.intercept.BeanPostProcessor;
+import com.github.jsoncat.core.boot.StartupStep;
+import com.github.jsoncat.core.boot.StartupTimeline;
 import com.github.jsoncat.core.config.ConfigurationFactory;
 import com.github.jsoncat.core.config.ConfigurationManager;
 import com.github.jsoncat.exception.DoGetBeanException;
 import com.github.jsoncat.factory.ClassFactory;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * ioc 容器
+ * <p>
+ * The beans are created, then injected, wave after wave of their BeanDependencyGraph: the beans of a wave do not
+ * depend on each other and are processed in parallel, so components warming up in their constructor do not
+ * serialize the boot. The number of threads is the system property {@value #PARALLELISM_PROPERTY} (the number of
+ * processors by default, 1 to create the beans on the main thread).
+ * </p>
+ * <p>
+ * The beans are registered on the main thread in the order of the waves whatever the number of threads, so the
+ * registration order is the same on every boot: the ConfigurationManager, then a bean after the beans it depends on,
+ * the independent beans in the order their classes are found. getBean, getBeansOfType and getBeanNamesForType
+ * follow it.
+ * </p>
+ **/
 public final class BeanFactory {
+    public static final String PARALLELISM_PROPERTY = "jsoncat.ioc.parallelism";
 
-    // ioc bean 容器
-    public static final Map<String, Object> BEANS = new ConcurrentHashMap<>(128);
+    private static final Map<String, Object> INSTANCES = new ConcurrentHashMap<>(128);
+    // ioc bean 容器，只读：通过 registerBean 注册，保证类型索引与容器一致
+    public static final Map<String, Object> BEANS = Collections.unmodifiableMap(INSTANCES);
 
-    private static final Map<String, String[]> SINGLE_BEAN_NAMES_TYPE_MAP = new ConcurrentHashMap<>(128);
+    private static final BeanTypeIndex TYPE_INDEX = new BeanTypeIndex();
 
-    public static void loadBeans() {
-        ClassFactory.CLASSES.get(Component.class).forEach(aClass -> {
-            String beanName = BeanHelper.getBeanName(aClass);
-            Object obj = ReflectionUtil.newInstance(aClass);
-            BEANS.put(beanName, obj);
-        });
-        ClassFactory.CLASSES.get(RestController.class).forEach(aClass -> {
-            Object obj = ReflectionUtil.newInstance(aClass);
-            BEANS.put(aClass.getName(), obj);
-        });
-        BEANS.put(ConfigurationManager.class.getName(), new ConfigurationManager(ConfigurationFactory.getConfig()));
+    private static BeanDependencyGraph dependencyGraph;
+
+    public static void loadBeans(String[] packageNames) {
+        registerBean(ConfigurationManager.class.getName(), new ConfigurationManager(ConfigurationFactory.getConfig()));
+        Map<String, Class<?>> beanClasses = new LinkedHashMap<>();
+        ClassFactory.CLASSES.get(Component.class).forEach(aClass -> beanClasses.put(BeanHelper.getBeanName(aClass), aClass));
+        ClassFactory.CLASSES.get(RestController.class).forEach(aClass -> beanClasses.put(aClass.getName(), aClass));
+        dependencyGraph = new BeanDependencyGraph(beanClasses, BEANS.keySet(), new AutowiredBeanInitialization(packageNames));
+        StartupStep phase = StartupTimeline.current();
+        dependencyGraph.forEachInWaves(getParallelism(), beanName -> {
+            StartupStep step = StartupTimeline.start(phase, "bean", beanName);
+            try {
+                return ReflectionUtil.newInstance(beanClasses.get(beanName));
+            } finally {
+                step.end();
+            }
+        }, BeanFactory::registerBean);
+    }
+
+    /**
+     * register the bean, replacing the bean of the same name if any
+     */
+    public static void registerBean(String beanName, Object beanInstance) {
+        INSTANCES.put(beanName, beanInstance);
+        TYPE_INDEX.register(beanName, beanInstance.getClass());
+    }
+
+    /**
+     * @return the dependencies between the beans created by loadBeans
+     */
+    public static BeanDependencyGraph getDependencyGraph() {
+        return dependencyGraph;
+    }
+
+    static int getParallelism() {
+        return Integer.getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors());
     }
 
     /**
      * 执行bean后处理器
-     * 替换bean实例为aop代理对象
+     * 替换bean实例为aop代理对象，代理对象仍可以按目标类的类型查找
      */
     public static void applyBeanPostProcessors() {
         //替换bean实例
-        BEANS.replaceAll((beanName, beanInstance) -> {
-            BeanPostProcessor beanPostProcessor = AopProxyBeanPostProcessorFactory.get(beanInstance.getClass());
-            return beanPostProcessor.postProcessAfterInitialization(beanInstance);
+        INSTANCES.replaceAll((beanName, beanInstance) -> {
+            StartupStep step = StartupTimeline.start("proxy", beanName);
+            try {
+                BeanPostProcessor beanPostProcessor = AopProxyBeanPostProcessorFactory.get(beanInstance.getClass());
+                Object proxy = beanPostProcessor.postProcessAfterInitialization(beanInstance);
+                TYPE_INDEX.addTypes(beanName, proxy.getClass());
+                return proxy;
+            } finally {
+                step.end();
+            }
         });
     }
 
+    /**
+     * @return the first registered bean which is an instance of the type, see the registration order above
+     */
     public static <T> T getBean(Class<T> type) {
-        String[] beanNames = getBeanNamesForType(type);
-        if (beanNames.length == 0) {
-            throw new DoGetBeanException("not fount bean implement，the bean :" + type.getName());
-        }
-        Object beanInstance = BEANS.get(beanNames[0]);
-        if (!type.isInstance(beanInstance)) {
-            throw new DoGetBeanException("not fount bean implement，the bean :" + type.getName());
+        for (String beanName : TYPE_INDEX.getBeanNames(type)) {
+            Object beanInstance = BEANS.get(beanName);
+            if (type.isInstance(beanInstance)) {
+                return type.cast(beanInstance);
+            }
         }
-        return type.cast(beanInstance);
+        throw new DoGetBeanException("not fount bean implement，the bean :" + type.getName());
     }
 
+    /**
+     * @return the beans which are instances of the type (a jdk proxy is not an instance of its target class)
+     */
     public static <T> Map<String, T> getBeansOfType(Class<T> type) {
-        Map<String, T> result = new HashMap<>();
-        String[] beanNames = getBeanNamesForType(type);
-        for (String beanName : beanNames) {
+        Map<String, T> result = new LinkedHashMap<>();
+        for (String beanName : TYPE_INDEX.getBeanNames(type)) {
             Object beanInstance = BEANS.get(beanName);
-            if (!type.isInstance(beanInstance)) {
-                throw new DoGetBeanException("not fount bean implement，the bean :" + type.getName());
+            if (type.isInstance(beanInstance)) {
+                result.put(beanName, type.cast(beanInstance));
             }
-            result.put(beanName, type.cast(beanInstance));
         }
         return result;
     }
 
-    private static String[] getBeanNamesForType(Class<?> type) {
-        String beanName = type.getName();
-        String[] beanNames = SINGLE_BEAN_NAMES_TYPE_MAP.get(beanName);
-        if (beanNames == null) {
-            List<String> beanNamesList = new ArrayList<>();
-            for (Map.Entry<String, Object> beanEntry : BEANS.entrySet()) {
-                Class<?> beanClass = beanEntry.getValue().getClass();
-                if (type.isInterface()) {
-                    Class<?>[] interfaces = beanClass.getInterfaces();
-                    for (Class<?> c : interfaces) {
-                        if (type.getName().equals(c.getName())) {
-                            beanNamesList.add(beanEntry.getKey());
-                            break;
-                        }
-                    }
-                } else if (beanClass.isAssignableFrom(type)) {
-                    beanNamesList.add(beanEntry.getKey());
-                }
-            }
-            beanNames = beanNamesList.toArray(new String[0]);
-            SINGLE_BEAN_NAMES_TYPE_MAP.put(beanName, beanNames);
-        }
-        return beanNames;
+    /**
+     * @return the names of the beans whose class, or the class of their target if they are proxies, is the type or
+     * extends or implements it, in registration order
+     */
+    public static String[] getBeanNamesForType(Class<?> type) {
+        return TYPE_INDEX.getBeanNames(type).clone();
     }
 
 }
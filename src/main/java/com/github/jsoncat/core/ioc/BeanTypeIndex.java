@@ -0,0 +1,97 @@
+package com.github.jsoncat.core.ioc;
+
+import net.sf.cglib.proxy.Factory;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按类型索引 bean 的名字
+ * <p>
+ * A bean is indexed under its class, all its superclasses and all its interfaces, directly or not. When a bean is
+ * replaced by a proxy it stays indexed under the types of the target class and is also indexed under the types of
+ * the proxy, so a bean is found by any of them. A lookup is a single map read and does not lock, the index is
+ * updated (copy on write) when a bean is registered or replaced.
+ * </p>
+ **/
+final class BeanTypeIndex {
+    private static final String[] NO_BEAN = new String[0];
+
+    // key: type, value: the names of the beans of this type, in registration order
+    private final Map<Class<?>, String[]> beanNamesByType = new ConcurrentHashMap<>(256);
+    // key: bean name, value: the types it is indexed under, guarded by this
+    private final Map<String, Set<Class<?>>> typesByBeanName = new HashMap<>(128);
+
+    /**
+     * index the bean under the types of the class only, forgetting the types it was indexed under
+     */
+    synchronized void register(String beanName, Class<?> beanClass) {
+        Set<Class<?>> previousTypes = typesByBeanName.remove(beanName);
+        if (previousTypes != null) {
+            previousTypes.forEach(type -> removeName(type, beanName));
+        }
+        typesByBeanName.put(beanName, new LinkedHashSet<>());
+        addTypes(beanName, beanClass);
+    }
+
+    /**
+     * index the bean under the types of the class too, such as the class of the proxy replacing it
+     */
+    synchronized void addTypes(String beanName, Class<?> beanClass) {
+        Set<Class<?>> types = typesByBeanName.computeIfAbsent(beanName, key -> new LinkedHashSet<>());
+        for (Class<?> type : typesOf(beanClass)) {
+            if (types.add(type)) {
+                String[] beanNames = beanNamesByType.getOrDefault(type, NO_BEAN);
+                String[] newBeanNames = Arrays.copyOf(beanNames, beanNames.length + 1);
+                newBeanNames[beanNames.length] = beanName;
+                beanNamesByType.put(type, newBeanNames);
+            }
+        }
+    }
+
+    /**
+     * @return the names of the beans of the type, do not modify the array
+     */
+    String[] getBeanNames(Class<?> type) {
+        return beanNamesByType.getOrDefault(type, NO_BEAN);
+    }
+
+    private void removeName(Class<?> type, String beanName) {
+        String[] beanNames = beanNamesByType.get(type);
+        if (beanNames == null) {
+            return;
+        }
+        String[] newBeanNames = Arrays.stream(beanNames).filter(name -> !name.equals(beanName)).toArray(String[]::new);
+        if (newBeanNames.length == 0) {
+            beanNamesByType.remove(type);
+        } else {
+            beanNamesByType.put(type, newBeanNames);
+        }
+    }
+
+    /**
+     * @return the class, its superclasses and its interfaces, except Object and the types every proxy has
+     */
+    static Set<Class<?>> typesOf(Class<?> beanClass) {
+        Set<Class<?>> types = new LinkedHashSet<>();
+        for (Class<?> aClass = beanClass; aClass != null && aClass != Object.class && aClass != Proxy.class; aClass = aClass.getSuperclass()) {
+            types.add(aClass);
+            addInterfaces(aClass, types);
+        }
+        types.remove(Factory.class);
+        return types;
+    }
+
+    private static void addInterfaces(Class<?> aClass, Set<Class<?>> types) {
+        for (Class<?> anInterface : aClass.getInterfaces()) {
+            if (types.add(anInterface)) {
+                addInterfaces(anInterface, types);
+            }
+        }
+    }
+}
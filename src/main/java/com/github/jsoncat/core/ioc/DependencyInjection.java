@@ -1,9 +1,9 @@
 package com.github.jsoncat.core.ioc;
 
+import com.github.jsoncat.core.boot.StartupStep;
+import com.github.jsoncat.core.boot.StartupTimeline;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.Map;
-
 /**
  * @author shuang.kou & tom
  * @createTime 2020年09月30日 07:51:00
@@ -14,13 +14,19 @@ public class DependencyInjection {
 
     /**
      * 遍历ioc容器所有bean的属性, 为所有带@Autowired/@Value注解的属性注入实例
+     * 按依赖图分批注入，同一批的 bean 互不依赖，并行注入
      */
     public static void inject(String[] packageNames) {
         AutowiredBeanInitialization autowiredBeanInitialization = new AutowiredBeanInitialization(packageNames);
-        Map<String, Object> beans = BeanFactory.BEANS;
-        if (!beans.isEmpty()) {
-            BeanFactory.BEANS.values().forEach(autowiredBeanInitialization::initialize);
-        }
+        StartupStep phase = StartupTimeline.current();
+        BeanFactory.getDependencyGraph().forEachInWaves(BeanFactory.getParallelism(), beanName -> {
+            StartupStep step = StartupTimeline.start(phase, "inject", beanName);
+            try {
+                autowiredBeanInitialization.initialize(BeanFactory.BEANS.get(beanName));
+            } finally {
+                step.end();
+            }
+        });
     }
 
 }
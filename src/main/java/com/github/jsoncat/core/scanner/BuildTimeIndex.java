@@ -0,0 +1,293 @@
+package com.github.jsoncat.core.scanner;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * 编译期生成的类索引（jsoncat-processor 模块的 JsonCatIndexProcessor）
+ * <p>
+ * The index files of all the jars and class directories are merged. A class compiled with the processor is
+ * "indexed": its route methods and injection points are read from the index instead of being searched among
+ * all its methods and fields. Set the system property {@value #IGNORE_PROPERTY} to true to ignore the index.
+ * </p>
+ * <p>
+ * A jar with an index file is trusted to be complete, one without (such as a dependency compiled without the
+ * processor) is still scanned by ClassIndex, and so are the class directories without an index file (such as the
+ * test classes). A class directory with an index file is checked against the names of its class files: a tool that
+ * compiles some of the files only (an IDE, or a compiler not declaring the processor incremental) overwrites
+ * the index with them, so a directory with classes missing from its index is scanned too. Like Reflections the
+ * roots of a package are found through its directory entries.
+ * </p>
+ **/
+@Slf4j
+public final class BuildTimeIndex {
+    public static final String LOCATION = "META-INF/jsoncat.index";
+    public static final String IGNORE_PROPERTY = "jsoncat.index.ignore";
+    private static final String CLASS_SUFFIX = ".class";
+    private static final String PACKAGE_INFO = "package-info";
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<>();
+    private static final BuildTimeIndex NONE = new BuildTimeIndex();
+    // NONE if there is no index on the classpath, null until it is looked up
+    private static volatile BuildTimeIndex instance;
+
+    // the jars and class directories holding an index file, as urls ending with "/"
+    private final Set<String> roots = new LinkedHashSet<>();
+    // key: indexed class, value: its supertypes
+    private final Map<String, List<String>> supertypes = new LinkedHashMap<>();
+    // key: annotation, value: the classes annotated with it
+    private final Map<String, Set<String>> annotated = new HashMap<>();
+    // key: indexed class, value: its route methods, as [name, parameter types...]
+    private final Map<String, List<String[]>> routes = new HashMap<>();
+    // key: indexed class, value: its @Autowired / @Value fields
+    private final Map<String, List<String>> injections = new HashMap<>();
+
+    static {
+        for (Class<?> primitive : new Class<?>[]{boolean.class, byte.class, char.class, short.class, int.class,
+                long.class, float.class, double.class}) {
+            PRIMITIVES.put(primitive.getName(), primitive);
+        }
+    }
+
+    private BuildTimeIndex() {
+    }
+
+    /**
+     * @return the index of the classpath, null if there is none or it is ignored
+     */
+    public static BuildTimeIndex get() {
+        BuildTimeIndex index = instance;
+        if (index == null) {
+            synchronized (BuildTimeIndex.class) {
+                index = instance;
+                if (index == null) {
+                    index = Boolean.getBoolean(IGNORE_PROPERTY) ? NONE : load(classLoader());
+                    instance = index;
+                }
+            }
+        }
+        return index == NONE ? null : index;
+    }
+
+    /**
+     * release the index, it is read again on the next call of get()
+     */
+    public static void clear() {
+        instance = null;
+    }
+
+    static BuildTimeIndex load(ClassLoader classLoader) {
+        long start = System.currentTimeMillis();
+        try {
+            Enumeration<URL> resources = classLoader.getResources(LOCATION);
+            if (!resources.hasMoreElements()) {
+                return NONE;
+            }
+            BuildTimeIndex index = new BuildTimeIndex();
+            while (resources.hasMoreElements()) {
+                index.read(resources.nextElement());
+            }
+            log.info("Read the build-time index of {} classes from {} in {} ms", index.supertypes.size(), index.roots,
+                    System.currentTimeMillis() - start);
+            return index;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read " + LOCATION, e);
+        }
+    }
+
+    private void read(URL url) throws IOException {
+        String file = url.toExternalForm();
+        roots.add(file.substring(0, file.length() - LOCATION.length()));
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split(" ");
+                switch (parts[0]) {
+                    case "type":
+                        supertypes.put(parts[1], Arrays.asList(parts).subList(2, parts.length));
+                        break;
+                    case "annotated":
+                        annotated.computeIfAbsent(parts[1], key -> new LinkedHashSet<>()).add(parts[2]);
+                        break;
+                    case "route":
+                        routes.computeIfAbsent(parts[1], key -> new ArrayList<>()).add(Arrays.copyOfRange(parts, 2, parts.length));
+                        break;
+                    case "injection":
+                        injections.computeIfAbsent(parts[1], key -> new ArrayList<>()).add(parts[2]);
+                        break;
+                    default:
+                        log.warn("Ignored the unknown line [{}] of {}", line, url);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param root a jar or class directory, such as returned by ClasspathHelper.forPackage
+     * @return whether the classes of the root were compiled with the processor
+     */
+    public boolean isIndexedRoot(URL root) {
+        String url = root.toExternalForm();
+        return roots.contains(url.endsWith("/") ? url : url + "/");
+    }
+
+    /**
+     * @param root a jar or class directory, such as returned by ClasspathHelper.forPackage
+     * @return the classes of the package in the class directory which are not in the index, the anonymous and local
+     * classes aside; always empty for a jar, it is built whole
+     */
+    public Set<String> getUnindexedClasses(URL root, String packageName) {
+        if (!"file".equals(root.getProtocol())) {
+            return Collections.emptySet();
+        }
+        Path rootDirectory;
+        try {
+            rootDirectory = Paths.get(root.toURI());
+        } catch (URISyntaxException e) {
+            return Collections.emptySet();
+        }
+        Path packageDirectory = rootDirectory.resolve(packageName.replace('.', '/'));
+        if (!Files.isDirectory(packageDirectory)) {
+            return Collections.emptySet();
+        }
+        Set<String> classNames = new LinkedHashSet<>();
+        try (Stream<Path> files = Files.walk(packageDirectory)) {
+            files.map(file -> rootDirectory.relativize(file).toString())
+                    .filter(file -> file.endsWith(CLASS_SUFFIX))
+                    .map(file -> file.substring(0, file.length() - CLASS_SUFFIX.length()).replace(File.separatorChar, '.'))
+                    .filter(className -> !className.endsWith(PACKAGE_INFO) && !isAnonymousOrLocal(className) && !supertypes.containsKey(className))
+                    .forEach(classNames::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to list the classes of " + packageDirectory, e);
+        }
+        return classNames;
+    }
+
+    public boolean isIndexed(Class<?> aClass) {
+        return supertypes.containsKey(aClass.getName());
+    }
+
+    /**
+     * @return the names of the classes directly annotated with the annotation
+     */
+    public Set<String> getTypesAnnotatedWith(String annotationName) {
+        return annotated.getOrDefault(annotationName, Collections.emptySet());
+    }
+
+    /**
+     * @return the names of the classes and interfaces extending or implementing the type, directly or not
+     */
+    public Set<String> getSubTypesOf(String typeName) {
+        Set<String> subTypes = new LinkedHashSet<>();
+        supertypes.forEach((className, classSupertypes) -> {
+            if (classSupertypes.contains(typeName)) {
+                subTypes.add(className);
+            }
+        });
+        return subTypes;
+    }
+
+    /**
+     * @return the methods of the class annotated with @GetMapping or @PostMapping, null if the class is not indexed
+     */
+    public Method[] getRouteMethods(Class<?> aClass) {
+        if (!isIndexed(aClass)) {
+            return null;
+        }
+        List<String[]> classRoutes = routes.getOrDefault(aClass.getName(), Collections.emptyList());
+        Method[] methods = new Method[classRoutes.size()];
+        for (int i = 0; i < methods.length; i++) {
+            String[] route = classRoutes.get(i);
+            Class<?>[] parameterTypes = new Class<?>[route.length - 1];
+            for (int j = 0; j < parameterTypes.length; j++) {
+                parameterTypes[j] = forName(route[j + 1], aClass.getClassLoader());
+            }
+            try {
+                methods[i] = aClass.getDeclaredMethod(route[0], parameterTypes);
+            } catch (NoSuchMethodException e) {
+                throw outOfDate(aClass, e);
+            }
+        }
+        return methods;
+    }
+
+    /**
+     * @return the fields of the class annotated with @Autowired or @Value, null if the class is not indexed
+     */
+    public Field[] getInjectionPoints(Class<?> aClass) {
+        if (!isIndexed(aClass)) {
+            return null;
+        }
+        List<String> fieldNames = injections.getOrDefault(aClass.getName(), Collections.emptyList());
+        Field[] fields = new Field[fieldNames.size()];
+        for (int i = 0; i < fields.length; i++) {
+            try {
+                fields[i] = aClass.getDeclaredField(fieldNames.get(i));
+            } catch (NoSuchFieldException e) {
+                throw outOfDate(aClass, e);
+            }
+        }
+        return fields;
+    }
+
+    static Class<?> forName(String className, ClassLoader classLoader) {
+        Class<?> primitive = PRIMITIVES.get(className);
+        if (primitive != null) {
+            return primitive;
+        }
+        try {
+            return Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("The class " + className + " of the build-time index is not found, rebuild the project", e);
+        }
+    }
+
+    static ClassLoader classLoader() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return classLoader != null ? classLoader : BuildTimeIndex.class.getClassLoader();
+    }
+
+    /**
+     * @return true for a name such as Foo$1 or Foo$1Local, the processor only indexes the named member classes
+     */
+    private static boolean isAnonymousOrLocal(String className) {
+        int dollar = className.indexOf('$');
+        while (dollar >= 0 && dollar + 1 < className.length()) {
+            if (Character.isDigit(className.charAt(dollar + 1))) {
+                return true;
+            }
+            dollar = className.indexOf('$', dollar + 1);
+        }
+        return false;
+    }
+
+    private static IllegalStateException outOfDate(Class<?> aClass, ReflectiveOperationException e) {
+        return new IllegalStateException("The build-time index of " + aClass.getName() + " is out of date, rebuild the project", e);
+    }
+}
@@ -0,0 +1,170 @@
+package com.github.jsoncat.core.scanner;
+
+import lombok.extern.slf4j.Slf4j;
+import org.reflections.Reflections;
+import org.reflections.scanners.SubTypesScanner;
+import org.reflections.scanners.TypeAnnotationsScanner;
+import org.reflections.util.ClasspathHelper;
+import org.reflections.util.ConfigurationBuilder;
+import org.reflections.util.FilterBuilder;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Inherited;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 类索引：启动时只扫描一次类路径
+ * <p>
+ * The packages are scanned in a single pass that records both annotation -> classes and supertype -> subtypes,
+ * every later query (the @RestController / @Component / @Aspect classes, the Interceptor implementations, the
+ * implementations of every interface-typed @Autowired field) is answered from memory. The scan cost is linear
+ * in the number of classes instead of being paid again for each query. The index is dropped once the application
+ * has started, it is not needed to serve requests.
+ * When the classes were compiled with jsoncat-processor the queries are answered from its BuildTimeIndex, only
+ * the jars and class directories without an index file are scanned (see BuildTimeIndex for the limits).
+ * </p>
+ **/
+@Slf4j
+public final class ClassIndex {
+    // key: the scanned packages
+    private static final Map<List<String>, ClassIndex> INDEXES = new ConcurrentHashMap<>();
+
+    private final String[] packageNames;
+    // the classes which are not in the build-time index, null if all of them are
+    private final Reflections reflections;
+    // null if there is no build-time index
+    private final BuildTimeIndex buildTimeIndex;
+    private final Map<Class<? extends Annotation>, Set<Class<?>>> annotatedClasses = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Set<? extends Class<?>>> subTypes = new ConcurrentHashMap<>();
+
+    private ClassIndex(String[] packageNames) {
+        this.packageNames = packageNames;
+        this.buildTimeIndex = BuildTimeIndex.get();
+        if (buildTimeIndex == null) {
+            long start = System.currentTimeMillis();
+            this.reflections = new Reflections(packageNames, new TypeAnnotationsScanner(), new SubTypesScanner());
+            log.info("Indexed the classes of {} in {} ms", Arrays.toString(packageNames), System.currentTimeMillis() - start);
+            return;
+        }
+        ClassLoader classLoader = BuildTimeIndex.classLoader();
+        Set<URL> unindexedRoots = new LinkedHashSet<>();
+        for (String packageName : packageNames) {
+            for (URL root : ClasspathHelper.forPackage(packageName, classLoader)) {
+                if (!buildTimeIndex.isIndexedRoot(root)) {
+                    unindexedRoots.add(root);
+                    continue;
+                }
+                Set<String> unindexedClasses = buildTimeIndex.getUnindexedClasses(root, packageName);
+                if (!unindexedClasses.isEmpty()) {
+                    // the index was overwritten by a compilation of some of the files, the beans and routes of the others would be lost
+                    log.warn("The build-time index of {} misses {}, rebuild the project", root, unindexedClasses);
+                    unindexedRoots.add(root);
+                }
+            }
+        }
+        if (unindexedRoots.isEmpty()) {
+            this.reflections = null;
+            return;
+        }
+        long start = System.currentTimeMillis();
+        this.reflections = new Reflections(new ConfigurationBuilder()
+                .setUrls(unindexedRoots)
+                .filterInputsBy(new FilterBuilder().includePackage(packageNames))
+                .addClassLoader(classLoader)
+                .setScanners(new TypeAnnotationsScanner(), new SubTypesScanner()));
+        log.warn("{} have no build-time index (compiled without jsoncat-processor), scanned the classes of {} in them in {} ms",
+                unindexedRoots, Arrays.toString(packageNames), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * @return the index of the packages, they are scanned on the first call
+     */
+    public static ClassIndex of(String[] packageNames) {
+        return INDEXES.computeIfAbsent(Arrays.asList(packageNames.clone()), key -> new ClassIndex(key.toArray(new String[0])));
+    }
+
+    /**
+     * release the indexes, a later query scans the packages again
+     */
+    public static void clear() {
+        INDEXES.clear();
+        BuildTimeIndex.clear();
+    }
+
+    /**
+     * @return the classes annotated with the annotation (@Inherited is honored)
+     */
+    public Set<Class<?>> getTypesAnnotatedWith(Class<? extends Annotation> annotation) {
+        return annotatedClasses.computeIfAbsent(annotation, key -> {
+            if (buildTimeIndex == null) {
+                return reflections.getTypesAnnotatedWith(key, true);
+            }
+            Set<Class<?>> classes = indexedTypesAnnotatedWith(key);
+            if (reflections != null) {
+                classes.addAll(reflections.getTypesAnnotatedWith(key, true));
+            }
+            return classes;
+        });
+    }
+
+    /**
+     * @return the classes and interfaces extending or implementing the type, directly or not
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Set<Class<? extends T>> getSubTypesOf(Class<T> type) {
+        return (Set<Class<? extends T>>) subTypes.computeIfAbsent(type, key -> {
+            if (buildTimeIndex == null) {
+                return reflections.getSubTypesOf(key);
+            }
+            Set<Class<?>> classes = forNames(buildTimeIndex.getSubTypesOf(key.getName()));
+            if (reflections != null) {
+                classes.addAll(reflections.getSubTypesOf(key));
+            }
+            return classes;
+        });
+    }
+
+    private Set<Class<?>> indexedTypesAnnotatedWith(Class<? extends Annotation> annotation) {
+        Set<String> classNames = new LinkedHashSet<>(buildTimeIndex.getTypesAnnotatedWith(annotation.getName()));
+        if (annotation.isAnnotationPresent(Inherited.class)) {
+            // an inherited annotation is present on the subclasses too, not on the implementations of an interface
+            for (String className : new LinkedHashSet<>(classNames)) {
+                for (Class<?> subType : forNames(buildTimeIndex.getSubTypesOf(className))) {
+                    if (!subType.isInterface()) {
+                        classNames.add(subType.getName());
+                    }
+                }
+            }
+        }
+        return forNames(classNames);
+    }
+
+    /**
+     * @return the classes of the scanned packages
+     */
+    private Set<Class<?>> forNames(Set<String> classNames) {
+        ClassLoader classLoader = BuildTimeIndex.classLoader();
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        for (String className : classNames) {
+            if (inPackages(className)) {
+                classes.add(BuildTimeIndex.forName(className, classLoader));
+            }
+        }
+        return classes;
+    }
+
+    private boolean inPackages(String className) {
+        for (String packageName : packageNames) {
+            if (className.startsWith(packageName + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
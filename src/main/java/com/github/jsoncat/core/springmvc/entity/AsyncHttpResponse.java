@@ -0,0 +1,26 @@
+package com.github.jsoncat.core.springmvc.entity;
+
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import lombok.Getter;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A placeholder for the response of a route returning a CompletionStage, it is never written itself.
+ * The real response is built from the result and written on the event loop once the future completes,
+ * or a 504 is written if it does not complete within timeoutMillis.
+ **/
+@Getter
+public class AsyncHttpResponse extends DefaultHttpResponse {
+    // completed with the result of the route method, or exceptionally
+    private final CompletableFuture<Object> result;
+    private final long timeoutMillis;
+
+    public AsyncHttpResponse(HttpVersion version, CompletableFuture<Object> result, long timeoutMillis) {
+        super(version, HttpResponseStatus.OK);
+        this.result = result;
+        this.timeoutMillis = timeoutMillis;
+    }
+}
@@ -0,0 +1,32 @@
+package com.github.jsoncat.core.springmvc.entity;
+
+import com.github.jsoncat.annotation.springmvc.Compress;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+
+/**
+ * how the responses of a route are compressed, see {@link Compress}
+ **/
+public enum Compression {
+    // compressed if the client accepts gzip or deflate and the body is large enough
+    COMPRESS,
+    // never compressed
+    SKIP,
+    // compressed like COMPRESS, the compressed bodies are cached
+    CACHE;
+
+    public static Compression of(Method method) {
+        // the annotation on the method takes precedence over the one on the controller
+        for (AnnotatedElement element : new AnnotatedElement[]{method, method.getDeclaringClass()}) {
+            Compress compress = element.getAnnotation(Compress.class);
+            if (compress != null) {
+                if (!compress.value()) {
+                    return SKIP;
+                }
+                return compress.cacheable() ? CACHE : COMPRESS;
+            }
+        }
+        return COMPRESS;
+    }
+}
@@ -0,0 +1,21 @@
+package com.github.jsoncat.core.springmvc.entity;
+
+import io.netty.channel.FileRegion;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import lombok.Getter;
+
+/**
+ * A response whose body is transferred from a file straight to the socket (sendfile), without copying it
+ * to user space. Only possible on a cleartext HTTP/1.1 connection.
+ **/
+@Getter
+public class FileRegionHttpResponse extends DefaultHttpResponse {
+    private final FileRegion body;
+
+    public FileRegionHttpResponse(HttpVersion version, HttpResponseStatus status, FileRegion body) {
+        super(version, status);
+        this.body = body;
+    }
+}
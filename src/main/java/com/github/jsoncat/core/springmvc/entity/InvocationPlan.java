@@ -0,0 +1,52 @@
+package com.github.jsoncat.core.springmvc.entity;
+
+import com.github.jsoncat.core.invoke.MethodInvoker;
+import com.github.jsoncat.core.springmvc.metrics.RouteMetrics;
+import com.github.jsoncat.core.springmvc.resolver.ParameterResolver;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Everything needed to invoke a route method, built once when the routes are loaded
+ * so that a request only has to resolve the arguments and call the target.
+ **/
+@Getter
+@AllArgsConstructor
+public final class InvocationPlan {
+    // target method
+    private final Method method;
+    // pre-built invoker of the target method
+    private final MethodInvoker methodInvoker;
+    // the bean the target method is invoked on (may be an aop proxy)
+    private final Object targetObject;
+    // one resolver per method parameter, null for parameters without a supported annotation
+    private final ParameterResolver[] parameterResolvers;
+    private final ReturnType returnType;
+    // the worker pool the route is executed on, null means the netty I/O thread
+    private final ExecutorService executor;
+    // the body is read as an InputStream instead of being aggregated
+    private final boolean streamingBody;
+    // how long a FUTURE route may take to complete, 0 for other routes
+    private final long timeoutMillis;
+    // how the responses are compressed
+    private final Compression compression;
+    // request count, errors and latencies of the route
+    private final RouteMetrics metrics;
+
+    /**
+     * resolve the arguments of the target method from the current request
+     */
+    public Object[] resolveArguments(MethodDetail methodDetail) {
+        Object[] args = new Object[parameterResolvers.length];
+        for (int i = 0; i < parameterResolvers.length; i++) {
+            ParameterResolver parameterResolver = parameterResolvers[i];
+            if (parameterResolver != null) {
+                args[i] = parameterResolver.resolve(methodDetail);
+            }
+        }
+        return args;
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.jsoncat.core.springmvc.entity;
+
+import com.github.jsoncat.serialize.impl.JacksonSerializer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+
+/**
+ * Writes the elements of a JsonStream as a json array, several elements are batched into a chunk of about
+ * CHUNK_SIZE bytes. ChunkedWriteHandler only asks for the next chunk while the channel is writable, so a slow
+ * client does not make the server buffer the whole response.
+ **/
+public class JsonArrayChunkedInput implements ChunkedInput<ByteBuf> {
+    private static final int CHUNK_SIZE = 8192;
+    private static final JacksonSerializer JSON_SERIALIZER = new JacksonSerializer();
+
+    private final JsonStream<?> jsonStream;
+    private boolean started;
+    private long elements;
+    private boolean ended;
+    private long progress;
+
+    public JsonArrayChunkedInput(JsonStream<?> jsonStream) {
+        this.jsonStream = jsonStream;
+    }
+
+    @Override
+    public boolean isEndOfInput() {
+        return ended;
+    }
+
+    @Override
+    public void close() {
+        jsonStream.close();
+    }
+
+    @Deprecated
+    @Override
+    public ByteBuf readChunk(ChannelHandlerContext ctx) {
+        return readChunk(ctx.alloc());
+    }
+
+    @Override
+    public ByteBuf readChunk(ByteBufAllocator allocator) {
+        if (ended) {
+            return null;
+        }
+        ByteBuf chunk = allocator.ioBuffer(CHUNK_SIZE);
+        try {
+            if (!started) {
+                chunk.writeByte('[');
+                started = true;
+            }
+            while (chunk.readableBytes() < CHUNK_SIZE && jsonStream.hasNext()) {
+                Object element = jsonStream.next();
+                int writerIndex = chunk.writerIndex();
+                if (elements > 0) {
+                    chunk.writeByte(',');
+                }
+                int elementIndex = chunk.writerIndex();
+                JSON_SERIALIZER.serialize(element, chunk);
+                if (chunk.writerIndex() == elementIndex) {
+                    // the element can't be serialized, skip it rather than writing a dangling comma
+                    chunk.writerIndex(writerIndex);
+                    continue;
+                }
+                elements++;
+            }
+            if (!jsonStream.hasNext()) {
+                chunk.writeByte(']');
+                ended = true;
+            }
+        } catch (RuntimeException e) {
+            chunk.release();
+            throw e;
+        }
+        progress += chunk.readableBytes();
+        return chunk;
+    }
+
+    @Override
+    public long length() {
+        return -1;
+    }
+
+    @Override
+    public long progress() {
+        return progress;
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.jsoncat.core.springmvc.entity;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * A sequence of elements returned by a route method, written to the client as a json array one element
+ * at a time (chunked transfer encoding) instead of being serialized into memory as a whole.
+ * <p>
+ * A route method may also return an Iterator or a java.util.stream.Stream, they are adapted with of(...).
+ * The elements are pulled on the netty I/O thread as the client consumes the response, so producing the next
+ * element should not block.
+ * </p>
+ *
+ * @param <T> the type of the elements
+ **/
+public interface JsonStream<T> extends Iterator<T>, AutoCloseable {
+
+    /**
+     * called once the response is written or the connection is closed
+     */
+    @Override
+    default void close() {
+    }
+
+    static <T> JsonStream<T> of(Iterator<T> iterator) {
+        return new JsonStream<T>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return iterator.next();
+            }
+        };
+    }
+
+    static <T> JsonStream<T> of(Stream<T> stream) {
+        Iterator<T> iterator = stream.iterator();
+        return new JsonStream<T>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void close() {
+                stream.close();
+            }
+        };
+    }
+}
@@ -1,13 +1,13 @@
 package com.github.jsoncat.core.springmvc.entity;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.lang.reflect.Method;
-import java.util.HashMap;
+import java.io.InputStream;
 import java.util.Map;
-import java.util.regex.Pattern;
 
 /**
  * @author shuang.kou
@@ -17,43 +17,16 @@ import java.util.regex.Pattern;
 @AllArgsConstructor
 @NoArgsConstructor
 public class MethodDetail {
-    // target method
-    private Method method;
+    // how to invoke the target method
+    private InvocationPlan invocationPlan;
     // url parameter mapping
     private Map<String, String> urlParameterMappings;
     // url query parameter mapping
     private Map<String, String> queryParameterMappings;
-    // json type http post request data
-    private String json;
-
-    public void build(String requestPath, Map<String, Method> requestMappings, Map<String, String> urlMappings) {
-        requestMappings.forEach((key, value) -> {
-            Pattern pattern = Pattern.compile(key);
-            boolean b = pattern.matcher(requestPath).find();
-            if (b) {
-                this.setMethod(value);
-                String url = urlMappings.get(key);
-                Map<String, String> urlParameterMappings = getUrlParameterMappings(requestPath, url);
-                this.setUrlParameterMappings(urlParameterMappings);
-            }
-        });
-    }
-
-    /**
-     * Match the request path parameter to the URL parameter
-     * <p>
-     * eg: requestPath="/user/1" url="/user/{id}"
-     * this method will return:{"id" -> "1","user" -> "user"}
-     * </p>
-     */
-    private Map<String, String> getUrlParameterMappings(String requestPath, String url) {
-        String[] requestParams = requestPath.split("/");
-        String[] urlParams = url.split("/");
-        Map<String, String> urlParameterMappings = new HashMap<>();
-        for (int i = 1; i < urlParams.length; i++) {
-            urlParameterMappings.put(urlParams[i].replace("{", "").replace("}", ""), requestParams[i]);
-        }
-        return urlParameterMappings;
-    }
-
+    // json type http post request data, owned by the request and only valid while it is being handled
+    private ByteBuf body;
+    // the body of a streaming route, read while the request is still being received
+    private InputStream bodyStream;
+    // allocator of the channel, the response body is allocated from it
+    private ByteBufAllocator allocator;
 }
@@ -0,0 +1,34 @@
+package com.github.jsoncat.core.springmvc.entity;
+
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Stream;
+
+/**
+ * how the return value of a route method is turned into a http response
+ **/
+public enum ReturnType {
+    // nothing to serialize, respond with an empty body
+    VOID,
+    // serialize the returned object to json
+    OBJECT,
+    // Iterator, Stream or JsonStream, written as a chunked json array element by element
+    STREAM,
+    // CompletableFuture or CompletionStage, the response is written when it completes
+    FUTURE;
+
+    public static ReturnType of(Method method) {
+        Class<?> returnType = method.getReturnType();
+        if (returnType == void.class) {
+            return VOID;
+        }
+        if (CompletionStage.class.isAssignableFrom(returnType)) {
+            return FUTURE;
+        }
+        if (Iterator.class.isAssignableFrom(returnType) || Stream.class.isAssignableFrom(returnType)) {
+            return STREAM;
+        }
+        return OBJECT;
+    }
+}
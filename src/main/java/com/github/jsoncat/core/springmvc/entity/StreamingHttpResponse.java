@@ -0,0 +1,21 @@
+package com.github.jsoncat.core.springmvc.entity;
+
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.stream.ChunkedInput;
+import lombok.Getter;
+
+/**
+ * A response whose body is written after the headers as chunks pulled from a ChunkedInput
+ **/
+@Getter
+public class StreamingHttpResponse extends DefaultHttpResponse {
+    private final ChunkedInput<HttpContent> body;
+
+    public StreamingHttpResponse(HttpVersion version, HttpResponseStatus status, ChunkedInput<HttpContent> body) {
+        super(version, status);
+        this.body = body;
+    }
+}
@@ -1,16 +1,36 @@
 package com.github.jsoncat.core.springmvc.factory;
 
 import com.github.jsoncat.common.util.ReflectionUtil;
+import com.github.jsoncat.core.springmvc.entity.AsyncHttpResponse;
+import com.github.jsoncat.core.springmvc.entity.InvocationPlan;
+import com.github.jsoncat.core.springmvc.entity.JsonArrayChunkedInput;
+import com.github.jsoncat.core.springmvc.entity.JsonStream;
+import com.github.jsoncat.core.springmvc.entity.ReturnType;
+import com.github.jsoncat.core.springmvc.entity.StreamingHttpResponse;
+import com.github.jsoncat.core.springmvc.metrics.RouteMetrics;
 import com.github.jsoncat.exception.ErrorResponse;
 import com.github.jsoncat.serialize.impl.JacksonSerializer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpChunkedInput;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.util.AsciiString;
 
-import java.lang.reflect.Method;
-import java.util.List;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Stream;
 
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
@@ -22,32 +42,72 @@ import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 public class FullHttpResponseFactory {
     private static final AsciiString CONTENT_TYPE = AsciiString.cached("Content-Type");
     private static final AsciiString CONTENT_LENGTH = AsciiString.cached("Content-Length");
+    private static final AsciiString TRANSFER_ENCODING = AsciiString.cached("Transfer-Encoding");
+    private static final AsciiString RETRY_AFTER = AsciiString.cached("Retry-After");
     private static final JacksonSerializer JSON_SERIALIZER = new JacksonSerializer();
+    // encoded once, shedding load must be cheaper than serving the request
+    private static final ByteBuf SERVICE_UNAVAILABLE_CONTENT = Unpooled.unreleasableBuffer(
+            Unpooled.directBuffer().writeBytes(JSON_SERIALIZER.serialize(serviceUnavailable())).asReadOnly());
+    private static final HttpHeaders SERVICE_UNAVAILABLE_HEADERS = new DefaultHttpHeaders()
+            .set(CONTENT_TYPE, "application/json")
+            .setInt(CONTENT_LENGTH, SERVICE_UNAVAILABLE_CONTENT.readableBytes())
+            .set(RETRY_AFTER, "1");
 
-    public static FullHttpResponse getSuccessResponse(Method targetMethod, List<Object> targetMethodParams, Object targetObject) {
+    /**
+     * @param allocator the allocator of the channel, the response body is serialized straight into a (pooled) buffer from it
+     * @return a FullHttpResponse, a StreamingHttpResponse if the route method returns a stream of elements,
+     * or an AsyncHttpResponse if it returns a CompletionStage
+     */
+    public static HttpResponse getSuccessResponse(ByteBufAllocator allocator, InvocationPlan invocationPlan, Object[] targetMethodParams) {
+        RouteMetrics metrics = invocationPlan.getMetrics();
+        long executeStart = System.nanoTime();
+        Object result;
+        try {
+            result = ReflectionUtil.executeTargetMethod(invocationPlan.getTargetObject(), invocationPlan.getMethodInvoker(), targetMethodParams);
+        } finally {
+            metrics.record(RouteMetrics.Phase.EXECUTE, executeStart);
+        }
         //the return type of targetMethod is void
-        if (targetMethod.getReturnType() == void.class) {
-            ReflectionUtil.executeTargetMethodNoResult(targetObject, targetMethod, targetMethodParams.toArray());
+        if (invocationPlan.getReturnType() == ReturnType.VOID) {
             return buildSuccessResponse();
-        } else {
-            Object result = ReflectionUtil.executeTargetMethod(targetObject, targetMethod, targetMethodParams.toArray());
-            return buildSuccessResponse(result);
         }
+        if (invocationPlan.getReturnType() == ReturnType.FUTURE) {
+            return new AsyncHttpResponse(HTTP_1_1, toFuture(result), invocationPlan.getTimeoutMillis());
+        }
+        if (invocationPlan.getReturnType() == ReturnType.STREAM) {
+            return buildStreamingResponse(toJsonStream(result));
+        }
+        long serializeStart = System.nanoTime();
+        FullHttpResponse response = buildSuccessResponse(allocator, result);
+        metrics.record(RouteMetrics.Phase.SERIALIZE, serializeStart);
+        return response;
+    }
+
+    /**
+     * build the response of an asynchronous route once its future has completed with the result
+     */
+    public static FullHttpResponse getCompletedResponse(ByteBufAllocator allocator, Object result) {
+        return result == null ? buildSuccessResponse() : buildSuccessResponse(allocator, result);
     }
 
-    public static FullHttpResponse getErrorResponse(String url, String message, HttpResponseStatus httpResponseStatus) {
+    public static FullHttpResponse getErrorResponse(ByteBufAllocator allocator, String url, String message, HttpResponseStatus httpResponseStatus) {
         ErrorResponse errorResponse = new ErrorResponse(httpResponseStatus.code(), httpResponseStatus.reasonPhrase(), message, url);
-        byte[] content = JSON_SERIALIZER.serialize(errorResponse);
-        FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, httpResponseStatus, Unpooled.wrappedBuffer(content));
+        FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, httpResponseStatus, serialize(allocator, errorResponse));
         response.headers().set(CONTENT_TYPE, "application/json");
         response.headers().setInt(CONTENT_LENGTH, response.content().readableBytes());
         return response;
     }
 
+    /**
+     * the pre-encoded 503 returned when a request is shed, no serialization or allocation of the body
+     */
+    public static FullHttpResponse getServiceUnavailableResponse() {
+        return new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.SERVICE_UNAVAILABLE, SERVICE_UNAVAILABLE_CONTENT.duplicate(),
+                SERVICE_UNAVAILABLE_HEADERS.copy(), EmptyHttpHeaders.INSTANCE);
+    }
 
-    private static FullHttpResponse buildSuccessResponse(Object o) {
-        byte[] content = JSON_SERIALIZER.serialize(o);
-        FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, OK, Unpooled.wrappedBuffer(content));
+    private static FullHttpResponse buildSuccessResponse(ByteBufAllocator allocator, Object o) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, OK, serialize(allocator, o));
         response.headers().set(CONTENT_TYPE, "application/json");
         response.headers().setInt(CONTENT_LENGTH, response.content().readableBytes());
         return response;
@@ -60,4 +120,58 @@ public class FullHttpResponseFactory {
         return response;
     }
 
+    private static HttpResponse buildStreamingResponse(JsonStream<?> jsonStream) {
+        HttpResponse response = new StreamingHttpResponse(HTTP_1_1, OK, new HttpChunkedInput(new JsonArrayChunkedInput(jsonStream)));
+        response.headers().set(CONTENT_TYPE, "application/json");
+        response.headers().set(TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+        return response;
+    }
+
+    private static JsonStream<?> toJsonStream(Object result) {
+        if (result instanceof JsonStream) {
+            return (JsonStream<?>) result;
+        }
+        if (result instanceof Iterator) {
+            return JsonStream.of((Iterator<?>) result);
+        }
+        if (result instanceof Stream) {
+            return JsonStream.of((Stream<?>) result);
+        }
+        // the route method returned null, or failed and the error was swallowed
+        return JsonStream.of(Collections.emptyIterator());
+    }
+
+    private static CompletableFuture<Object> toFuture(Object result) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        if (result == null) {
+            // the route method returned null, or failed and the error was swallowed
+            future.complete(null);
+        } else {
+            // a new future, so a timeout does not complete the one owned by the route method
+            ((CompletionStage<?>) result).whenComplete((value, error) -> {
+                if (error != null) {
+                    future.completeExceptionally(error);
+                } else {
+                    future.complete(value);
+                }
+            });
+        }
+        return future;
+    }
+
+    private static Map<String, Object> serviceUnavailable() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", HttpResponseStatus.SERVICE_UNAVAILABLE.code());
+        body.put("error", HttpResponseStatus.SERVICE_UNAVAILABLE.reasonPhrase());
+        body.put("message", "The server is too busy");
+        return body;
+    }
+
+    private static ByteBuf serialize(ByteBufAllocator allocator, Object o) {
+        // ioBuffer prefers a direct buffer, so the socket write does not need another copy
+        ByteBuf content = allocator.ioBuffer();
+        JSON_SERIALIZER.serialize(o, content);
+        return content;
+    }
+
 }
@@ -6,8 +6,10 @@ import com.github.jsoncat.annotation.springmvc.RequestParam;
 import com.github.jsoncat.core.springmvc.resolver.ParameterResolver;
 import com.github.jsoncat.core.springmvc.resolver.PathVariableParameterResolver;
 import com.github.jsoncat.core.springmvc.resolver.RequestBodyParameterResolver;
+import com.github.jsoncat.core.springmvc.resolver.RequestBodyStreamParameterResolver;
 import com.github.jsoncat.core.springmvc.resolver.RequestParamParameterResolver;
 
+import java.io.InputStream;
 import java.lang.reflect.Parameter;
 
 /**
@@ -16,15 +18,23 @@ import java.lang.reflect.Parameter;
  **/
 public class ParameterResolverFactory {
 
+    /**
+     * create the resolver of a method parameter, called once per parameter when the routes are loaded
+     *
+     * @return the resolver, or null if the parameter has no supported annotation
+     */
     public static ParameterResolver get(Parameter parameter) {
         if (parameter.isAnnotationPresent(RequestParam.class)) {
-            return new RequestParamParameterResolver();
+            return new RequestParamParameterResolver(parameter);
         }
         if (parameter.isAnnotationPresent(PathVariable.class)) {
-            return new PathVariableParameterResolver();
+            return new PathVariableParameterResolver(parameter);
         }
         if (parameter.isAnnotationPresent(RequestBody.class)) {
-            return new RequestBodyParameterResolver();
+            if (parameter.getType() == InputStream.class) {
+                return new RequestBodyStreamParameterResolver();
+            }
+            return new RequestBodyParameterResolver(parameter);
         }
         return null;
     }
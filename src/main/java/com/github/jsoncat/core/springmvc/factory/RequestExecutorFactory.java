@@ -0,0 +1,141 @@
+package com.github.jsoncat.core.springmvc.factory;
+
+import com.github.jsoncat.annotation.springmvc.NonBlocking;
+import com.github.jsoncat.annotation.springmvc.WorkerPool;
+import com.github.jsoncat.core.config.ConfigurationManager;
+import com.github.jsoncat.core.ioc.BeanFactory;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 存放执行 controller 的工作线程池
+ * <p>
+ * By default a route is executed on the "default" worker pool so a blocking controller does not stall the netty
+ * I/O thread. The pools are bounded, when the queue is full the task is rejected and the request gets a 503.
+ * </p>
+ * <pre>
+ * jsoncat.server.executor.mode: worker          # worker | io, where routes without annotation are executed
+ * jsoncat.server.executors.default.threads: 200
+ * jsoncat.server.executors.default.queue-size: 1000
+ * jsoncat.server.executors.default.type: platform  # platform | virtual
+ * </pre>
+ * A "virtual" pool starts a new virtual thread per request (Java 21+), so blocking controllers scale to
+ * a large number of in-flight requests without sizing a pool. The build still targets Java 8, so the virtual
+ * thread api is looked up reflectively; on an older jvm the pool falls back to platform threads, sized by its
+ * threads and queue-size like the other pools.
+ **/
+@Slf4j
+public class RequestExecutorFactory {
+    public static final String DEFAULT_EXECUTOR = "default";
+    private static final String EXECUTOR_MODE = "jsoncat.server.executor.mode";
+    private static final String IO_MODE = "io";
+    private static final String EXECUTOR_PREFIX = "jsoncat.server.executors.";
+    private static final String VIRTUAL_TYPE = "virtual";
+    private static final int DEFAULT_THREADS = 200;
+    private static final int DEFAULT_QUEUE_SIZE = 1000;
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    private static final Map<String, ExecutorService> EXECUTORS = new ConcurrentHashMap<>();
+
+    /**
+     * get the executor of the route method
+     *
+     * @return the worker pool, or null if the route should be executed on the I/O thread
+     */
+    public static ExecutorService get(Method method) {
+        // the annotation on the method takes precedence over the one on the controller
+        for (AnnotatedElement element : new AnnotatedElement[]{method, method.getDeclaringClass()}) {
+            if (element.isAnnotationPresent(NonBlocking.class)) {
+                return null;
+            }
+            WorkerPool workerPool = element.getAnnotation(WorkerPool.class);
+            if (workerPool != null) {
+                return get(workerPool.value());
+            }
+        }
+        ConfigurationManager configurationManager = BeanFactory.getBean(ConfigurationManager.class);
+        return IO_MODE.equals(configurationManager.getString(EXECUTOR_MODE, "worker")) ? null : get(DEFAULT_EXECUTOR);
+    }
+
+    public static ExecutorService get(String name) {
+        return EXECUTORS.computeIfAbsent(name, RequestExecutorFactory::create);
+    }
+
+    /**
+     * @return the worker pools created so far, by name
+     */
+    public static Map<String, ExecutorService> getExecutors() {
+        return Collections.unmodifiableMap(EXECUTORS);
+    }
+
+    /**
+     * the requests are drained before, so the pools are idle: let the queued tasks finish and the threads exit
+     */
+    public static void shutdown() {
+        EXECUTORS.values().forEach(ExecutorService::shutdown);
+        EXECUTORS.clear();
+    }
+
+    private static ExecutorService create(String name) {
+        ConfigurationManager configurationManager = BeanFactory.getBean(ConfigurationManager.class);
+        String type = configurationManager.getString(EXECUTOR_PREFIX + name + ".type", "platform");
+        int threads = configurationManager.getInt(EXECUTOR_PREFIX + name + ".threads", DEFAULT_THREADS);
+        int queueSize = configurationManager.getInt(EXECUTOR_PREFIX + name + ".queue-size", DEFAULT_QUEUE_SIZE);
+        return newExecutor(name, type, threads, queueSize);
+    }
+
+    /**
+     * @param threads   the size of the pool, and of the fallback of a "virtual" pool
+     * @param queueSize the size of the queue, and of the fallback of a "virtual" pool
+     */
+    static ExecutorService newExecutor(String name, String type, int threads, int queueSize) {
+        if (VIRTUAL_TYPE.equals(type)) {
+            try {
+                return newVirtualThreadExecutor(name);
+            } catch (IllegalStateException e) {
+                log.warn("Worker pool [{}] is configured to use virtual threads, which require Java 21+: use {} platform threads instead",
+                        name, threads);
+            }
+        }
+        return newPlatformThreadExecutor(name, threads, queueSize);
+    }
+
+    /**
+     * a bounded pool of platform threads, rejects tasks when the queue is full
+     */
+    public static ExecutorService newPlatformThreadExecutor(String name, int threads, int queueSize) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), new DefaultThreadFactory("jsoncat-" + name));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * equivalent to Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("jsoncat-" + name + "-", 0).factory())
+     *
+     * @throws IllegalStateException if the jvm does not support virtual threads
+     */
+    public static ExecutorService newVirtualThreadExecutor(String name) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "jsoncat-" + name + "-", 0L);
+            ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, threadFactory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("worker pool [" + name + "] is configured to use virtual threads, which require Java 21+", e);
+        }
+    }
+}
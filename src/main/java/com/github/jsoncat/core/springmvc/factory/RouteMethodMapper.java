@@ -1,16 +1,36 @@
 package com.github.jsoncat.core.springmvc.factory;
 
+import com.github.jsoncat.annotation.springmvc.AsyncTimeout;
 import com.github.jsoncat.annotation.springmvc.GetMapping;
 import com.github.jsoncat.annotation.springmvc.PostMapping;
 import com.github.jsoncat.annotation.springmvc.RestController;
+import com.github.jsoncat.core.config.ConfigurationManager;
+import com.github.jsoncat.core.invoke.MethodInvokerFactory;
+import com.github.jsoncat.core.ioc.BeanFactory;
+import com.github.jsoncat.core.ioc.BeanHelper;
+import com.github.jsoncat.core.scanner.BuildTimeIndex;
+import com.github.jsoncat.core.springmvc.entity.Compression;
+import com.github.jsoncat.core.springmvc.entity.InvocationPlan;
 import com.github.jsoncat.core.springmvc.entity.MethodDetail;
+import com.github.jsoncat.core.springmvc.entity.ReturnType;
+import com.github.jsoncat.core.springmvc.metrics.RouteMetrics;
+import com.github.jsoncat.core.springmvc.resolver.ParameterResolver;
+import com.github.jsoncat.core.springmvc.resolver.RequestBodyStreamParameterResolver;
+import com.github.jsoncat.core.springmvc.router.RouteTree;
 import com.github.jsoncat.factory.ClassFactory;
 import io.netty.handler.codec.http.HttpMethod;
+import lombok.extern.slf4j.Slf4j;
 
+import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Save routing-related mapping information
@@ -18,30 +38,37 @@ import java.util.Set;
  * @author shuang.kou
  * @createTime 2020年09月29日 13:27:00
  **/
+@Slf4j
 public class RouteMethodMapper {
     public static final HttpMethod[] HTTP_METHODS = {HttpMethod.GET, HttpMethod.POST};
+    private static final String ASYNC_TIMEOUT = "jsoncat.server.async.timeout-millis";
+    private static final int DEFAULT_ASYNC_TIMEOUT_MILLIS = 30000;
 
     // key : http method
-    // value : url -> method
-    private static final Map<HttpMethod, Map<String, Method>> REQUEST_METHOD_MAP = new HashMap<>(2);
-    // key : http method
-    // value : formatted url -> original url
-    private static final Map<HttpMethod, Map<String, String>> REQUEST_URL_MAP = new HashMap<>(2);
-
+    // value : radix tree of url -> invocation plan
+    private static final Map<HttpMethod, RouteTree<InvocationPlan>> REQUEST_METHOD_MAP = new HashMap<>(2);
+    // the metrics of every route, in the order the routes are loaded
+    private static final List<RouteMetrics> ROUTE_METRICS = new ArrayList<>();
+    // whether any route reads its body as a stream, the server only installs the streaming handler if so
+    private static boolean streamingRoutes;
+    // whether any route returns a stream of elements, the server only installs the ChunkedWriteHandler if so
+    private static boolean streamingResponses;
 
     static {
         for (HttpMethod httpMethod : HTTP_METHODS) {
-            REQUEST_METHOD_MAP.put(httpMethod, new HashMap<>(128));
-            REQUEST_URL_MAP.put(httpMethod, new HashMap<>(128));
+            REQUEST_METHOD_MAP.put(httpMethod, new RouteTree<>());
         }
     }
 
+    /**
+     * must be called after the bean post processors are applied, the invocation plans hold the final bean instances
+     */
     public static void loadRoutes() {
         Set<Class<?>> classes = ClassFactory.CLASSES.get(RestController.class);
         for (Class<?> aClass : classes) {
             RestController restController = aClass.getAnnotation(RestController.class);
             if (null != restController) {
-                Method[] methods = aClass.getDeclaredMethods();
+                Method[] methods = getRouteMethods(aClass);
                 String baseUrl = restController.value();
                 for (Method method : methods) {
                     if (method.isAnnotationPresent(GetMapping.class)) {
@@ -61,9 +88,35 @@ public class RouteMethodMapper {
         }
     }
 
+    /**
+     * @return the methods of the controller which may be routes, only the annotated ones if it is in the build-time index
+     */
+    private static Method[] getRouteMethods(Class<?> aClass) {
+        BuildTimeIndex buildTimeIndex = BuildTimeIndex.get();
+        Method[] methods = buildTimeIndex == null ? null : buildTimeIndex.getRouteMethods(aClass);
+        return methods != null ? methods : aClass.getDeclaredMethods();
+    }
+
+    public static boolean hasStreamingRoutes() {
+        return streamingRoutes;
+    }
+
+    public static boolean hasStreamingResponses() {
+        return streamingResponses;
+    }
+
+    public static List<RouteMetrics> getRouteMetrics() {
+        return Collections.unmodifiableList(ROUTE_METRICS);
+    }
+
     public static MethodDetail getMethodDetail(String requestPath, HttpMethod httpMethod) {
         MethodDetail methodDetail = new MethodDetail();
-        methodDetail.build(requestPath, REQUEST_METHOD_MAP.get(httpMethod), REQUEST_URL_MAP.get(httpMethod));
+        RouteTree<InvocationPlan> routeTree = REQUEST_METHOD_MAP.get(httpMethod);
+        if (routeTree != null) {
+            Map<String, String> urlParameterMappings = new HashMap<>();
+            methodDetail.setInvocationPlan(routeTree.lookup(requestPath, urlParameterMappings));
+            methodDetail.setUrlParameterMappings(urlParameterMappings);
+        }
         return methodDetail;
     }
 
@@ -71,27 +124,47 @@ public class RouteMethodMapper {
      * correspond url to method
      */
     private static void mapUrlToMethod(String url, Method method, HttpMethod httpMethod) {
-        String formattedUrl = formatUrl(url);
-        Map<String, Method> urlToMethodMap = REQUEST_METHOD_MAP.get(httpMethod);
-        Map<String, String> formattedUrlToUrlMap = REQUEST_URL_MAP.get(httpMethod);
-        if (urlToMethodMap.containsKey(formattedUrl)) {
-            throw new IllegalArgumentException(String.format("duplicate url: %s", url));
+        RouteMetrics metrics = new RouteMetrics(httpMethod, url);
+        REQUEST_METHOD_MAP.get(httpMethod).insert(url, buildInvocationPlan(method, metrics));
+        ROUTE_METRICS.add(metrics);
+    }
+
+    private static InvocationPlan buildInvocationPlan(Method method, RouteMetrics metrics) {
+        Parameter[] parameters = method.getParameters();
+        ParameterResolver[] parameterResolvers = new ParameterResolver[parameters.length];
+        boolean streamingBody = false;
+        for (int i = 0; i < parameters.length; i++) {
+            parameterResolvers[i] = ParameterResolverFactory.get(parameters[i]);
+            streamingBody |= parameterResolvers[i] instanceof RequestBodyStreamParameterResolver;
         }
-        urlToMethodMap.put(formattedUrl, method);
-        formattedUrlToUrlMap.put(formattedUrl, url);
-        REQUEST_METHOD_MAP.put(httpMethod, urlToMethodMap);
-        REQUEST_URL_MAP.put(httpMethod, formattedUrlToUrlMap);
+        ExecutorService executor = RequestExecutorFactory.get(method);
+        if (streamingBody) {
+            streamingRoutes = true;
+            if (executor == null) {
+                // reading the body blocks until the I/O thread receives it, so it must not run on the I/O thread
+                log.warn("Route method [{}] reads a streaming body, execute it on the default worker pool", method);
+                executor = RequestExecutorFactory.get(RequestExecutorFactory.DEFAULT_EXECUTOR);
+            }
+        }
+        String beanName = BeanHelper.getBeanName(method.getDeclaringClass());
+        Object targetObject = BeanFactory.BEANS.get(beanName);
+        ReturnType returnType = ReturnType.of(method);
+        streamingResponses |= returnType == ReturnType.STREAM;
+        long timeoutMillis = returnType == ReturnType.FUTURE ? getAsyncTimeoutMillis(method) : 0;
+        return new InvocationPlan(method, MethodInvokerFactory.get(method), targetObject, parameterResolvers,
+                returnType, executor, streamingBody, timeoutMillis, Compression.of(method), metrics);
     }
 
-    /**
-     * format the url
-     * for example : "/user/{name}" -> "^/user/[\u4e00-\u9fa5_a-zA-Z0-9]+/?$"
-     */
-    private static String formatUrl(String url) {
-        // replace {xxx} placeholders with regular expressions matching Chinese, English letters and numbers, and underscores
-        String originPattern = url.replaceAll("(\\{\\w+})", "[\\\\u4e00-\\\\u9fa5_a-zA-Z0-9]+");
-        String pattern = "^" + originPattern + "/?$";
-        return pattern.replaceAll("/+", "/");
+    private static long getAsyncTimeoutMillis(Method method) {
+        // the annotation on the method takes precedence over the one on the controller
+        for (AnnotatedElement element : new AnnotatedElement[]{method, method.getDeclaringClass()}) {
+            AsyncTimeout asyncTimeout = element.getAnnotation(AsyncTimeout.class);
+            if (asyncTimeout != null) {
+                return asyncTimeout.value();
+            }
+        }
+        ConfigurationManager configurationManager = BeanFactory.getBean(ConfigurationManager.class);
+        return configurationManager.getInt(ASYNC_TIMEOUT, DEFAULT_ASYNC_TIMEOUT_MILLIS);
     }
 
 }
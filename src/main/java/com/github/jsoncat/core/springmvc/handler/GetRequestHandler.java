@@ -1,24 +1,16 @@
 package com.github.jsoncat.core.springmvc.handler;
 
-import com.github.jsoncat.core.ioc.BeanFactory;
-import com.github.jsoncat.core.ioc.BeanHelper;
+import com.github.jsoncat.core.springmvc.entity.InvocationPlan;
 import com.github.jsoncat.core.springmvc.entity.MethodDetail;
 import com.github.jsoncat.core.springmvc.factory.FullHttpResponseFactory;
-import com.github.jsoncat.core.springmvc.factory.ParameterResolverFactory;
-import com.github.jsoncat.core.springmvc.factory.RouteMethodMapper;
-import com.github.jsoncat.core.springmvc.resolver.ParameterResolver;
-import com.github.jsoncat.core.springmvc.util.UrlUtil;
+import com.github.jsoncat.core.springmvc.metrics.RouteMetrics;
 import io.netty.handler.codec.http.FullHttpRequest;
-import io.netty.handler.codec.http.FullHttpResponse;
-import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.QueryStringDecoder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.CharEncoding;
 import org.apache.commons.codec.Charsets;
 
-import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,33 +24,14 @@ import java.util.Map;
 @Slf4j
 public class GetRequestHandler implements RequestHandler {
     @Override
-    public FullHttpResponse handle(FullHttpRequest fullHttpRequest) {
-        String requestUri = fullHttpRequest.uri();
-        Map<String, String> queryParameterMappings = getQueryParams(requestUri);
-        // get http request path，such as "/user"
-        String requestPath = UrlUtil.getRequestPath(requestUri);
-        // get target method
-        MethodDetail methodDetail = RouteMethodMapper.getMethodDetail(requestPath, HttpMethod.GET);
-        methodDetail.setQueryParameterMappings(queryParameterMappings);
-        Method targetMethod = methodDetail.getMethod();
-        if (targetMethod == null) {
-            return null;
-        }
-        log.info("requestPath -> target method [{}]", targetMethod.getName());
-        Parameter[] targetMethodParameters = targetMethod.getParameters();
-        // target method parameters.
-        // notice! you should convert it to array when pass into the executeMethod method
-        List<Object> targetMethodParams = new ArrayList<>();
-        for (Parameter parameter : targetMethodParameters) {
-            ParameterResolver parameterResolver = ParameterResolverFactory.get(parameter);
-            if (parameterResolver != null) {
-                Object param = parameterResolver.resolve(methodDetail, parameter);
-                targetMethodParams.add(param);
-            }
-        }
-        String beanName = BeanHelper.getBeanName(methodDetail.getMethod().getDeclaringClass());
-        Object targetObject = BeanFactory.BEANS.get(beanName);
-        return FullHttpResponseFactory.getSuccessResponse(targetMethod, targetMethodParams, targetObject);
+    public HttpResponse handle(FullHttpRequest fullHttpRequest, MethodDetail methodDetail) {
+        InvocationPlan invocationPlan = methodDetail.getInvocationPlan();
+        long resolveStart = System.nanoTime();
+        methodDetail.setQueryParameterMappings(getQueryParams(fullHttpRequest.uri()));
+        log.debug("requestPath -> target method [{}]", invocationPlan.getMethod().getName());
+        Object[] targetMethodParams = invocationPlan.resolveArguments(methodDetail);
+        invocationPlan.getMetrics().record(RouteMetrics.Phase.RESOLVE, resolveStart);
+        return FullHttpResponseFactory.getSuccessResponse(methodDetail.getAllocator(), invocationPlan, targetMethodParams);
     }
 
     /**
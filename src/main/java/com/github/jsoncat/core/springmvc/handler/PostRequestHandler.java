@@ -1,25 +1,13 @@
 package com.github.jsoncat.core.springmvc.handler;
 
-import com.github.jsoncat.core.ioc.BeanFactory;
-import com.github.jsoncat.core.ioc.BeanHelper;
+import com.github.jsoncat.core.springmvc.entity.InvocationPlan;
 import com.github.jsoncat.core.springmvc.entity.MethodDetail;
 import com.github.jsoncat.core.springmvc.factory.FullHttpResponseFactory;
-import com.github.jsoncat.core.springmvc.factory.ParameterResolverFactory;
-import com.github.jsoncat.core.springmvc.factory.RouteMethodMapper;
-import com.github.jsoncat.core.springmvc.resolver.ParameterResolver;
-import com.github.jsoncat.core.springmvc.util.UrlUtil;
+import com.github.jsoncat.core.springmvc.metrics.RouteMetrics;
 import io.netty.handler.codec.http.FullHttpRequest;
-import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaders;
-import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.CharEncoding;
-import org.apache.commons.codec.Charsets;
-
-import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * @author shuang.kou
@@ -29,37 +17,23 @@ import java.util.List;
 public class PostRequestHandler implements RequestHandler {
 
     @Override
-    public FullHttpResponse handle(FullHttpRequest fullHttpRequest) {
-        String requestUri = fullHttpRequest.uri();
-        // get http request path，such as "/user"
-        String requestPath = UrlUtil.getRequestPath(requestUri);
-        // get target method
-        MethodDetail methodDetail = RouteMethodMapper.getMethodDetail(requestPath, HttpMethod.POST);
-        Method targetMethod = methodDetail.getMethod();
-        if (targetMethod == null) {
-            return null;
+    public HttpResponse handle(FullHttpRequest fullHttpRequest, MethodDetail methodDetail) {
+        InvocationPlan invocationPlan = methodDetail.getInvocationPlan();
+        long resolveStart = System.nanoTime();
+        if (invocationPlan.isStreamingBody()) {
+            // a streaming body can be of any type, it is read by the route method itself
+            Object[] targetMethodParams = invocationPlan.resolveArguments(methodDetail);
+            invocationPlan.getMetrics().record(RouteMetrics.Phase.RESOLVE, resolveStart);
+            return FullHttpResponseFactory.getSuccessResponse(methodDetail.getAllocator(), invocationPlan, targetMethodParams);
         }
         String contentType = this.getContentType(fullHttpRequest.headers());
-        // target method parameters.
-        // notice! you should convert it to array when pass into the executeMethod()
-        List<Object> targetMethodParams = new ArrayList<>();
-        if (contentType.equals("application/json")) {
-            String json = fullHttpRequest.content().toString(Charsets.toCharset(CharEncoding.UTF_8));
-            methodDetail.setJson(json);
-            Parameter[] targetMethodParameters = targetMethod.getParameters();
-            for (Parameter parameter : targetMethodParameters) {
-                ParameterResolver parameterResolver = ParameterResolverFactory.get(parameter);
-                if (parameterResolver != null) {
-                    Object param = parameterResolver.resolve(methodDetail, parameter);
-                    targetMethodParams.add(param);
-                }
-            }
-        } else {
+        if (!contentType.equals("application/json")) {
             throw new IllegalArgumentException("only receive application/json type data");
         }
-        String beanName = BeanHelper.getBeanName(methodDetail.getMethod().getDeclaringClass());
-        Object targetObject = BeanFactory.BEANS.get(beanName);
-        return FullHttpResponseFactory.getSuccessResponse(targetMethod, targetMethodParams, targetObject);
+        methodDetail.setBody(fullHttpRequest.content());
+        Object[] targetMethodParams = invocationPlan.resolveArguments(methodDetail);
+        invocationPlan.getMetrics().record(RouteMetrics.Phase.RESOLVE, resolveStart);
+        return FullHttpResponseFactory.getSuccessResponse(methodDetail.getAllocator(), invocationPlan, targetMethodParams);
     }
 
     private String getContentType(HttpHeaders headers) {
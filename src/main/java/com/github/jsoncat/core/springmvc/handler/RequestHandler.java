@@ -1,8 +1,14 @@
 package com.github.jsoncat.core.springmvc.handler;
 
+import com.github.jsoncat.core.springmvc.entity.MethodDetail;
 import io.netty.handler.codec.http.FullHttpRequest;
-import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpResponse;
 
 public interface RequestHandler {
-    FullHttpResponse handle(FullHttpRequest fullHttpRequest);
+    /**
+     * @param fullHttpRequest the http request
+     * @param methodDetail    the route matched by the request path, its invocation plan is never null
+     * @return a FullHttpResponse, or a StreamingHttpResponse whose body is written in chunks
+     */
+    HttpResponse handle(FullHttpRequest fullHttpRequest, MethodDetail methodDetail);
 }
@@ -0,0 +1,124 @@
+package com.github.jsoncat.core.springmvc.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 延迟直方图，记录时无锁、不分配内存
+ * <p>
+ * Like an HdrHistogram the buckets are log-linear: every power of two of nanoseconds is split into
+ * {@value #SUB_BUCKETS} linear sub-buckets, so a value is counted with a relative error below 1/{@value #SUB_BUCKETS}
+ * from 1 ns up to about 68 s (longer values are counted in the last bucket). Recording is a couple of shifts and
+ * an atomic increment, a snapshot is only taken when the metrics are scraped.
+ * </p>
+ **/
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 2^36 ns is about 68 s
+    private static final int MAX_EXPONENT = 36;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sumNanos = new LongAdder();
+
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(bucketOf(value));
+        sumNanos.add(value);
+    }
+
+    /**
+     * record the time elapsed since startNanos (a System.nanoTime() value)
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * the counts are read one by one, a snapshot taken while requests are recorded can be off by those requests
+     */
+    public Snapshot snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return new Snapshot(snapshot, sumNanos.sum());
+    }
+
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return the largest value counted in the bucket
+     */
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long lowerBound = (1L << exponent) + ((long) (bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS));
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long sumNanos;
+        private final long count;
+
+        private Snapshot(long[] counts, long sumNanos) {
+            this.counts = counts;
+            this.sumNanos = sumNanos;
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            this.count = total;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getSumSeconds() {
+            return sumNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        }
+
+        /**
+         * @return the number of values less than or equal to the bound, as in a prometheus "le" bucket
+         */
+        public long countAtOrBelow(long boundNanos) {
+            long total = 0;
+            for (int i = 0; i < counts.length && upperBoundOf(i) <= boundNanos; i++) {
+                total += counts[i];
+            }
+            return total;
+        }
+
+        /**
+         * @param quantile between 0 and 1
+         * @return the upper bound of the bucket the quantile falls into, 0 if nothing is recorded
+         */
+        public long valueAtQuantile(double quantile) {
+            long rank = (long) Math.ceil(quantile * count);
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                total += counts[i];
+                if (total >= rank && total > 0) {
+                    return upperBoundOf(i);
+                }
+            }
+            return 0;
+        }
+    }
+}
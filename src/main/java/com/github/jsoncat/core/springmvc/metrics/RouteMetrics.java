@@ -0,0 +1,93 @@
+package com.github.jsoncat.core.springmvc.metrics;
+
+import io.netty.handler.codec.http.HttpMethod;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个路由的指标，随 InvocationPlan 一起创建，请求路径上直接记录不需要查找
+ * <p>
+ * TOTAL is measured from the request being dispatched to its response being written, the other phases are
+ * the parts of it spent in the framework and in the route method. A FUTURE route is EXECUTE until it returns
+ * its future (the wait for the future is only in TOTAL), a STREAM route is serialized while it is written, so
+ * it has no SERIALIZE phase.
+ * </p>
+ **/
+public final class RouteMetrics {
+    private final HttpMethod httpMethod;
+    // the url pattern of the route, such as "/user/{id}"
+    private final String route;
+    private final LongAdder requests = new LongAdder();
+    // responses with a 5xx status
+    private final LongAdder errors = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<Phase, LatencyHistogram> latencies = new EnumMap<>(Phase.class);
+
+    public RouteMetrics(HttpMethod httpMethod, String route) {
+        this.httpMethod = httpMethod;
+        this.route = route;
+        for (Phase phase : Phase.values()) {
+            latencies.put(phase, new LatencyHistogram());
+        }
+    }
+
+    public HttpMethod getHttpMethod() {
+        return httpMethod;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public LatencyHistogram getLatency(Phase phase) {
+        return latencies.get(phase);
+    }
+
+    /**
+     * the request was dispatched to the route
+     */
+    public void begin() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * the route has produced the response (for a FUTURE route: the future has completed)
+     */
+    public void end() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * the response was written
+     */
+    public void complete(int status, long startNanos) {
+        requests.increment();
+        if (status >= 500) {
+            errors.increment();
+        }
+        latencies.get(Phase.TOTAL).recordSince(startNanos);
+    }
+
+    public void record(Phase phase, long startNanos) {
+        latencies.get(phase).recordSince(startNanos);
+    }
+
+    public enum Phase {
+        TOTAL, ROUTING, RESOLVE, EXECUTE, SERIALIZE
+    }
+}
@@ -2,15 +2,16 @@ package com.github.jsoncat.core.springmvc.resolver;
 
 import com.github.jsoncat.core.springmvc.entity.MethodDetail;
 
-import java.lang.reflect.Parameter;
-
+/**
+ * A resolver is created once per method parameter when the routes are loaded,
+ * so the annotation values are already extracted when a request comes in.
+ */
 public interface ParameterResolver {
     /**
      * Process method parameters
      *
      * @param methodDetail Target method related information
-     * @param parameter    The parameter of the target method
      * @return Specific values ​​corresponding to the parameters of the target method
      */
-    Object resolve(MethodDetail methodDetail, Parameter parameter);
+    Object resolve(MethodDetail methodDetail);
 }
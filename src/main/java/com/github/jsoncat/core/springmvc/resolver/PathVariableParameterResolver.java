@@ -5,7 +5,6 @@ import com.github.jsoncat.common.util.ObjectUtil;
 import com.github.jsoncat.core.springmvc.entity.MethodDetail;
 
 import java.lang.reflect.Parameter;
-import java.util.Map;
 
 /**
  * process @PathVariable annotation
@@ -14,12 +13,17 @@ import java.util.Map;
  * @createTime 2020年09月27日 20:58:00
  **/
 public class PathVariableParameterResolver implements ParameterResolver {
+    private final String requestParameter;
+    private final Class<?> parameterType;
+
+    public PathVariableParameterResolver(Parameter parameter) {
+        this.requestParameter = parameter.getDeclaredAnnotation(PathVariable.class).value();
+        this.parameterType = parameter.getType();
+    }
+
     @Override
-    public Object resolve(MethodDetail methodDetail, Parameter parameter) {
-        PathVariable pathVariable = parameter.getDeclaredAnnotation(PathVariable.class);
-        String requestParameter = pathVariable.value();
-        Map<String, String> urlParameterMappings = methodDetail.getUrlParameterMappings();
-        String requestParameterValue = urlParameterMappings.get(requestParameter);
-        return ObjectUtil.convert(parameter.getType(), requestParameterValue);
+    public Object resolve(MethodDetail methodDetail) {
+        String requestParameterValue = methodDetail.getUrlParameterMappings().get(requestParameter);
+        return ObjectUtil.convert(parameterType, requestParameterValue);
     }
 }
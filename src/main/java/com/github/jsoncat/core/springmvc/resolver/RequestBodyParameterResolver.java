@@ -1,31 +1,47 @@
 package com.github.jsoncat.core.springmvc.resolver;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.github.jsoncat.annotation.springmvc.RequestBody;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.github.jsoncat.core.springmvc.entity.MethodDetail;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Parameter;
 
 /**
  * process @RequestBody annotation
+ * <p>
+ * The json is parsed straight from the bytes of the request body, the reader of the parameter type is created once.
+ * </p>
  *
  * @author shuang.kou
  * @createTime 2020年09月28日 14:01:00
  **/
 public class RequestBodyParameterResolver implements ParameterResolver {
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private final ObjectReader objectReader;
+
+    public RequestBodyParameterResolver(Parameter parameter) {
+        this.objectReader = OBJECT_MAPPER.readerFor(OBJECT_MAPPER.constructType(parameter.getParameterizedType()));
+    }
 
     @Override
-    public Object resolve(MethodDetail methodDetail, Parameter parameter) {
+    public Object resolve(MethodDetail methodDetail) {
+        ByteBuf body = methodDetail.getBody();
         Object param = null;
-        RequestBody requestBody = parameter.getDeclaredAnnotation(RequestBody.class);
-        if (requestBody != null) {
-            try {
-                param = OBJECT_MAPPER.readValue(methodDetail.getJson(), parameter.getType());
-            } catch (JsonProcessingException e) {
-                e.printStackTrace();
+        try {
+            if (body.hasArray()) {
+                param = objectReader.readValue(body.array(), body.arrayOffset() + body.readerIndex(), body.readableBytes());
+            } else {
+                // direct or composite buffer, read a duplicate so the reader index of the request stays untouched
+                try (InputStream inputStream = new ByteBufInputStream(body.duplicate())) {
+                    param = objectReader.readValue(inputStream);
+                }
             }
+        } catch (IOException e) {
+            e.printStackTrace();
         }
         return param;
     }
@@ -0,0 +1,14 @@
+package com.github.jsoncat.core.springmvc.resolver;
+
+import com.github.jsoncat.core.springmvc.entity.MethodDetail;
+
+/**
+ * process @RequestBody InputStream, the body is read while it is still being received
+ **/
+public class RequestBodyStreamParameterResolver implements ParameterResolver {
+
+    @Override
+    public Object resolve(MethodDetail methodDetail) {
+        return methodDetail.getBodyStream();
+    }
+}
@@ -13,20 +13,31 @@ import java.lang.reflect.Parameter;
  * @createTime 2020年09月27日 20:58:00
  **/
 public class RequestParamParameterResolver implements ParameterResolver {
-    @Override
-    public Object resolve(MethodDetail methodDetail, Parameter parameter) {
+    private final String requestParameter;
+    private final boolean require;
+    private final String defaultValue;
+    private final Class<?> parameterType;
+
+    public RequestParamParameterResolver(Parameter parameter) {
         RequestParam requestParam = parameter.getDeclaredAnnotation(RequestParam.class);
-        String requestParameter = requestParam.value();
+        this.requestParameter = requestParam.value();
+        this.require = requestParam.require();
+        this.defaultValue = requestParam.defaultValue();
+        this.parameterType = parameter.getType();
+    }
+
+    @Override
+    public Object resolve(MethodDetail methodDetail) {
         String requestParameterValue = methodDetail.getQueryParameterMappings().get(requestParameter);
         if (requestParameterValue == null) {
-            if (requestParam.require() && requestParam.defaultValue().isEmpty()) {
+            if (require && defaultValue.isEmpty()) {
                 throw new IllegalArgumentException("The specified parameter " + requestParameter + " can not be null!");
             } else {
-                requestParameterValue = requestParam.defaultValue();
+                requestParameterValue = defaultValue;
             }
         }
         // convert the parameter to the specified type
-        return ObjectUtil.convert(parameter.getType(), requestParameterValue);
+        return ObjectUtil.convert(parameterType, requestParameterValue);
 
     }
 }
@@ -0,0 +1,223 @@
+package com.github.jsoncat.core.springmvc.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基数树（radix tree）路由表
+ * <p>
+ * Static parts of the url share compressed prefixes, and every "{var}" segment is stored as a
+ * wildcard child of the node in front of it. A lookup walks the request path once, so the cost
+ * depends on the path length instead of the number of registered routes.
+ * </p>
+ * eg: "/user", "/user/{id}" and "/users" are stored as
+ * <pre>
+ * "/user"
+ *   ├── "s"
+ *   └── "/"
+ *        └── {var}
+ * </pre>
+ *
+ * @param <T> the value bound to each route
+ **/
+public class RouteTree<T> {
+    private static final char SLASH = '/';
+    private static final char VARIABLE_START = '{';
+    private static final char VARIABLE_END = '}';
+
+    private final Node<T> root = new Node<>("");
+    // the largest number of path variables of a single route, used to size the lookup buffer
+    private int maxVariables;
+
+    /**
+     * register a route
+     *
+     * @param url   the url of the route, such as "/user/{id}"
+     * @param value the value bound to the route
+     * @throws IllegalArgumentException if the same route has already been registered
+     */
+    public void insert(String url, T value) {
+        Node<T> node = root;
+        List<String> variableNames = new ArrayList<>();
+        String path = normalize(url);
+        int i = 0;
+        while (i < path.length()) {
+            int variableStart = path.indexOf(VARIABLE_START, i);
+            if (variableStart == -1) {
+                node = node.insertStatic(path.substring(i));
+                break;
+            }
+            int variableEnd = path.indexOf(VARIABLE_END, variableStart);
+            if (variableEnd == -1 || path.charAt(variableStart - 1) != SLASH
+                    || (variableEnd + 1 < path.length() && path.charAt(variableEnd + 1) != SLASH)) {
+                throw new IllegalArgumentException(String.format("path variable must be a whole segment: %s", url));
+            }
+            node = node.insertStatic(path.substring(i, variableStart));
+            if (node.variableChild == null) {
+                node.variableChild = new Node<>("");
+            }
+            node = node.variableChild;
+            variableNames.add(path.substring(variableStart + 1, variableEnd));
+            i = variableEnd + 1;
+        }
+        if (node.value != null) {
+            throw new IllegalArgumentException(String.format("duplicate url: %s", url));
+        }
+        node.value = value;
+        node.variableNames = variableNames.toArray(new String[0]);
+        maxVariables = Math.max(maxVariables, node.variableNames.length);
+    }
+
+    /**
+     * find the route matching the request path, a trailing slash is optional
+     *
+     * @param requestPath   the decoded request path, such as "/user/1"
+     * @param pathVariables receives the path variables of the matched route, such as {"id" -> "1"}
+     * @return the value bound to the matched route, or null if no route matches
+     */
+    public T lookup(String requestPath, Map<String, String> pathVariables) {
+        String[] variableValues = maxVariables == 0 ? null : new String[maxVariables];
+        Node<T> matched = root.match(requestPath, 0, variableValues, 0);
+        if (matched == null) {
+            return null;
+        }
+        for (int i = 0; i < matched.variableNames.length; i++) {
+            pathVariables.put(matched.variableNames[i], variableValues[i]);
+        }
+        return matched.value;
+    }
+
+    /**
+     * collapse repeated slashes and drop the trailing slash, "" is treated as "/"
+     */
+    private static String normalize(String url) {
+        StringBuilder builder = new StringBuilder(url.length() + 1);
+        if (url.isEmpty() || url.charAt(0) != SLASH) {
+            builder.append(SLASH);
+        }
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c != SLASH || builder.length() == 0 || builder.charAt(builder.length() - 1) != SLASH) {
+                builder.append(c);
+            }
+        }
+        if (builder.length() > 1 && builder.charAt(builder.length() - 1) == SLASH) {
+            builder.setLength(builder.length() - 1);
+        }
+        return builder.toString();
+    }
+
+    private static final class Node<V> {
+        // the static prefix consumed by this node
+        private String prefix;
+        // first char of every static child, indexed the same as staticChildren
+        private char[] indices = new char[0];
+        private Node<V>[] staticChildren = newArray(0);
+        // the child matching a whole "{var}" segment
+        private Node<V> variableChild;
+        private V value;
+        private String[] variableNames;
+
+        private Node(String prefix) {
+            this.prefix = prefix;
+        }
+
+        /**
+         * insert the static path below this node, splitting shared prefixes if necessary
+         *
+         * @return the node at the end of the path
+         */
+        private Node<V> insertStatic(String path) {
+            Node<V> node = this;
+            while (!path.isEmpty()) {
+                int index = node.indexOf(path.charAt(0));
+                if (index == -1) {
+                    Node<V> child = new Node<>(path);
+                    node.addChild(child);
+                    return child;
+                }
+                Node<V> child = node.staticChildren[index];
+                int common = commonPrefixLength(child.prefix, path);
+                if (common < child.prefix.length()) {
+                    Node<V> parent = new Node<>(child.prefix.substring(0, common));
+                    child.prefix = child.prefix.substring(common);
+                    parent.addChild(child);
+                    node.staticChildren[index] = parent;
+                    child = parent;
+                }
+                path = path.substring(common);
+                node = child;
+            }
+            return node;
+        }
+
+        /**
+         * match the request path starting at the given offset, static children take precedence over path variables
+         */
+        private Node<V> match(String path, int offset, String[] variableValues, int variableIndex) {
+            int length = path.length();
+            if (offset == length) {
+                return value == null ? null : this;
+            }
+            int index = indexOf(path.charAt(offset));
+            if (index != -1) {
+                Node<V> child = staticChildren[index];
+                if (path.startsWith(child.prefix, offset)) {
+                    Node<V> matched = child.match(path, offset + child.prefix.length(), variableValues, variableIndex);
+                    if (matched != null) {
+                        return matched;
+                    }
+                }
+            }
+            if (variableChild != null && path.charAt(offset) != SLASH) {
+                int end = path.indexOf(SLASH, offset);
+                if (end == -1) {
+                    end = length;
+                }
+                variableValues[variableIndex] = path.substring(offset, end);
+                Node<V> matched = variableChild.match(path, end, variableValues, variableIndex + 1);
+                if (matched != null) {
+                    return matched;
+                }
+            }
+            // optional trailing slash
+            if (value != null && offset == length - 1 && path.charAt(offset) == SLASH) {
+                return this;
+            }
+            return null;
+        }
+
+        private int indexOf(char c) {
+            for (int i = 0; i < indices.length; i++) {
+                if (indices[i] == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void addChild(Node<V> child) {
+            int size = indices.length;
+            indices = Arrays.copyOf(indices, size + 1);
+            staticChildren = Arrays.copyOf(staticChildren, size + 1);
+            indices[size] = child.prefix.charAt(0);
+            staticChildren[size] = child;
+        }
+
+        private static int commonPrefixLength(String a, String b) {
+            int max = Math.min(a.length(), b.length());
+            int i = 0;
+            while (i < max && a.charAt(i) == b.charAt(i)) {
+                i++;
+            }
+            return i;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <V> Node<V>[] newArray(int size) {
+            return (Node<V>[]) new Node<?>[size];
+        }
+    }
+}
@@ -3,8 +3,11 @@ package com.github.jsoncat.serialize.impl;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.jsoncat.serialize.Serializer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
 
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * @author shuang.kou
@@ -26,6 +29,21 @@ public class JacksonSerializer implements Serializer {
         return bytes;
     }
 
+    /**
+     * write the json of the object into the buffer, without materializing an intermediate byte[]
+     * (jackson encodes into its recycled buffer and flushes it into the ByteBuf)
+     */
+    public void serialize(Object object, ByteBuf byteBuf) {
+        int writerIndex = byteBuf.writerIndex();
+        try {
+            objectMapper.writeValue((OutputStream) new ByteBufOutputStream(byteBuf), object);
+        } catch (IOException e) {
+            // drop the partially written json, same as the byte[] version which returns an empty array
+            byteBuf.writerIndex(writerIndex);
+            e.printStackTrace();
+        }
+    }
+
     @Override
     public <T> T deserialize(byte[] bytes, Class<T> clazz) {
         T object = null;
@@ -0,0 +1,246 @@
+package com.github.jsoncat.server;
+
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 访问日志：I/O 线程只把请求记录到环形缓冲区，由后台线程批量写入文件
+ * <p>
+ * The ring buffer is bounded and lock-free (a multi-producer single-consumer version of Vyukov's bounded queue),
+ * its slots are allocated once and reused, so recording a request does not allocate, block or touch the disk.
+ * When the writer falls behind and the buffer is full the entry is dropped and counted instead of slowing the
+ * server down. With a sample rate below 1 only that fraction of the requests is recorded, 5xx responses always are.
+ * </p>
+ * <pre>
+ * 2026-10-18T08:30:00.123Z 127.0.0.1 "GET /user/1 HTTP/1.1" 200 27 412us
+ * </pre>
+ * The file is rotated when it exceeds max-file-size: access.log becomes access.log.1, access.log.1 becomes
+ * access.log.2 and so on, the oldest beyond max-files is deleted.
+ **/
+@Slf4j
+public class AccessLog {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private final Path file;
+    private final double sampleRate;
+    private final long maxFileSize;
+    private final int maxFiles;
+
+    private final Entry[] entries;
+    // the sequence of every slot: == position when free for the producer of that position, == position + 1 once published
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // only accessed by the writer thread
+    private long head;
+    private final StringBuilder line = new StringBuilder(256);
+    private Writer writer;
+    private long fileSize;
+
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    /**
+     * @param bufferSize the number of entries the writer may lag behind, rounded up to a power of two
+     */
+    public AccessLog(Path file, double sampleRate, int bufferSize, long maxFileSize, int maxFiles) throws IOException {
+        this.file = file;
+        this.sampleRate = sampleRate;
+        this.maxFileSize = maxFileSize;
+        this.maxFiles = maxFiles;
+        int capacity = Integer.highestOneBit(Math.max(bufferSize, 2) - 1) << 1;
+        this.entries = new Entry[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = new Entry();
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        openWriter();
+        this.writerThread = new Thread(this::writeLoop, "jsoncat-access-log");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * record a response, called by the I/O threads, never blocks
+     */
+    public void record(SocketAddress remoteAddress, HttpMethod method, String uri, HttpVersion protocolVersion,
+                       int status, long contentLength, long durationNanos) {
+        if (status < 500 && sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) position & mask;
+            long sequence = sequences.get(index);
+            if (sequence < position) {
+                // the writer has not consumed the entry written capacity positions ago
+                ServerMetrics.DROPPED_ACCESS_LOGS.increment();
+                return;
+            }
+            if (sequence == position && tail.compareAndSet(position, position + 1)) {
+                break;
+            }
+        }
+        Entry entry = entries[index];
+        entry.timestamp = System.currentTimeMillis();
+        entry.remoteAddress = remoteAddress;
+        entry.method = method;
+        entry.uri = uri;
+        entry.protocolVersion = protocolVersion;
+        entry.status = status;
+        entry.contentLength = contentLength;
+        entry.durationNanos = durationNanos;
+        // publish the entry to the writer
+        sequences.lazySet(index, position + 1);
+    }
+
+    /**
+     * write what is left in the buffer and close the file
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                boolean stopping = !running;
+                if (drain() == 0) {
+                    if (stopping) {
+                        break;
+                    }
+                    // the buffer is empty: the batch goes to the disk, then wait for more
+                    writer.flush();
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to write the access log {}, access logging is disabled", file, e);
+        } finally {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.warn("Failed to close the access log {}", file, e);
+            }
+        }
+    }
+
+    /**
+     * @return the number of entries written
+     */
+    private int drain() throws IOException {
+        int count = 0;
+        while (true) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                return count;
+            }
+            Entry entry = entries[index];
+            format(entry);
+            // release the references, then give the slot back to the producer of the next round
+            entry.remoteAddress = null;
+            entry.uri = null;
+            sequences.lazySet(index, head + entries.length);
+            head++;
+            count++;
+            if (fileSize + line.length() > maxFileSize && fileSize > 0) {
+                rotate();
+            }
+            writer.append(line);
+            fileSize += line.length();
+        }
+    }
+
+    private void format(Entry entry) {
+        line.setLength(0);
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(entry.timestamp), line);
+        line.append(' ');
+        if (entry.remoteAddress instanceof InetSocketAddress && ((InetSocketAddress) entry.remoteAddress).getAddress() != null) {
+            line.append(((InetSocketAddress) entry.remoteAddress).getAddress().getHostAddress());
+        } else {
+            line.append('-');
+        }
+        line.append(" \"").append(entry.method.name()).append(' ').append(entry.uri).append(' ')
+                .append(entry.protocolVersion.text()).append("\" ").append(entry.status).append(' ');
+        if (entry.contentLength < 0) {
+            // streamed, the length is not known when the headers are written
+            line.append('-');
+        } else {
+            line.append(entry.contentLength);
+        }
+        line.append(' ').append(TimeUnit.NANOSECONDS.toMicros(entry.durationNanos)).append("us\n");
+    }
+
+    private void rotate() throws IOException {
+        writer.close();
+        Files.deleteIfExists(rotated(maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            if (Files.exists(rotated(i))) {
+                Files.move(rotated(i), rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles > 0) {
+            Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(file);
+        }
+        openWriter();
+    }
+
+    private Path rotated(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void openWriter() throws IOException {
+        writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        fileSize = Files.size(file);
+    }
+
+    private static final class Entry {
+        private long timestamp;
+        private SocketAddress remoteAddress;
+        private HttpMethod method;
+        private String uri;
+        private HttpVersion protocolVersion;
+        private int status;
+        private long contentLength;
+        private long durationNanos;
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.jsoncat.server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 缓存压缩后的响应体，所有连接共享
+ * <p>
+ * Routes marked with "@Compress(cacheable = true)" keep returning the same payload, so the compressed bytes are
+ * kept in a LRU cache keyed by the encoding and the uncompressed body. Hashing and comparing the body is much
+ * cheaper than compressing it again.
+ * </p>
+ **/
+public class CompressedBodyCache {
+    private final int compressionLevel;
+    private final Map<Key, byte[]> cache;
+
+    public CompressedBodyCache(int compressionLevel, int maxEntries) {
+        this.compressionLevel = compressionLevel;
+        this.cache = new LinkedHashMap<Key, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, byte[]> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return the body compressed with the wrapper, the readable bytes of body are left untouched
+     */
+    public byte[] get(ZlibWrapper wrapper, ByteBuf body) {
+        synchronized (cache) {
+            byte[] compressed = cache.get(new Key(wrapper, body));
+            if (compressed != null) {
+                return compressed;
+            }
+        }
+        // compress outside of the lock, two event loops compressing the same body at worst do it twice
+        byte[] compressed = compress(wrapper, body);
+        Key key = new Key(wrapper, Unpooled.copiedBuffer(body));
+        synchronized (cache) {
+            cache.put(key, compressed);
+        }
+        return compressed;
+    }
+
+    private byte[] compress(ZlibWrapper wrapper, ByteBuf body) {
+        // the same encoder HttpContentCompressor uses
+        EmbeddedChannel encoder = new EmbeddedChannel(ZlibCodecFactory.newZlibEncoder(wrapper, compressionLevel));
+        encoder.writeOutbound(body.retainedDuplicate());
+        encoder.finish();
+        ByteBuf compressed = Unpooled.buffer(body.readableBytes() / 2);
+        try {
+            ByteBuf part;
+            while ((part = encoder.readOutbound()) != null) {
+                compressed.writeBytes(part);
+                part.release();
+            }
+            return ByteBufUtil.getBytes(compressed);
+        } finally {
+            compressed.release();
+        }
+    }
+
+    private static final class Key {
+        private final ZlibWrapper wrapper;
+        private final ByteBuf body;
+        private final int hash;
+
+        private Key(ZlibWrapper wrapper, ByteBuf body) {
+            this.wrapper = wrapper;
+            this.body = body;
+            this.hash = 31 * wrapper.ordinal() + ByteBufUtil.hashCode(body);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return wrapper == key.wrapper && ByteBufUtil.equals(body, key.body);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
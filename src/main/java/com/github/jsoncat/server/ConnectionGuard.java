@@ -0,0 +1,190 @@
+package com.github.jsoncat.server;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.ChannelGroupFuture;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.handler.codec.http2.Http2ConnectionHandler;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 限制连接数并关闭空闲的连接，放在 pipeline 的最前面
+ * <p>
+ * A connection over max-connections (or max-connections-per-ip for its address) is closed as soon as it is
+ * accepted, before anything is read from it. A connection that has not read (or written, or either) anything for
+ * the configured timeout is closed, so slow or idle clients don't hold a connection forever. 0 disables a limit.
+ * A connection waiting for the server is not idle: the timeouts are ignored while one of its requests is in flight
+ * (a slow route, a pending future, an upload whose reads are paused).
+ * </p>
+ * <p>
+ * The open connections are also tracked, so they can be drained when the server is stopped.
+ * </p>
+ **/
+@Slf4j
+@ChannelHandler.Sharable
+public class ConnectionGuard extends ChannelInboundHandlerAdapter {
+    private static final AttributeKey<Boolean> COUNTED = AttributeKey.valueOf("jsoncat.connection.counted");
+
+    private final int maxConnections;
+    private final int maxConnectionsPerIp;
+    private final int readTimeoutSeconds;
+    private final int writeTimeoutSeconds;
+    private final int idleTimeoutSeconds;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final ConcurrentHashMap<InetAddress, Integer> connectionsPerIp = new ConcurrentHashMap<>();
+    // a closed channel is removed from the group automatically
+    private final ChannelGroup channels = new DefaultChannelGroup("jsoncat-connections", GlobalEventExecutor.INSTANCE);
+
+    public ConnectionGuard(int maxConnections, int maxConnectionsPerIp, int readTimeoutSeconds, int writeTimeoutSeconds, int idleTimeoutSeconds) {
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerIp = maxConnectionsPerIp;
+        this.readTimeoutSeconds = readTimeoutSeconds;
+        this.writeTimeoutSeconds = writeTimeoutSeconds;
+        this.idleTimeoutSeconds = idleTimeoutSeconds;
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    /**
+     * ask every open connection to close once its in-flight requests are answered, idle connections are closed right away
+     *
+     * @param gracefulShutdownTimeoutMillis how long an HTTP/2 connection waits for its active streams after the GOAWAY
+     */
+    public void drain(long gracefulShutdownTimeoutMillis) {
+        for (Channel channel : channels) {
+            channel.eventLoop().execute(() -> drain(channel, gracefulShutdownTimeoutMillis));
+        }
+    }
+
+    /**
+     * @return a future completed once every connection open at the time of the call is closed
+     */
+    public ChannelGroupFuture closeFuture() {
+        return channels.newCloseFuture();
+    }
+
+    /**
+     * close the connections that did not drain in time
+     */
+    public ChannelGroupFuture closeAll() {
+        return channels.close();
+    }
+
+    private static void drain(Channel channel, long gracefulShutdownTimeoutMillis) {
+        ChannelPipeline pipeline = channel.pipeline();
+        Http2ConnectionHandler http2 = pipeline.get(Http2ConnectionHandler.class);
+        HttpServerHandler http1 = pipeline.get(HttpServerHandler.class);
+        if (http2 != null) {
+            // sends a GOAWAY, the connection is closed once the active streams are complete
+            http2.gracefulShutdownTimeoutMillis(gracefulShutdownTimeoutMillis);
+            channel.close();
+        } else if (http1 != null) {
+            http1.drain(pipeline.context(http1));
+        } else {
+            // no request has been read yet (TLS handshake, h2c detection)
+            channel.close();
+        }
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        if (readTimeoutSeconds > 0 || writeTimeoutSeconds > 0 || idleTimeoutSeconds > 0) {
+            // the IdleStateEvent is fired towards the tail, so the timer goes in front of this handler
+            ctx.pipeline().addBefore(ctx.name(), "idle",
+                    new IdleStateHandler(readTimeoutSeconds, writeTimeoutSeconds, idleTimeoutSeconds, TimeUnit.SECONDS));
+        }
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        if (!tryAcquire(ctx)) {
+            ServerMetrics.REJECTED_CONNECTIONS.increment();
+            ctx.close();
+            return;
+        }
+        ctx.channel().attr(COUNTED).set(Boolean.TRUE);
+        channels.add(ctx.channel());
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().attr(COUNTED).getAndSet(null) != null) {
+            connections.decrementAndGet();
+            InetAddress address = remoteAddress(ctx);
+            if (maxConnectionsPerIp > 0 && address != null) {
+                connectionsPerIp.computeIfPresent(address, (key, count) -> count == 1 ? null : count - 1);
+            }
+        }
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof IdleStateEvent) {
+            if (hasInFlightRequests(ctx.pipeline())) {
+                // the IdleStateHandler fires again after another timeout
+                return;
+            }
+            log.debug("Close the connection {} on {}", ctx.channel(), ((IdleStateEvent) evt).state());
+            ServerMetrics.TIMED_OUT_CONNECTIONS.increment();
+            ctx.close();
+            return;
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+
+    private static boolean hasInFlightRequests(ChannelPipeline pipeline) {
+        Http2ConnectionHandler http2 = pipeline.get(Http2ConnectionHandler.class);
+        if (http2 != null) {
+            return http2.connection().numActiveStreams() > 0;
+        }
+        HttpServerHandler http1 = pipeline.get(HttpServerHandler.class);
+        return http1 != null && http1.hasInFlightRequests();
+    }
+
+    private boolean tryAcquire(ChannelHandlerContext ctx) {
+        if (connections.incrementAndGet() > maxConnections && maxConnections > 0) {
+            connections.decrementAndGet();
+            return false;
+        }
+        InetAddress address = remoteAddress(ctx);
+        if (maxConnectionsPerIp > 0 && address != null) {
+            boolean[] acquired = new boolean[1];
+            connectionsPerIp.compute(address, (key, count) -> {
+                int current = count == null ? 0 : count;
+                if (current >= maxConnectionsPerIp) {
+                    return count;
+                }
+                acquired[0] = true;
+                return current + 1;
+            });
+            if (!acquired[0]) {
+                connections.decrementAndGet();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static InetAddress remoteAddress(ChannelHandlerContext ctx) {
+        return ctx.channel().remoteAddress() instanceof InetSocketAddress
+                ? ((InetSocketAddress) ctx.channel().remoteAddress()).getAddress() : null;
+    }
+}
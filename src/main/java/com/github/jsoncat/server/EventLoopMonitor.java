@@ -0,0 +1,185 @@
+package com.github.jsoncat.server;
+
+import com.github.jsoncat.core.springmvc.metrics.LatencyHistogram;
+import com.github.jsoncat.core.springmvc.metrics.RouteMetrics;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 监控 I/O 线程：调度延迟、待执行任务数，以及阻塞事件循环的调用
+ * <p>
+ * A watchdog thread submits a probe task to every event loop each interval, the time until the probe runs is the
+ * scheduling lag of the loop. If a probe has not run after the blocked threshold the loop is stuck in a task (a
+ * blocking call in a @NonBlocking route, in a service it calls, or in a handler): the stack of the loop thread is
+ * logged together with the route it is executing, once per blocking episode.
+ * </p>
+ **/
+@Slf4j
+public class EventLoopMonitor {
+    // the state of the loop the current thread runs, null on other threads
+    private static final FastThreadLocal<LoopState> CURRENT = new FastThreadLocal<>();
+
+    private final long intervalNanos;
+    private final long blockedThresholdNanos;
+    private final List<LoopState> loops = new ArrayList<>();
+    private final Thread watchdog;
+    private volatile boolean running = true;
+
+    public EventLoopMonitor(EventLoopGroup group, long intervalMillis, long blockedThresholdMillis) {
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.blockedThresholdNanos = TimeUnit.MILLISECONDS.toNanos(blockedThresholdMillis);
+        for (EventExecutor executor : group) {
+            LoopState loop = new LoopState(executor);
+            // starts the loop thread, its name labels the metrics of the loop
+            executor.submit(loop::bind).syncUninterruptibly();
+            loops.add(loop);
+        }
+        this.watchdog = new Thread(this::watch, "jsoncat-event-loop-watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+    }
+
+    /**
+     * mark the route executed by the current event loop, so a blocking call can be attributed to it
+     */
+    public static void enterRoute(RouteMetrics route) {
+        LoopState loop = CURRENT.getIfExists();
+        if (loop != null) {
+            loop.route = route;
+        }
+    }
+
+    public static void exitRoute() {
+        LoopState loop = CURRENT.getIfExists();
+        if (loop != null) {
+            loop.route = null;
+        }
+    }
+
+    public List<LoopState> getLoops() {
+        return Collections.unmodifiableList(loops);
+    }
+
+    public void close() {
+        running = false;
+        LockSupport.unpark(watchdog);
+    }
+
+    private void watch() {
+        while (running) {
+            long now = System.nanoTime();
+            for (LoopState loop : loops) {
+                long submitted = loop.probeSubmittedAt;
+                if (submitted == 0) {
+                    loop.submitProbe(now);
+                } else if (now - submitted > blockedThresholdNanos && !loop.reported) {
+                    loop.reportBlocked(now - submitted);
+                }
+            }
+            LockSupport.parkNanos(this, intervalNanos);
+        }
+    }
+
+    /**
+     * the health of one event loop
+     */
+    public static final class LoopState {
+        private final EventExecutor executor;
+        private final LatencyHistogram lag = new LatencyHistogram();
+        private final LongAdder blocked = new LongAdder();
+        private final Runnable probe = this::runProbe;
+        // 0 when no probe is outstanding
+        private volatile long probeSubmittedAt;
+        private volatile Thread thread;
+        // the route executed by the loop, if any
+        private volatile RouteMetrics route;
+        // written by the watchdog, read by the probe once the loop is unblocked
+        private volatile boolean reported;
+
+        private LoopState(EventExecutor executor) {
+            this.executor = executor;
+        }
+
+        public String getName() {
+            return thread.getName();
+        }
+
+        public LatencyHistogram getLag() {
+            return lag;
+        }
+
+        /**
+         * the number of times the loop was blocked for longer than the threshold
+         */
+        public long getBlocked() {
+            return blocked.sum();
+        }
+
+        /**
+         * @return the tasks waiting to be run by the loop, -1 if the loop does not tell
+         */
+        public int getPendingTasks() {
+            return executor instanceof SingleThreadEventExecutor ? ((SingleThreadEventExecutor) executor).pendingTasks() : -1;
+        }
+
+        private void bind() {
+            thread = Thread.currentThread();
+            CURRENT.set(this);
+        }
+
+        private void submitProbe(long now) {
+            if (executor.isShuttingDown()) {
+                return;
+            }
+            probeSubmittedAt = now;
+            try {
+                executor.execute(probe);
+            } catch (RejectedExecutionException e) {
+                probeSubmittedAt = 0;
+            }
+        }
+
+        private void runProbe() {
+            long now = System.nanoTime();
+            lag.record(now - probeSubmittedAt);
+            if (reported) {
+                log.warn("Event loop {} is unblocked after {} ms", getName(), TimeUnit.NANOSECONDS.toMillis(now - probeSubmittedAt));
+                reported = false;
+            }
+            probeSubmittedAt = 0;
+        }
+
+        private void reportBlocked(long blockedNanos) {
+            reported = true;
+            blocked.increment();
+            RouteMetrics currentRoute = route;
+            String routeName = currentRoute == null ? "no route" : "route " + currentRoute.getHttpMethod() + " " + currentRoute.getRoute();
+            BlockedEventLoopException stack = new BlockedEventLoopException();
+            stack.setStackTrace(thread.getStackTrace());
+            log.warn("Event loop {} has been blocked for {} ms, executing {}", getName(),
+                    TimeUnit.NANOSECONDS.toMillis(blockedNanos), routeName, stack);
+        }
+    }
+
+    /**
+     * carries the stack of the blocked event loop thread to the log
+     */
+    private static final class BlockedEventLoopException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private BlockedEventLoopException() {
+            super("stack of the blocked event loop thread", null, false, true);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.jsoncat.server;
+
+import com.github.jsoncat.core.springmvc.entity.Compression;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.compression.ZlibWrapper;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 根据 Accept-Encoding 压缩响应（gzip / deflate）
+ * <p>
+ * Responses smaller than the threshold are sent as is, streaming responses are compressed chunk by chunk.
+ * HttpServerHandler tells the compressor about the routes that opted out or cache their compressed bodies,
+ * everything else is left to HttpContentCompressor.
+ * </p>
+ **/
+public class HttpResponseCompressor extends HttpContentCompressor {
+    private static final int WINDOW_BITS = 15;
+    private static final int MEM_LEVEL = 8;
+
+    private final int minResponseSize;
+    // null if no route caches its compressed bodies
+    private final CompressedBodyCache cache;
+    // the responses that are not compressed the default way, only accessed on the event loop
+    private final Map<HttpResponse, Compression> compressions = new IdentityHashMap<>();
+    private Compression current = Compression.COMPRESS;
+
+    public HttpResponseCompressor(int compressionLevel, int minResponseSize, CompressedBodyCache cache) {
+        super(compressionLevel, WINDOW_BITS, MEM_LEVEL, minResponseSize);
+        this.minResponseSize = minResponseSize;
+        this.cache = cache;
+    }
+
+    /**
+     * must be called on the event loop before the response is written
+     */
+    public void setCompression(HttpResponse response, Compression compression) {
+        if (compression != Compression.COMPRESS) {
+            compressions.put(response, compression);
+        }
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, HttpObject msg, List<Object> out) throws Exception {
+        if (msg instanceof HttpResponse) {
+            // removed here rather than in beginEncode, which is skipped for empty bodies, HEAD requests, 204, 304...
+            Compression compression = compressions.remove(msg);
+            current = compression == null ? Compression.COMPRESS : compression;
+        }
+        super.encode(ctx, msg, out);
+    }
+
+    @Override
+    protected Result beginEncode(HttpResponse response, String acceptEncoding) throws Exception {
+        if (current == Compression.SKIP) {
+            return null;
+        }
+        if (current == Compression.CACHE && cache != null && response instanceof FullHttpResponse) {
+            encodeFromCache((FullHttpResponse) response, acceptEncoding);
+            // the body is already compressed, pass the response through
+            return null;
+        }
+        return super.beginEncode(response, acceptEncoding);
+    }
+
+    private void encodeFromCache(FullHttpResponse response, String acceptEncoding) {
+        ByteBuf content = response.content();
+        if (content.readableBytes() < minResponseSize || response.headers().contains(HttpHeaderNames.CONTENT_ENCODING)) {
+            return;
+        }
+        ZlibWrapper wrapper = determineWrapper(acceptEncoding);
+        if (wrapper == null) {
+            return;
+        }
+        byte[] compressed = cache.get(wrapper, content);
+        content.clear().writeBytes(compressed);
+        response.headers().set(HttpHeaderNames.CONTENT_ENCODING, wrapper == ZlibWrapper.GZIP ? HttpHeaderValues.GZIP : HttpHeaderValues.DEFLATE);
+        response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, compressed.length);
+    }
+}
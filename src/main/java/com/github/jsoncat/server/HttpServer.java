@@ -1,62 +1,375 @@
 package com.github.jsoncat.server;
 
 import com.github.jsoncat.common.constant.SystemConstants;
+import com.github.jsoncat.core.config.ConfigurationManager;
+import com.github.jsoncat.core.ioc.BeanFactory;
+import com.github.jsoncat.core.springmvc.factory.RequestExecutorFactory;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
-import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.handler.codec.http.HttpObjectAggregator;
-import io.netty.handler.codec.http.HttpRequestDecoder;
-import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.net.ssl.SSLException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.security.cert.CertificateException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
 /**
+ * <pre>
+ * jsoncat.server.port: 8080
+ * jsoncat.server.transport: auto          # auto | epoll | nio, auto uses epoll on linux
+ * jsoncat.server.boss-threads: 1          # with epoll every boss thread binds its own SO_REUSEPORT acceptor, nio uses one
+ * jsoncat.server.worker-threads: 0        # 0 means 2 * available processors
+ * jsoncat.server.backlog: 128
+ * jsoncat.server.so-rcvbuf: 0             # 0 keeps the os default
+ * jsoncat.server.so-sndbuf: 0
+ * jsoncat.server.write-buffer-low-water-mark: 32768
+ * jsoncat.server.write-buffer-high-water-mark: 65536
+ * jsoncat.server.max-connections: 0         # 0 means unlimited, connections over the limit are closed when accepted
+ * jsoncat.server.max-connections-per-ip: 0
+ * jsoncat.server.read-timeout-seconds: 0     # close a connection that has not read anything for that long, 0 disables it
+ * jsoncat.server.write-timeout-seconds: 0    # close a connection that has not written anything for that long
+ * jsoncat.server.idle-timeout-seconds: 60    # close a connection that has neither read nor written anything for that long
+ *                                            # the timeouts do not close a connection while one of its requests is in flight
+ * jsoncat.server.max-in-flight-requests: 0   # requests executed at the same time, the excess gets a 503 right away
+ * jsoncat.server.max-pipelined-requests: 64  # in-flight requests of a connection before it stops reading
+ * jsoncat.server.compression.enabled: false   # gzip or deflate the responses, as negotiated by Accept-Encoding
+ * jsoncat.server.compression.level: 6
+ * jsoncat.server.compression.min-response-size: 1024   # smaller bodies are sent as is
+ * jsoncat.server.compression.cache-size: 256  # compressed bodies kept for the routes with @Compress(cacheable = true)
+ * jsoncat.server.static.locations: classpath:/static, file:/var/www   # empty by default, no static resources
+ * jsoncat.server.static.max-age: 0            # Cache-Control max-age in seconds, 0 makes clients revalidate
+ * jsoncat.server.static.cache.max-file-size: 65536      # larger files are read from disk for every request
+ * jsoncat.server.static.cache.max-size: 33554432        # bytes of direct memory for the cached files
+ * jsoncat.server.http2.enabled: false     # also accept h2c (upgrade or prior knowledge) on a cleartext port
+ * jsoncat.server.ssl.enabled: false       # serve https, h2 and http/1.1 are negotiated by ALPN
+ * jsoncat.server.ssl.certificate: /path/to/cert.pem
+ * jsoncat.server.ssl.private-key: /path/to/key.pem
+ * jsoncat.server.ssl.self-signed: false   # generate a self-signed certificate instead, for tests only (needs bcpkix)
+ * jsoncat.server.access-log.enabled: false   # written by a background thread, the I/O threads never block on it
+ * jsoncat.server.access-log.path: logs/access.log
+ * jsoncat.server.access-log.sample-rate: 1.0  # fraction of the requests logged, 5xx responses are always logged
+ * jsoncat.server.access-log.buffer-size: 65536   # entries the writer may lag behind before new ones are dropped
+ * jsoncat.server.access-log.max-file-size: 104857600   # rotate access.log to access.log.1 beyond that many bytes
+ * jsoncat.server.access-log.max-files: 5
+ * jsoncat.server.metrics.enabled: false      # serve the per-route counters and latency histograms in prometheus text format
+ * jsoncat.server.metrics.path: /metrics
+ * jsoncat.server.event-loop-monitor.enabled: true   # measure the lag of the I/O threads and log the calls blocking them
+ * jsoncat.server.event-loop-monitor.interval-millis: 100
+ * jsoncat.server.event-loop-monitor.blocked-threshold-millis: 1000
+ * jsoncat.server.shutdown.timeout-seconds: 30   # how long stop() waits for the in-flight requests before cutting the connections
+ * </pre>
+ *
  * @author shuang.kou
  * @createTime 2020年09月23日 17:05:00
  **/
 @Slf4j
 public class HttpServer {
+    private static final String SERVER_PREFIX = "jsoncat.server.";
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_BACKLOG = 128;
+    private static final int DEFAULT_MAX_PIPELINED_REQUESTS = 64;
+    private static final int DEFAULT_IDLE_TIMEOUT_SECONDS = 60;
+    private static final int DEFAULT_COMPRESSION_LEVEL = 6;
+    private static final int DEFAULT_MIN_COMPRESSION_SIZE = 1024;
+    private static final int DEFAULT_COMPRESSION_CACHE_SIZE = 256;
+    private static final int DEFAULT_STATIC_CACHE_MAX_FILE_SIZE = 64 * 1024;
+    private static final int DEFAULT_STATIC_CACHE_MAX_SIZE = 32 * 1024 * 1024;
+    private static final int DEFAULT_ACCESS_LOG_BUFFER_SIZE = 64 * 1024;
+    private static final int DEFAULT_ACCESS_LOG_MAX_FILE_SIZE = 100 * 1024 * 1024;
+    private static final int DEFAULT_ACCESS_LOG_MAX_FILES = 5;
+    private static final int DEFAULT_MONITOR_INTERVAL_MILLIS = 100;
+    private static final int DEFAULT_BLOCKED_THRESHOLD_MILLIS = 1000;
+    private static final int DEFAULT_SHUTDOWN_TIMEOUT_SECONDS = 30;
+    private static final long DRAIN_POLL_MILLIS = 10;
+    // the files are read on their own worker pool, a slow disk does not hold the routes back
+    private static final String STATIC_RESOURCES_EXECUTOR = "static";
 
-    private static final int PORT = 8080;
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private final List<Channel> serverChannels = new ArrayList<>();
+    private ConnectionGuard connectionGuard;
+    private RequestLimiter requestLimiter;
+    // null if access logging is disabled
+    private AccessLog accessLog;
+    // null if the event loops are not monitored
+    private EventLoopMonitor eventLoopMonitor;
+    private long shutdownTimeoutMillis;
+    private boolean stopped;
+    private final CountDownLatch terminated = new CountDownLatch(1);
 
-    public void start() {
-        EventLoopGroup bossGroup = new NioEventLoopGroup(1);
-        EventLoopGroup workerGroup = new NioEventLoopGroup();
+    /**
+     * bind the port and return, the server runs until stop() is called
+     *
+     * @throws IllegalStateException if the thread is interrupted while binding, the event loops are released
+     */
+    public synchronized void start() {
+        ConfigurationManager configurationManager = BeanFactory.getBean(ConfigurationManager.class);
+        int port = configurationManager.getInt(SERVER_PREFIX + "port", DEFAULT_PORT);
+        Transport transport = Transport.of(configurationManager.getString(SERVER_PREFIX + "transport", "auto"));
+        int bossThreads = configurationManager.getInt(SERVER_PREFIX + "boss-threads", 1);
+        if (bossThreads > 1 && transport != Transport.EPOLL) {
+            // 只有 epoll 能用 SO_REUSEPORT 绑定多个监听 socket，nio 下多出的 boss 线程永远不会被用到
+            log.warn("boss-threads: {} needs the epoll transport, the {} transport uses one boss thread", bossThreads, transport);
+            bossThreads = 1;
+        }
+        int workerThreads = configurationManager.getInt(SERVER_PREFIX + "worker-threads", 0);
+        shutdownTimeoutMillis = TimeUnit.SECONDS.toMillis(
+                configurationManager.getInt(SERVER_PREFIX + "shutdown.timeout-seconds", DEFAULT_SHUTDOWN_TIMEOUT_SECONDS));
+        connectionGuard = newConnectionGuard(configurationManager);
+        requestLimiter = newRequestLimiter(configurationManager);
+        accessLog = newAccessLog(configurationManager);
+        bossGroup = transport.newEventLoopGroup(bossThreads, "jsoncat-boss");
+        workerGroup = transport.newEventLoopGroup(workerThreads, "jsoncat-worker");
+        eventLoopMonitor = newEventLoopMonitor(configurationManager);
+        boolean bound = false;
         try {
             ServerBootstrap b = new ServerBootstrap();
             b.group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
+                    .channel(transport.serverChannelClass())
                     // TCP默认开启了 Nagle 算法，该算法的作用是尽可能的发送大数据快，减少网络传输。TCP_NODELAY 参数的作用就是控制是否启用 Nagle 算法。
                     .childOption(ChannelOption.TCP_NODELAY, true)
+                    // 响应体直接序列化到池化的 ByteBuf 中
+                    .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
                     // 是否开启 TCP 底层心跳机制
                     .childOption(ChannelOption.SO_KEEPALIVE, true)
                     //表示系统用于临时存放已完成三次握手的请求的队列的最大长度,如果连接建立频繁，服务器处理创建新连接较慢，可以适当调大这个参数
-                    .option(ChannelOption.SO_BACKLOG, 128)
+                    .option(ChannelOption.SO_BACKLOG, configurationManager.getInt(SERVER_PREFIX + "backlog", DEFAULT_BACKLOG))
+                    // 写缓冲区超过高水位时 channel 变为不可写，降到低水位以下后恢复
+                    .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(
+                            configurationManager.getInt(SERVER_PREFIX + "write-buffer-low-water-mark", WriteBufferWaterMark.DEFAULT.low()),
+                            configurationManager.getInt(SERVER_PREFIX + "write-buffer-high-water-mark", WriteBufferWaterMark.DEFAULT.high())))
                     .handler(new LoggingHandler(LogLevel.INFO))
-                    .childHandler(new ChannelInitializer<SocketChannel>() {
-                        @Override
-                        protected void initChannel(SocketChannel ch) {
-                            ch.pipeline().addLast("decoder", new HttpRequestDecoder())
-                                    .addLast("encoder", new HttpResponseEncoder())
-                                    .addLast("aggregator", new HttpObjectAggregator(512 * 1024))
-                                    .addLast("handler", new HttpServerHandler());
-                        }
-                    });
-            Channel ch = b.bind(PORT).sync().channel();
-            log.info(SystemConstants.LOG_PORT_BANNER, PORT);
-            ch.closeFuture().sync();
+                    .childHandler(new HttpServerInitializer(newSslContext(configurationManager),
+                            configurationManager.getBoolean(SERVER_PREFIX + "http2.enabled", false),
+                            configurationManager.getInt(SERVER_PREFIX + "max-pipelined-requests", DEFAULT_MAX_PIPELINED_REQUESTS),
+                            newCompressorFactory(configurationManager), newStaticResources(configurationManager),
+                            connectionGuard, requestLimiter, accessLog, newMetricsEndpoint(configurationManager)));
+            int receiveBufferSize = configurationManager.getInt(SERVER_PREFIX + "so-rcvbuf", 0);
+            if (receiveBufferSize > 0) {
+                // 设置在监听 socket 上，accept 出来的连接会继承它（窗口缩放需要在握手前确定）
+                b.option(ChannelOption.SO_RCVBUF, receiveBufferSize);
+                b.childOption(ChannelOption.SO_RCVBUF, receiveBufferSize);
+            }
+            int sendBufferSize = configurationManager.getInt(SERVER_PREFIX + "so-sndbuf", 0);
+            if (sendBufferSize > 0) {
+                b.childOption(ChannelOption.SO_SNDBUF, sendBufferSize);
+            }
+            int acceptors = 1;
+            if (transport == Transport.EPOLL) {
+                b.childOption(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+                if (bossThreads > 1) {
+                    // 多个监听 socket 绑定同一个端口，由内核在它们之间分发新连接，每个 boss 线程负责一个
+                    b.option(EpollChannelOption.SO_REUSEPORT, true);
+                    acceptors = bossThreads;
+                }
+            }
+            for (int i = 0; i < acceptors; i++) {
+                serverChannels.add(b.bind(port).sync().channel());
+            }
+            bound = true;
+            log.info("Transport: {}, acceptors: {}", transport, acceptors);
+            log.info(SystemConstants.LOG_PORT_BANNER, port);
         } catch (InterruptedException e) {
-            log.error("occur com.github.jsoncat.exception when start com.github.jsoncat.server:", e);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while binding port " + port, e);
         } finally {
-            log.error("shutdown bossGroup and workerGroup");
-            bossGroup.shutdownGracefully();
-            workerGroup.shutdownGracefully();
+            if (!bound) {
+                log.error("shutdown bossGroup and workerGroup");
+                serverChannels.forEach(Channel::close);
+                bossGroup.shutdownGracefully();
+                workerGroup.shutdownGracefully();
+                if (eventLoopMonitor != null) {
+                    eventLoopMonitor.close();
+                }
+                if (accessLog != null) {
+                    accessLog.close();
+                }
+                terminated.countDown();
+            }
+        }
+    }
+
+    /**
+     * stop accepting connections, let the in-flight requests complete for up to shutdown.timeout-seconds,
+     * then close whatever is left and release the event loops. Safe to call more than once.
+     */
+    public synchronized void stop() {
+        if (stopped || bossGroup == null) {
+            return;
+        }
+        stopped = true;
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMillis);
+        // 先关闭监听 socket，新连接会被拒绝（负载均衡器据此把流量切到其他实例）
+        for (Channel ch : serverChannels) {
+            ch.close().syncUninterruptibly();
+        }
+        int connections = connectionGuard.getConnections();
+        int inFlightRequests = requestLimiter.getInFlightRequests();
+        log.info("Stop accepting, draining {} connections and {} in-flight requests", connections, inFlightRequests);
+        connectionGuard.drain(shutdownTimeoutMillis);
+        boolean interrupted = false;
+        try {
+            connectionGuard.closeFuture().await(shutdownTimeoutMillis);
+            // a request stays in flight after its connection is closed by the client, until its route returns
+            while (requestLimiter.getInFlightRequests() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(DRAIN_POLL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        int remainingConnections = connectionGuard.getConnections();
+        int remainingRequests = requestLimiter.getInFlightRequests();
+        connectionGuard.closeAll().awaitUninterruptibly();
+        log.info("Drained {} connections and {} in-flight requests in {} ms, {} connections and {} requests were cut",
+                connections - remainingConnections, inFlightRequests - remainingRequests,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), remainingConnections, remainingRequests);
+        if (eventLoopMonitor != null) {
+            eventLoopMonitor.close();
+        }
+        // nothing is left to run on the event loops, no quiet period is needed
+        bossGroup.shutdownGracefully(0, shutdownTimeoutMillis, TimeUnit.MILLISECONDS);
+        workerGroup.shutdownGracefully(0, shutdownTimeoutMillis, TimeUnit.MILLISECONDS);
+        bossGroup.terminationFuture().awaitUninterruptibly();
+        workerGroup.terminationFuture().awaitUninterruptibly();
+        if (accessLog != null) {
+            accessLog.close();
+        }
+        terminated.countDown();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * block until the server is stopped
+     */
+    public void awaitTermination() throws InterruptedException {
+        terminated.await();
+    }
+
+    /**
+     * the guard is installed even without limits, it also counts the open connections
+     */
+    private ConnectionGuard newConnectionGuard(ConfigurationManager configurationManager) {
+        return new ConnectionGuard(configurationManager.getInt(SERVER_PREFIX + "max-connections", 0),
+                configurationManager.getInt(SERVER_PREFIX + "max-connections-per-ip", 0),
+                configurationManager.getInt(SERVER_PREFIX + "read-timeout-seconds", 0),
+                configurationManager.getInt(SERVER_PREFIX + "write-timeout-seconds", 0),
+                configurationManager.getInt(SERVER_PREFIX + "idle-timeout-seconds", DEFAULT_IDLE_TIMEOUT_SECONDS));
+    }
+
+    private RequestLimiter newRequestLimiter(ConfigurationManager configurationManager) {
+        return new RequestLimiter(configurationManager.getInt(SERVER_PREFIX + "max-in-flight-requests", 0));
+    }
+
+    /**
+     * @return the endpoint shared by all connections, or null if it is disabled
+     */
+    private MetricsEndpoint newMetricsEndpoint(ConfigurationManager configurationManager) {
+        if (!configurationManager.getBoolean(SERVER_PREFIX + "metrics.enabled", false)) {
+            return null;
+        }
+        return new MetricsEndpoint(configurationManager.getString(SERVER_PREFIX + "metrics.path", "/metrics").trim(),
+                connectionGuard, requestLimiter, eventLoopMonitor);
+    }
+
+    /**
+     * @return the monitor of the worker event loops, or null if it is disabled
+     */
+    private EventLoopMonitor newEventLoopMonitor(ConfigurationManager configurationManager) {
+        if (!configurationManager.getBoolean(SERVER_PREFIX + "event-loop-monitor.enabled", true)) {
+            return null;
+        }
+        return new EventLoopMonitor(workerGroup,
+                configurationManager.getInt(SERVER_PREFIX + "event-loop-monitor.interval-millis", DEFAULT_MONITOR_INTERVAL_MILLIS),
+                configurationManager.getInt(SERVER_PREFIX + "event-loop-monitor.blocked-threshold-millis", DEFAULT_BLOCKED_THRESHOLD_MILLIS));
+    }
+
+    /**
+     * @return the access log shared by all connections, or null if it is disabled
+     */
+    private AccessLog newAccessLog(ConfigurationManager configurationManager) {
+        if (!configurationManager.getBoolean(SERVER_PREFIX + "access-log.enabled", false)) {
+            return null;
+        }
+        String path = configurationManager.getString(SERVER_PREFIX + "access-log.path", "logs/access.log");
+        try {
+            return new AccessLog(Paths.get(path),
+                    Double.parseDouble(configurationManager.getString(SERVER_PREFIX + "access-log.sample-rate", "1.0").trim()),
+                    configurationManager.getInt(SERVER_PREFIX + "access-log.buffer-size", DEFAULT_ACCESS_LOG_BUFFER_SIZE),
+                    configurationManager.getInt(SERVER_PREFIX + "access-log.max-file-size", DEFAULT_ACCESS_LOG_MAX_FILE_SIZE),
+                    configurationManager.getInt(SERVER_PREFIX + "access-log.max-files", DEFAULT_ACCESS_LOG_MAX_FILES));
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to open the access log " + path, e);
+        }
+    }
+
+    /**
+     * @return a new compressor for every connection, or null if compression is disabled
+     */
+    private Supplier<HttpResponseCompressor> newCompressorFactory(ConfigurationManager configurationManager) {
+        if (!configurationManager.getBoolean(SERVER_PREFIX + "compression.enabled", false)) {
+            return null;
+        }
+        int compressionLevel = configurationManager.getInt(SERVER_PREFIX + "compression.level", DEFAULT_COMPRESSION_LEVEL);
+        int minResponseSize = configurationManager.getInt(SERVER_PREFIX + "compression.min-response-size", DEFAULT_MIN_COMPRESSION_SIZE);
+        CompressedBodyCache cache = new CompressedBodyCache(compressionLevel,
+                configurationManager.getInt(SERVER_PREFIX + "compression.cache-size", DEFAULT_COMPRESSION_CACHE_SIZE));
+        return () -> new HttpResponseCompressor(compressionLevel, minResponseSize, cache);
+    }
+
+    /**
+     * @return the static resources shared by all connections, or null if no location is configured
+     */
+    private StaticResources newStaticResources(ConfigurationManager configurationManager) {
+        String locations = configurationManager.getString(SERVER_PREFIX + "static.locations", "");
+        if (locations.trim().isEmpty()) {
+            return null;
+        }
+        StaticResourceCache cache = new StaticResourceCache(
+                configurationManager.getInt(SERVER_PREFIX + "static.cache.max-file-size", DEFAULT_STATIC_CACHE_MAX_FILE_SIZE),
+                configurationManager.getInt(SERVER_PREFIX + "static.cache.max-size", DEFAULT_STATIC_CACHE_MAX_SIZE));
+        return new StaticResources(locations, configurationManager.getInt(SERVER_PREFIX + "static.max-age", 0), cache,
+                RequestExecutorFactory.get(STATIC_RESOURCES_EXECUTOR));
+    }
+
+    /**
+     * @return the server side ssl context negotiating h2 and http/1.1 by ALPN, or null if ssl is disabled
+     */
+    private SslContext newSslContext(ConfigurationManager configurationManager) {
+        if (!configurationManager.getBoolean(SERVER_PREFIX + "ssl.enabled", false)) {
+            return null;
+        }
+        try {
+            SslContextBuilder sslContextBuilder;
+            if (configurationManager.getBoolean(SERVER_PREFIX + "ssl.self-signed", false)) {
+                SelfSignedCertificate certificate = new SelfSignedCertificate();
+                sslContextBuilder = SslContextBuilder.forServer(certificate.certificate(), certificate.privateKey());
+            } else {
+                sslContextBuilder = SslContextBuilder.forServer(new File(configurationManager.getString(SERVER_PREFIX + "ssl.certificate")),
+                        new File(configurationManager.getString(SERVER_PREFIX + "ssl.private-key")));
+            }
+            return HttpServerInitializer.newSslContext(sslContextBuilder);
+        } catch (CertificateException | SSLException e) {
+            throw new IllegalStateException("failed to create the ssl context", e);
         }
     }
 }
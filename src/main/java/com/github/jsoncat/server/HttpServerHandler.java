@@ -1,52 +1,179 @@
 package com.github.jsoncat.server;
 
+import com.github.jsoncat.core.springmvc.entity.AsyncHttpResponse;
+import com.github.jsoncat.core.springmvc.entity.Compression;
+import com.github.jsoncat.core.springmvc.entity.FileRegionHttpResponse;
+import com.github.jsoncat.core.springmvc.entity.InvocationPlan;
+import com.github.jsoncat.core.springmvc.entity.MethodDetail;
+import com.github.jsoncat.core.springmvc.entity.StreamingHttpResponse;
 import com.github.jsoncat.core.springmvc.factory.FullHttpResponseFactory;
 import com.github.jsoncat.core.springmvc.factory.RequestHandlerFactory;
+import com.github.jsoncat.core.springmvc.factory.RouteMethodMapper;
 import com.github.jsoncat.core.springmvc.handler.RequestHandler;
+import com.github.jsoncat.core.springmvc.metrics.RouteMetrics;
 import com.github.jsoncat.core.springmvc.util.UrlUtil;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.util.AsciiString;
+import io.netty.util.ReferenceCountUtil;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /**
+ * <p>
+ * HTTP/1.1 pipelining: the requests of a connection are executed concurrently, but every request gets a
+ * sequence number and its response is held back until the responses of all earlier requests are written.
+ * When too many requests of one connection are in flight the channel stops reading until some are answered,
+ * but not before the body of a streaming request is fully received: its route is waiting for it.
+ * </p>
+ * <p>
+ * When the server is stopped an idle connection is closed right away, a busy one answers its last in-flight
+ * request with "Connection: close".
+ * </p>
+ *
  * @author shuang.kou
  * @createTime 2020年09月23日 17:33:00
  **/
 @Slf4j
 public class HttpServerHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
-    private static final String FAVICON_ICO = "/favicon.ico";
     private static final AsciiString CONNECTION = AsciiString.cached("Connection");
     private static final AsciiString KEEP_ALIVE = AsciiString.cached("keep-alive");
+    private static final AsciiString CLOSE = AsciiString.cached("close");
+
+    private final int maxPipelinedRequests;
+    // the state of the connection, only accessed on its event loop
+    private int requestSequence;
+    private int responseSequence;
+    private final Map<Integer, PendingResponse> pendingResponses = new HashMap<>();
+    private boolean closing;
+    private boolean draining;
+    // true while this handler holds a ReadSuspension of the channel, because of too many pipelined requests
+    private boolean readsSuspended;
+    // true from a StreamingHttpRequest until the last chunk of its body is received
+    private boolean receivingBody;
+    // null if compression is disabled
+    private final HttpResponseCompressor compressor;
+    // null if static resources are disabled
+    private final StaticResources staticResources;
+    // always present, 0 disables the limit
+    private final RequestLimiter requestLimiter;
+    // null if access logging is disabled
+    private final AccessLog accessLog;
+    // null if the metrics endpoint is disabled
+    private final MetricsEndpoint metricsEndpoint;
+
+    public HttpServerHandler(int maxPipelinedRequests, HttpResponseCompressor compressor, StaticResources staticResources,
+                             RequestLimiter requestLimiter, AccessLog accessLog, MetricsEndpoint metricsEndpoint) {
+        this.maxPipelinedRequests = maxPipelinedRequests;
+        this.compressor = compressor;
+        this.staticResources = staticResources;
+        this.requestLimiter = requestLimiter;
+        this.accessLog = accessLog;
+        this.metricsEndpoint = metricsEndpoint;
+    }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest fullHttpRequest) {
-        log.info("Handle http request:{}", fullHttpRequest);
-        String uri = fullHttpRequest.uri();
-        if (uri.equals(FAVICON_ICO)) {
+        // every request must be answered (favicon.ico included), otherwise the responses after it can't be written
+        int sequence = requestSequence++;
+        if (fullHttpRequest instanceof StreamingHttpRequest) {
+            receivingBody = true;
+        } else {
+            suspendReadsIfTooManyRequests(ctx);
+        }
+        long startNanos = System.nanoTime();
+        String requestPath = UrlUtil.getRequestPath(fullHttpRequest.uri());
+        MethodDetail methodDetail = fullHttpRequest instanceof StreamingHttpRequest ? ((StreamingHttpRequest) fullHttpRequest).getMethodDetail()
+                : RouteMethodMapper.getMethodDetail(requestPath, fullHttpRequest.method());
+        InvocationPlan invocationPlan = methodDetail.getInvocationPlan();
+        RouteMetrics metrics = invocationPlan == null ? null : invocationPlan.getMetrics();
+        if (metrics != null) {
+            metrics.record(RouteMetrics.Phase.ROUTING, startNanos);
+        }
+        methodDetail.setAllocator(ctx.alloc());
+        Exchange exchange = new Exchange(fullHttpRequest, requestPath, metrics, startNanos);
+        if (invocationPlan == null) {
+            if (metricsEndpoint != null && requestPath.equals(metricsEndpoint.getPath()) && HttpMethod.GET.equals(fullHttpRequest.method())) {
+                writeResponse(ctx, sequence, metricsEndpoint.scrape(ctx.alloc()), Compression.COMPRESS, exchange);
+                return;
+            }
+            if (staticResources != null && staticResources.accepts(fullHttpRequest)) {
+                serveStaticResource(ctx, sequence, fullHttpRequest, requestPath, exchange);
+                return;
+            }
+            writeResponse(ctx, sequence, notFound(ctx, fullHttpRequest, requestPath), Compression.COMPRESS, exchange);
             return;
         }
-        RequestHandler requestHandler = RequestHandlerFactory.get(fullHttpRequest.method());
-        FullHttpResponse fullHttpResponse;
+        if (!requestLimiter.tryAcquire()) {
+            closeBodyStream(methodDetail);
+            writeResponse(ctx, sequence, FullHttpResponseFactory.getServiceUnavailableResponse(), Compression.COMPRESS, exchange);
+            return;
+        }
+        metrics.begin();
+        ExecutorService executor = invocationPlan.getExecutor();
+        if (executor == null) {
+            // cheap route, execute it on the I/O thread
+            EventLoopMonitor.enterRoute(metrics);
+            HttpResponse httpResponse;
+            try {
+                httpResponse = handle(ctx, fullHttpRequest, methodDetail, requestPath);
+            } finally {
+                EventLoopMonitor.exitRoute();
+            }
+            writeResponse(ctx, sequence, httpResponse, invocationPlan.getCompression(), exchange);
+            return;
+        }
+        // the request is released by SimpleChannelInboundHandler when this method returns
+        fullHttpRequest.retain();
         try {
-            fullHttpResponse = requestHandler.handle(fullHttpRequest);
-        } catch (Throwable e) {
-            log.error("Caught an unexpected error.", e);
-            String requestPath = UrlUtil.getRequestPath(fullHttpRequest.uri());
-            fullHttpResponse = FullHttpResponseFactory.getErrorResponse(requestPath, e.toString(), HttpResponseStatus.INTERNAL_SERVER_ERROR);
+            executor.execute(() -> {
+                try {
+                    HttpResponse httpResponse = handle(ctx, fullHttpRequest, methodDetail, requestPath);
+                    writeResponse(ctx, sequence, httpResponse, invocationPlan.getCompression(), exchange);
+                } finally {
+                    fullHttpRequest.release();
+                    closeBodyStream(methodDetail);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            fullHttpRequest.release();
+            closeBodyStream(methodDetail);
+            releaseInFlight(metrics);
+            ServerMetrics.SHED_REQUESTS.increment();
+            log.warn("The worker pool is saturated, reject request:{}", requestPath);
+            writeResponse(ctx, sequence, FullHttpResponseFactory.getServiceUnavailableResponse(), Compression.COMPRESS, exchange);
         }
-        boolean keepAlive = HttpUtil.isKeepAlive(fullHttpRequest);
-        if (!keepAlive) {
-            ctx.write(fullHttpResponse).addListener(ChannelFutureListener.CLOSE);
-        } else {
-            fullHttpResponse.headers().set(CONNECTION, KEEP_ALIVE);
-            ctx.write(fullHttpResponse);
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof RequestBodyStreamHandler.BodyReceivedEvent) {
+            receivingBody = false;
+            suspendReadsIfTooManyRequests(ctx);
+            return;
         }
+        super.userEventTriggered(ctx, evt);
     }
 
     @Override
@@ -56,9 +183,298 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<FullHttpReque
     }
 
     @Override
-    public void channelReadComplete(ChannelHandlerContext ctx) {
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        // the responses still waiting for an earlier one can't be written any more
+        pendingResponses.values().forEach(pending -> discard(pending.httpResponse));
+        pendingResponses.clear();
+        super.channelInactive(ctx);
+    }
+
+    /**
+     * @return true if a request already read is not answered yet, must be called on the event loop
+     */
+    boolean hasInFlightRequests() {
+        return requestSequence != responseSequence;
+    }
+
+    /**
+     * close the connection once the requests already read are answered, must be called on the event loop
+     */
+    void drain(ChannelHandlerContext ctx) {
+        draining = true;
+        if (!hasInFlightRequests() && !closing) {
+            closing = true;
+            ctx.close();
+        }
+    }
+
+    private void suspendReadsIfTooManyRequests(ChannelHandlerContext ctx) {
+        if (!receivingBody && !readsSuspended && requestSequence - responseSequence >= maxPipelinedRequests) {
+            readsSuspended = true;
+            ReadSuspension.of(ctx.channel()).suspend();
+        }
+    }
+
+    /**
+     * the file is looked up and read on the executor of the static resources, the disk never blocks the I/O thread
+     */
+    private void serveStaticResource(ChannelHandlerContext ctx, int sequence, FullHttpRequest fullHttpRequest, String requestPath, Exchange exchange) {
+        fullHttpRequest.retain();
+        try {
+            staticResources.getExecutor().execute(() -> {
+                HttpResponse httpResponse;
+                // the files are sent as they are, a FileRegion can't be compressed
+                Compression compression = Compression.SKIP;
+                try {
+                    httpResponse = staticResources.serve(ctx, fullHttpRequest, requestPath);
+                    if (httpResponse == null) {
+                        httpResponse = notFound(ctx, fullHttpRequest, requestPath);
+                        compression = Compression.COMPRESS;
+                    }
+                } catch (Throwable e) {
+                    log.error("Caught an unexpected error.", e);
+                    httpResponse = FullHttpResponseFactory.getErrorResponse(ctx.alloc(), requestPath, e.toString(), HttpResponseStatus.INTERNAL_SERVER_ERROR);
+                    compression = Compression.COMPRESS;
+                } finally {
+                    fullHttpRequest.release();
+                }
+                writeResponse(ctx, sequence, httpResponse, compression, exchange);
+            });
+        } catch (RejectedExecutionException e) {
+            fullHttpRequest.release();
+            ServerMetrics.SHED_REQUESTS.increment();
+            log.warn("The static resources pool is saturated, reject request:{}", requestPath);
+            writeResponse(ctx, sequence, FullHttpResponseFactory.getServiceUnavailableResponse(), Compression.COMPRESS, exchange);
+        }
+    }
+
+    private static FullHttpResponse notFound(ChannelHandlerContext ctx, FullHttpRequest fullHttpRequest, String requestPath) {
+        return FullHttpResponseFactory.getErrorResponse(ctx.alloc(), requestPath, "No handler found for " + fullHttpRequest.method() + " " + requestPath, HttpResponseStatus.NOT_FOUND);
+    }
+
+    private HttpResponse handle(ChannelHandlerContext ctx, FullHttpRequest fullHttpRequest, MethodDetail methodDetail, String requestPath) {
+        RequestHandler requestHandler = RequestHandlerFactory.get(fullHttpRequest.method());
+        HttpResponse httpResponse;
+        try {
+            httpResponse = requestHandler.handle(fullHttpRequest, methodDetail);
+        } catch (Throwable e) {
+            log.error("Caught an unexpected error.", e);
+            httpResponse = FullHttpResponseFactory.getErrorResponse(ctx.alloc(), requestPath, e.toString(), HttpResponseStatus.INTERNAL_SERVER_ERROR);
+        }
+        // a future route stays in flight until it completes
+        if (!(httpResponse instanceof AsyncHttpResponse)) {
+            releaseInFlight(methodDetail.getInvocationPlan().getMetrics());
+        }
+        return httpResponse;
+    }
+
+    private void releaseInFlight(RouteMetrics metrics) {
+        metrics.end();
+        requestLimiter.release();
+    }
+
+    /**
+     * discard whatever the route method has not read of a streaming body
+     */
+    private void closeBodyStream(MethodDetail methodDetail) {
+        InputStream bodyStream = methodDetail.getBodyStream();
+        if (bodyStream != null) {
+            try {
+                bodyStream.close();
+            } catch (IOException e) {
+                log.warn("Failed to close the request body stream", e);
+            }
+        }
+    }
+
+    /**
+     * write the response once the responses of all earlier requests on the connection are written,
+     * can be called from any thread
+     */
+    private void writeResponse(ChannelHandlerContext ctx, int sequence, HttpResponse httpResponse, Compression compression, Exchange exchange) {
+        if (httpResponse instanceof AsyncHttpResponse) {
+            writeAsyncResponse(ctx, sequence, (AsyncHttpResponse) httpResponse, compression, exchange);
+            return;
+        }
+        if (!ctx.executor().inEventLoop()) {
+            ctx.executor().execute(() -> writeResponse(ctx, sequence, httpResponse, compression, exchange));
+            return;
+        }
+        if (!ctx.channel().isActive()) {
+            // the connection was closed (by the client or a timeout) while the route was executed
+            discard(httpResponse);
+            return;
+        }
+        pendingResponses.put(sequence, new PendingResponse(httpResponse, compression, exchange));
+        PendingResponse pending;
+        while ((pending = pendingResponses.remove(responseSequence)) != null) {
+            responseSequence++;
+            // the server is stopping, the last response tells the client not to reuse the connection
+            boolean reuse = pending.exchange.keepAlive && !(draining && responseSequence == requestSequence);
+            write(ctx, pending.httpResponse, pending.compression, pending.exchange, reuse);
+        }
+        // FlushConsolidationHandler turns the flushes of a read loop (or a burst of worker responses) into one syscall
         ctx.flush();
+        if (!closing && readsSuspended && requestSequence - responseSequence < maxPipelinedRequests) {
+            readsSuspended = false;
+            ReadSuspension.of(ctx.channel()).resume();
+        }
+    }
+
+    private void write(ChannelHandlerContext ctx, HttpResponse httpResponse, Compression compression, Exchange exchange, boolean keepAlive) {
+        if (closing) {
+            // a response before this one closed the connection
+            discard(httpResponse);
+            return;
+        }
+        if (compressor != null) {
+            compressor.setCompression(httpResponse, compression);
+        }
+        if (exchange.metrics != null) {
+            exchange.metrics.complete(httpResponse.status().code(), exchange.startNanos);
+        }
+        if (accessLog != null) {
+            accessLog.record(ctx.channel().remoteAddress(), exchange.method, exchange.uri, exchange.protocolVersion,
+                    httpResponse.status().code(), contentLength(httpResponse), System.nanoTime() - exchange.startNanos);
+        }
+        if (httpResponse instanceof StreamingHttpResponse) {
+            writeStreamingResponse(ctx, (StreamingHttpResponse) httpResponse, keepAlive);
+        } else if (httpResponse instanceof FileRegionHttpResponse) {
+            writeFileRegionResponse(ctx, (FileRegionHttpResponse) httpResponse, keepAlive);
+        } else if (!keepAlive) {
+            httpResponse.headers().set(CONNECTION, CLOSE);
+            ctx.write(httpResponse).addListener(ChannelFutureListener.CLOSE);
+        } else {
+            httpResponse.headers().set(CONNECTION, KEEP_ALIVE);
+            ctx.write(httpResponse);
+        }
+        closing = !keepAlive;
+    }
+
+    /**
+     * wait for the future of the route without blocking any thread, the response is built and written on the event loop
+     */
+    private void writeAsyncResponse(ChannelHandlerContext ctx, int sequence, AsyncHttpResponse asyncHttpResponse, Compression compression, Exchange exchange) {
+        CompletableFuture<Object> result = asyncHttpResponse.getResult();
+        long timeoutMillis = asyncHttpResponse.getTimeoutMillis();
+        // whichever completes the future first wins, a late result is ignored
+        ScheduledFuture<?> timeout = ctx.executor().schedule(
+                () -> result.completeExceptionally(new TimeoutException()), timeoutMillis, TimeUnit.MILLISECONDS);
+        result.whenCompleteAsync((value, error) -> {
+            timeout.cancel(false);
+            releaseInFlight(exchange.metrics);
+            HttpResponse httpResponse;
+            if (error == null) {
+                long serializeStart = System.nanoTime();
+                httpResponse = FullHttpResponseFactory.getCompletedResponse(ctx.alloc(), value);
+                exchange.metrics.record(RouteMetrics.Phase.SERIALIZE, serializeStart);
+            } else if (error instanceof TimeoutException) {
+                log.warn("The route did not complete in {} ms:{}", timeoutMillis, exchange.requestPath);
+                httpResponse = FullHttpResponseFactory.getErrorResponse(ctx.alloc(), exchange.requestPath, "The route did not complete in " + timeoutMillis + " ms", HttpResponseStatus.GATEWAY_TIMEOUT);
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                log.error("Caught an unexpected error.", cause);
+                httpResponse = FullHttpResponseFactory.getErrorResponse(ctx.alloc(), exchange.requestPath, cause.toString(), HttpResponseStatus.INTERNAL_SERVER_ERROR);
+            }
+            writeResponse(ctx, sequence, httpResponse, compression, exchange);
+        }, ctx.executor());
     }
 
+    /**
+     * the headers are written first, then ChunkedWriteHandler pulls the body while the channel is writable
+     */
+    private void writeStreamingResponse(ChannelHandlerContext ctx, StreamingHttpResponse streamingHttpResponse, boolean keepAlive) {
+        streamingHttpResponse.headers().set(CONNECTION, keepAlive ? KEEP_ALIVE : CLOSE);
+        ctx.write(streamingHttpResponse);
+        ChannelFuture future = ctx.write(streamingHttpResponse.getBody());
+        future.addListener((ChannelFutureListener) f -> {
+            if (!f.isSuccess()) {
+                // the status line is already sent, the only way to tell the client is to cut the connection
+                log.error("Failed to write the streaming response.", f.cause());
+                f.channel().close();
+            } else if (!keepAlive) {
+                f.channel().close();
+            }
+        });
+    }
+
+    /**
+     * the headers, then the file is transferred to the socket by the kernel, then the end of the message
+     */
+    private void writeFileRegionResponse(ChannelHandlerContext ctx, FileRegionHttpResponse fileRegionHttpResponse, boolean keepAlive) {
+        fileRegionHttpResponse.headers().set(CONNECTION, keepAlive ? KEEP_ALIVE : CLOSE);
+        ctx.write(fileRegionHttpResponse);
+        ctx.write(fileRegionHttpResponse.getBody());
+        ctx.write(LastHttpContent.EMPTY_LAST_CONTENT).addListener((ChannelFutureListener) f -> {
+            if (!f.isSuccess()) {
+                log.error("Failed to write the file.", f.cause());
+                f.channel().close();
+            } else if (!keepAlive) {
+                f.channel().close();
+            }
+        });
+    }
 
+    /**
+     * @return the length of the body before compression, -1 for a streamed body
+     */
+    private static long contentLength(HttpResponse httpResponse) {
+        if (httpResponse instanceof FullHttpResponse) {
+            return ((FullHttpResponse) httpResponse).content().readableBytes();
+        }
+        if (httpResponse instanceof FileRegionHttpResponse) {
+            return ((FileRegionHttpResponse) httpResponse).getBody().count();
+        }
+        return -1;
+    }
+
+    private void discard(HttpResponse httpResponse) {
+        if (httpResponse instanceof FileRegionHttpResponse) {
+            ((FileRegionHttpResponse) httpResponse).getBody().release();
+        } else if (httpResponse instanceof StreamingHttpResponse) {
+            try {
+                ((StreamingHttpResponse) httpResponse).getBody().close();
+            } catch (Exception e) {
+                log.warn("Failed to close the streaming response", e);
+            }
+        } else {
+            ReferenceCountUtil.release(httpResponse);
+        }
+    }
+
+    private static final class PendingResponse {
+        private final HttpResponse httpResponse;
+        private final Compression compression;
+        private final Exchange exchange;
+
+        private PendingResponse(HttpResponse httpResponse, Compression compression, Exchange exchange) {
+            this.httpResponse = httpResponse;
+            this.compression = compression;
+            this.exchange = exchange;
+        }
+    }
+
+    /**
+     * what is needed of the request once it is released, to write and log its response
+     */
+    private static final class Exchange {
+        private final HttpMethod method;
+        private final String uri;
+        private final HttpVersion protocolVersion;
+        private final String requestPath;
+        private final boolean keepAlive;
+        // null if the request is not answered by a route
+        private final RouteMetrics metrics;
+        private final long startNanos;
+
+        private Exchange(FullHttpRequest fullHttpRequest, String requestPath, RouteMetrics metrics, long startNanos) {
+            this.method = fullHttpRequest.method();
+            this.uri = fullHttpRequest.uri();
+            this.protocolVersion = fullHttpRequest.protocolVersion();
+            this.requestPath = requestPath;
+            this.keepAlive = HttpUtil.isKeepAlive(fullHttpRequest);
+            this.metrics = metrics;
+            this.startNanos = startNanos;
+        }
+    }
 }
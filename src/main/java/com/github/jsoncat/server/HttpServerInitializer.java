@@ -0,0 +1,193 @@
+package com.github.jsoncat.server;
+
+import com.github.jsoncat.core.springmvc.factory.RouteMethodMapper;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.HttpMessage;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpServerUpgradeHandler;
+import io.netty.handler.codec.http2.CleartextHttp2ServerUpgradeHandler;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2FrameCodec;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2SecurityUtil;
+import io.netty.handler.codec.http2.Http2ServerUpgradeCodec;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslProvider;
+import io.netty.handler.ssl.SupportedCipherSuiteFilter;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.AsciiString;
+import io.netty.util.ReferenceCountUtil;
+
+import javax.net.ssl.SSLException;
+import java.util.function.Supplier;
+
+/**
+ * 初始化连接的 pipeline
+ * <p>
+ * HTTP/1.1 always works. With http2 enabled a cleartext connection can also switch to h2c, either by the
+ * "Upgrade: h2c" request or by starting with the HTTP/2 preface (prior knowledge). With TLS the protocol is
+ * negotiated by ALPN. Every HTTP/2 stream gets a child channel that is converted back to HTTP/1 objects, so
+ * the streams of one connection are dispatched concurrently by the same handlers as HTTP/1 requests.
+ * </p>
+ **/
+public class HttpServerInitializer extends ChannelInitializer<SocketChannel> {
+    private static final int MAX_CONTENT_LENGTH = 512 * 1024;
+    // flush anyway after that many consolidated flushes, so a long read loop does not hold every response back
+    private static final int EXPLICIT_FLUSH_AFTER_FLUSHES = 256;
+
+    // null for cleartext
+    private final SslContext sslContext;
+    private final boolean http2;
+    private final int maxPipelinedRequests;
+    // null if compression is disabled
+    private final Supplier<HttpResponseCompressor> compressorFactory;
+    // null if static resources are disabled
+    private final StaticResources staticResources;
+    // always present, it also counts the connections to drain them, 0 disables its limits and timeouts
+    private final ConnectionGuard connectionGuard;
+    // always present, it also counts the in-flight requests, 0 disables the limit
+    private final RequestLimiter requestLimiter;
+    // null if access logging is disabled
+    private final AccessLog accessLog;
+    // null if the metrics endpoint is disabled
+    private final MetricsEndpoint metricsEndpoint;
+
+    public HttpServerInitializer(SslContext sslContext, boolean http2, int maxPipelinedRequests,
+                                 Supplier<HttpResponseCompressor> compressorFactory, StaticResources staticResources,
+                                 ConnectionGuard connectionGuard, RequestLimiter requestLimiter, AccessLog accessLog,
+                                 MetricsEndpoint metricsEndpoint) {
+        this.sslContext = sslContext;
+        this.http2 = http2;
+        this.maxPipelinedRequests = maxPipelinedRequests;
+        this.compressorFactory = compressorFactory;
+        this.staticResources = staticResources;
+        this.connectionGuard = connectionGuard;
+        this.requestLimiter = requestLimiter;
+        this.accessLog = accessLog;
+        this.metricsEndpoint = metricsEndpoint;
+    }
+
+    @Override
+    protected void initChannel(SocketChannel ch) {
+        ChannelPipeline pipeline = ch.pipeline();
+        // 最先执行：超出连接数限制的连接在读取任何数据之前就被关闭
+        pipeline.addLast("guard", connectionGuard);
+        // 合并 flush：读循环中的多个响应（pipelining）以及工作线程连续写出的响应只触发一次 write 系统调用
+        pipeline.addLast("flush", new FlushConsolidationHandler(EXPLICIT_FLUSH_AFTER_FLUSHES, true));
+        if (sslContext != null) {
+            pipeline.addLast("ssl", sslContext.newHandler(ch.alloc()));
+            pipeline.addLast("alpn", new ApplicationProtocolNegotiationHandler(ApplicationProtocolNames.HTTP_1_1) {
+                @Override
+                protected void configurePipeline(ChannelHandlerContext ctx, String protocol) {
+                    if (ApplicationProtocolNames.HTTP_2.equals(protocol)) {
+                        ctx.pipeline().addLast("http2", newHttp2FrameCodec()).addLast("multiplex", newHttp2MultiplexHandler());
+                    } else {
+                        ctx.pipeline().addLast("codec", new HttpServerCodec());
+                        addHttpHandlers(ctx.pipeline());
+                    }
+                }
+            });
+            return;
+        }
+        if (http2) {
+            HttpServerCodec codec = new HttpServerCodec();
+            HttpServerUpgradeHandler upgradeHandler = new HttpServerUpgradeHandler(codec, protocol ->
+                    AsciiString.contentEquals(Http2CodecUtil.HTTP_UPGRADE_PROTOCOL_NAME, protocol)
+                            ? new Http2ServerUpgradeCodec(newHttp2FrameCodec(), newHttp2MultiplexHandler()) : null,
+                    MAX_CONTENT_LENGTH);
+            // replaced by the HTTP/2 handlers if the connection starts with the preface, otherwise by codec and upgradeHandler
+            pipeline.addLast("h2c", new CleartextHttp2ServerUpgradeHandler(codec, upgradeHandler, new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel ch) {
+                    ch.pipeline().addLast("http2", newHttp2FrameCodec()).addLast("multiplex", newHttp2MultiplexHandler());
+                }
+            }));
+            // the HTTP/1 handlers are only installed once the connection turns out to stay on HTTP/1.1
+            pipeline.addLast("http1", new SimpleChannelInboundHandler<HttpMessage>() {
+                @Override
+                protected void channelRead0(ChannelHandlerContext ctx, HttpMessage msg) {
+                    ChannelPipeline pipeline = ctx.pipeline();
+                    addHttpHandlers(pipeline);
+                    pipeline.remove(this);
+                    ctx.fireChannelRead(ReferenceCountUtil.retain(msg));
+                }
+            });
+            return;
+        }
+        pipeline.addLast("decoder", new HttpRequestDecoder())
+                .addLast("encoder", new HttpResponseEncoder());
+        addHttpHandlers(pipeline);
+    }
+
+    /**
+     * the handlers after the http codec, shared by HTTP/1.1 connections and HTTP/2 streams
+     */
+    private void addHttpHandlers(ChannelPipeline pipeline) {
+        HttpResponseCompressor compressor = null;
+        if (compressorFactory != null) {
+            // 在 aggregator 和 chunked 前面，既能读到请求的 Accept-Encoding，也能压缩流式响应的每个分块
+            compressor = compressorFactory.get();
+            pipeline.addLast("compressor", compressor);
+        }
+        if (RouteMethodMapper.hasStreamingRoutes()) {
+            // 流式请求体不经过 aggregator，大小不受 512 KB 的限制
+            pipeline.addLast("streaming", new RequestBodyStreamHandler());
+        }
+        pipeline.addLast("aggregator", new HttpObjectAggregator(MAX_CONTENT_LENGTH));
+        if (RouteMethodMapper.hasStreamingResponses() || staticResources != null) {
+            // 按 channel 的可写状态分块写出流式响应（以及 TLS / HTTP2 下的静态文件）
+            pipeline.addLast("chunked", new ChunkedWriteHandler());
+        }
+        pipeline.addLast("handler", new HttpServerHandler(maxPipelinedRequests, compressor, staticResources, requestLimiter, accessLog, metricsEndpoint));
+    }
+
+    /**
+     * build a server side ssl context that negotiates h2 and http/1.1 by ALPN
+     */
+    public static SslContext newSslContext(SslContextBuilder sslContextBuilder) throws SSLException {
+        SslProvider provider = OpenSsl.isAlpnSupported() ? SslProvider.OPENSSL : SslProvider.JDK;
+        return sslContextBuilder.sslProvider(provider)
+                // HTTP/2 over TLS requires TLS 1.2+ and forbids a list of weak ciphers
+                .ciphers(Http2SecurityUtil.CIPHERS, SupportedCipherSuiteFilter.INSTANCE)
+                .applicationProtocolConfig(new ApplicationProtocolConfig(ApplicationProtocolConfig.Protocol.ALPN,
+                        ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                        ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                        ApplicationProtocolNames.HTTP_2, ApplicationProtocolNames.HTTP_1_1))
+                .build();
+    }
+
+    private static Http2FrameCodec newHttp2FrameCodec() {
+        return Http2FrameCodecBuilder.forServer().build();
+    }
+
+    /**
+     * every stream (including stream 1 of an upgraded connection) is handled by its own child channel
+     */
+    private ChannelHandler newHttp2MultiplexHandler() {
+        ChannelInitializer<Channel> streamInitializer = new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) {
+                ch.pipeline().addLast("codec", new Http2StreamFrameToHttpObjectCodec(true));
+                addHttpHandlers(ch.pipeline());
+            }
+        };
+        return new Http2MultiplexHandler(streamInitializer, streamInitializer);
+    }
+}
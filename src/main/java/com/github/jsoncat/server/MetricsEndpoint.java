@@ -0,0 +1,194 @@
+package com.github.jsoncat.server;
+
+import com.github.jsoncat.core.springmvc.factory.RequestExecutorFactory;
+import com.github.jsoncat.core.springmvc.factory.RouteMethodMapper;
+import com.github.jsoncat.core.springmvc.metrics.LatencyHistogram;
+import com.github.jsoncat.core.springmvc.metrics.RouteMetrics;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.util.AsciiString;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+/**
+ * 内置的 /metrics 路由，以 Prometheus 文本格式输出指标
+ * <p>
+ * Per route (as resolved by RouteMethodMapper): requests, 5xx errors, in-flight requests and a latency histogram
+ * for every phase. Server wide: connections, in-flight requests, the counters of ServerMetrics, the health of the
+ * event loops and the worker pools.
+ * Everything is computed when the endpoint is scraped, the request path only increments counters.
+ * </p>
+ **/
+public class MetricsEndpoint {
+    private static final AsciiString CONTENT_TYPE = AsciiString.cached("Content-Type");
+    private static final AsciiString CONTENT_LENGTH = AsciiString.cached("Content-Length");
+    private static final String TEXT_FORMAT = "text/plain; version=0.0.4; charset=utf-8";
+    // the "le" bounds of the exported histograms, the recorded buckets are much finer
+    private static final double[] BUCKET_SECONDS = {0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05,
+            0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private final String path;
+    private final ConnectionGuard connectionGuard;
+    private final RequestLimiter requestLimiter;
+    // null if the event loops are not monitored
+    private final EventLoopMonitor eventLoopMonitor;
+
+    public MetricsEndpoint(String path, ConnectionGuard connectionGuard, RequestLimiter requestLimiter, EventLoopMonitor eventLoopMonitor) {
+        this.path = path;
+        this.connectionGuard = connectionGuard;
+        this.requestLimiter = requestLimiter;
+        this.eventLoopMonitor = eventLoopMonitor;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public FullHttpResponse scrape(ByteBufAllocator allocator) {
+        StringBuilder sb = new StringBuilder(16 * 1024);
+        writeRoutes(sb);
+        writeServer(sb);
+        if (eventLoopMonitor != null) {
+            writeEventLoops(sb);
+        }
+        writeExecutors(sb);
+        ByteBuf content = allocator.ioBuffer(ByteBufUtil.utf8MaxBytes(sb));
+        ByteBufUtil.writeUtf8(content, sb);
+        FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, OK, content);
+        response.headers().set(CONTENT_TYPE, TEXT_FORMAT);
+        response.headers().setInt(CONTENT_LENGTH, content.readableBytes());
+        return response;
+    }
+
+    private void writeRoutes(StringBuilder sb) {
+        header(sb, "jsoncat_http_requests_total", "counter", "Requests answered by the route");
+        for (RouteMetrics metrics : RouteMethodMapper.getRouteMetrics()) {
+            sample(sb, "jsoncat_http_requests_total", routeLabels(metrics), metrics.getRequests());
+        }
+        header(sb, "jsoncat_http_request_errors_total", "counter", "Requests of the route answered with a 5xx status");
+        for (RouteMetrics metrics : RouteMethodMapper.getRouteMetrics()) {
+            sample(sb, "jsoncat_http_request_errors_total", routeLabels(metrics), metrics.getErrors());
+        }
+        header(sb, "jsoncat_http_requests_in_flight", "gauge", "Requests of the route being executed");
+        for (RouteMetrics metrics : RouteMethodMapper.getRouteMetrics()) {
+            sample(sb, "jsoncat_http_requests_in_flight", routeLabels(metrics), metrics.getInFlight());
+        }
+        header(sb, "jsoncat_http_request_duration_seconds", "histogram",
+                "Latency of the route, in total and per phase (routing, resolve, execute, serialize)");
+        for (RouteMetrics metrics : RouteMethodMapper.getRouteMetrics()) {
+            for (RouteMetrics.Phase phase : RouteMetrics.Phase.values()) {
+                String labels = routeLabels(metrics) + ",phase=\"" + phase.name().toLowerCase(Locale.ROOT) + "\"";
+                writeHistogram(sb, "jsoncat_http_request_duration_seconds", labels, metrics.getLatency(phase).snapshot());
+            }
+        }
+    }
+
+    private void writeServer(StringBuilder sb) {
+        header(sb, "jsoncat_connections", "gauge", "Open connections");
+        sample(sb, "jsoncat_connections", null, connectionGuard.getConnections());
+        header(sb, "jsoncat_requests_in_flight", "gauge", "Requests being executed by all routes");
+        sample(sb, "jsoncat_requests_in_flight", null, requestLimiter.getInFlightRequests());
+        counter(sb, "jsoncat_rejected_connections_total", "Connections closed because of max-connections or max-connections-per-ip",
+                ServerMetrics.REJECTED_CONNECTIONS);
+        counter(sb, "jsoncat_timed_out_connections_total", "Connections closed because of a read, write or idle timeout",
+                ServerMetrics.TIMED_OUT_CONNECTIONS);
+        counter(sb, "jsoncat_shed_requests_total", "Requests answered with a 503 because the server was too busy",
+                ServerMetrics.SHED_REQUESTS);
+        counter(sb, "jsoncat_dropped_access_logs_total", "Access log entries dropped because the writer fell behind",
+                ServerMetrics.DROPPED_ACCESS_LOGS);
+    }
+
+    private void writeEventLoops(StringBuilder sb) {
+        List<EventLoopMonitor.LoopState> loops = eventLoopMonitor.getLoops();
+        header(sb, "jsoncat_event_loop_lag_seconds", "histogram", "Time from a task being submitted to the event loop to it being run");
+        for (EventLoopMonitor.LoopState loop : loops) {
+            writeHistogram(sb, "jsoncat_event_loop_lag_seconds", loopLabel(loop), loop.getLag().snapshot());
+        }
+        header(sb, "jsoncat_event_loop_pending_tasks", "gauge", "Tasks waiting to be run by the event loop");
+        for (EventLoopMonitor.LoopState loop : loops) {
+            sample(sb, "jsoncat_event_loop_pending_tasks", loopLabel(loop), loop.getPendingTasks());
+        }
+        header(sb, "jsoncat_event_loop_blocked_total", "counter", "Times the event loop was blocked for longer than the threshold");
+        for (EventLoopMonitor.LoopState loop : loops) {
+            sample(sb, "jsoncat_event_loop_blocked_total", loopLabel(loop), loop.getBlocked());
+        }
+    }
+
+    private void writeExecutors(StringBuilder sb) {
+        Map<String, ExecutorService> executors = RequestExecutorFactory.getExecutors();
+        header(sb, "jsoncat_executor_active_threads", "gauge", "Threads of the worker pool executing a route");
+        executors.forEach((name, executor) -> {
+            if (executor instanceof ThreadPoolExecutor) {
+                sample(sb, "jsoncat_executor_active_threads", poolLabel(name), ((ThreadPoolExecutor) executor).getActiveCount());
+            }
+        });
+        header(sb, "jsoncat_executor_queued_tasks", "gauge", "Requests waiting for a thread of the worker pool");
+        executors.forEach((name, executor) -> {
+            if (executor instanceof ThreadPoolExecutor) {
+                sample(sb, "jsoncat_executor_queued_tasks", poolLabel(name), ((ThreadPoolExecutor) executor).getQueue().size());
+            }
+        });
+        header(sb, "jsoncat_executor_completed_tasks_total", "counter", "Requests executed by the worker pool");
+        executors.forEach((name, executor) -> {
+            if (executor instanceof ThreadPoolExecutor) {
+                sample(sb, "jsoncat_executor_completed_tasks_total", poolLabel(name), ((ThreadPoolExecutor) executor).getCompletedTaskCount());
+            }
+        });
+    }
+
+    private static void writeHistogram(StringBuilder sb, String name, String labels, LatencyHistogram.Snapshot snapshot) {
+        for (double bound : BUCKET_SECONDS) {
+            long boundNanos = (long) (bound * TimeUnit.SECONDS.toNanos(1));
+            sample(sb, name + "_bucket", labels + ",le=\"" + bound + "\"", snapshot.countAtOrBelow(boundNanos));
+        }
+        sample(sb, name + "_bucket", labels + ",le=\"+Inf\"", snapshot.getCount());
+        sb.append(name).append("_sum{").append(labels).append("} ").append(snapshot.getSumSeconds()).append('\n');
+        sample(sb, name + "_count", labels, snapshot.getCount());
+    }
+
+    private static void counter(StringBuilder sb, String name, String help, LongAdder value) {
+        header(sb, name, "counter", help);
+        sample(sb, name, null, value.sum());
+    }
+
+    private static void header(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, String labels, long value) {
+        sb.append(name);
+        if (labels != null) {
+            sb.append('{').append(labels).append('}');
+        }
+        sb.append(' ').append(value).append('\n');
+    }
+
+    private static String routeLabels(RouteMetrics metrics) {
+        return "method=\"" + metrics.getHttpMethod().name() + "\",route=\"" + escape(metrics.getRoute()) + "\"";
+    }
+
+    private static String loopLabel(EventLoopMonitor.LoopState loop) {
+        return "loop=\"" + escape(loop.getName()) + "\"";
+    }
+
+    private static String poolLabel(String name) {
+        return "pool=\"" + escape(name) + "\"";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.jsoncat.server;
+
+import io.netty.channel.Channel;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+
+/**
+ * 一个连接暂停读取的原因计数
+ * <p>
+ * Several handlers stop reading a connection for their own reason: too many pipelined requests in flight, or a
+ * streamed request body above its high water mark. Each of them suspends the reads once and resumes them once,
+ * autoRead is only turned back on when no reason is left, so one handler never undoes the pause of another.
+ * Only accessed on the event loop of the channel.
+ * </p>
+ **/
+final class ReadSuspension {
+    private static final AttributeKey<ReadSuspension> KEY = AttributeKey.valueOf("jsoncat.read.suspension");
+
+    private final Channel channel;
+    private int suspensions;
+
+    private ReadSuspension(Channel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * @return the suspension shared by the handlers of the channel
+     */
+    static ReadSuspension of(Channel channel) {
+        Attribute<ReadSuspension> attribute = channel.attr(KEY);
+        ReadSuspension suspension = attribute.get();
+        if (suspension == null) {
+            suspension = new ReadSuspension(channel);
+            attribute.set(suspension);
+        }
+        return suspension;
+    }
+
+    void suspend() {
+        if (suspensions++ == 0) {
+            channel.config().setAutoRead(false);
+        }
+    }
+
+    void resume() {
+        if (suspensions == 0) {
+            throw new IllegalStateException("The reads of the channel are not suspended");
+        }
+        if (--suspensions == 0) {
+            channel.config().setAutoRead(true);
+        }
+    }
+
+    boolean isSuspended() {
+        return suspensions > 0;
+    }
+}
@@ -0,0 +1,179 @@
+package com.github.jsoncat.server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 流式请求体
+ * <p>
+ * The I/O thread queues the chunks of the request body as they arrive and a worker thread reads them.
+ * When more than HIGH_WATER_MARK bytes are queued the channel stops reading from the socket (see ReadSuspension),
+ * and it resumes once the reader has drained the queue below LOW_WATER_MARK, so a multi-GB upload only
+ * keeps a bounded number of bytes in memory.
+ * </p>
+ **/
+public class RequestBodyStream extends InputStream {
+    private static final int HIGH_WATER_MARK = 1024 * 1024;
+    private static final int LOW_WATER_MARK = 256 * 1024;
+    // marks the end of the body, empty chunks are never queued so it can't be mistaken for content
+    private static final ByteBuf END = Unpooled.EMPTY_BUFFER;
+
+    private final Channel channel;
+    private final BlockingQueue<ByteBuf> chunks = new LinkedBlockingQueue<>();
+    private final AtomicInteger queuedBytes = new AtomicInteger();
+    private volatile boolean closed;
+    private volatile boolean aborted;
+    // only touched on the event loop
+    private boolean readsSuspended;
+    // only touched by the reader
+    private ByteBuf current;
+    private boolean finished;
+
+    public RequestBodyStream(Channel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * called on the I/O thread, takes the ownership of the chunk
+     */
+    void offer(ByteBuf chunk) {
+        if (!chunk.isReadable()) {
+            chunk.release();
+            return;
+        }
+        queuedBytes.addAndGet(chunk.readableBytes());
+        chunks.add(chunk);
+        if (closed) {
+            discardQueuedChunks();
+        }
+        updateReadSuspension();
+    }
+
+    /**
+     * called on the I/O thread when the last chunk has been received
+     */
+    void finish() {
+        chunks.add(END);
+    }
+
+    /**
+     * called on the I/O thread when the connection is closed before the body is complete
+     */
+    void abort() {
+        aborted = true;
+        chunks.add(END);
+    }
+
+    @Override
+    public int read() throws IOException {
+        ByteBuf buf = nextReadableChunk();
+        return buf == null ? -1 : buf.readUnsignedByte();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        ByteBuf buf = nextReadableChunk();
+        if (buf == null) {
+            return -1;
+        }
+        int length = Math.min(len, buf.readableBytes());
+        buf.readBytes(b, off, length);
+        return length;
+    }
+
+    @Override
+    public int available() {
+        return current == null ? 0 : current.readableBytes();
+    }
+
+    /**
+     * release the queued chunks, the rest of the body is discarded as it arrives
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (current != null) {
+            current.release();
+            current = null;
+        }
+        discardQueuedChunks();
+        channel.eventLoop().execute(this::updateReadSuspension);
+    }
+
+    private ByteBuf nextReadableChunk() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (current == null || !current.isReadable()) {
+            if (current != null) {
+                current.release();
+                current = null;
+            }
+            if (finished) {
+                return null;
+            }
+            ByteBuf chunk;
+            try {
+                chunk = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            if (chunk == END) {
+                finished = true;
+                if (aborted) {
+                    throw new IOException("The connection was closed before the request body was fully received");
+                }
+                return null;
+            }
+            dequeued(chunk.readableBytes());
+            current = chunk;
+        }
+        return current;
+    }
+
+    private void discardQueuedChunks() {
+        ByteBuf chunk;
+        while ((chunk = chunks.poll()) != null) {
+            if (chunk != END) {
+                dequeued(chunk.readableBytes());
+                chunk.release();
+            }
+        }
+    }
+
+    private void dequeued(int bytes) {
+        int queued = queuedBytes.addAndGet(-bytes);
+        if (queued < LOW_WATER_MARK && queued + bytes >= LOW_WATER_MARK) {
+            // the decision is made on the event loop, so it can't race with offer() suspending the reads
+            channel.eventLoop().execute(this::updateReadSuspension);
+        }
+    }
+
+    private void updateReadSuspension() {
+        int queued = queuedBytes.get();
+        if (queued >= HIGH_WATER_MARK && !closed) {
+            if (!readsSuspended) {
+                readsSuspended = true;
+                ReadSuspension.of(channel).suspend();
+            }
+        } else if ((queued < LOW_WATER_MARK || closed) && readsSuspended) {
+            readsSuspended = false;
+            ReadSuspension.of(channel).resume();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.jsoncat.server;
+
+import com.github.jsoncat.core.springmvc.entity.InvocationPlan;
+import com.github.jsoncat.core.springmvc.entity.MethodDetail;
+import com.github.jsoncat.core.springmvc.factory.RouteMethodMapper;
+import com.github.jsoncat.core.springmvc.util.UrlUtil;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.LastHttpContent;
+
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+/**
+ * 处理流式请求体，放在 HttpObjectAggregator 前面
+ * <p>
+ * Requests to a route with an "@RequestBody InputStream" parameter skip the aggregator: the handler passes
+ * a StreamingHttpRequest down the pipeline right away and feeds the following HttpContent chunks into its
+ * RequestBodyStream. Every other request is passed through and aggregated as usual. Once the last chunk is
+ * received a BodyReceivedEvent is fired, until then HttpServerHandler must keep reading the connection.
+ * </p>
+ **/
+public class RequestBodyStreamHandler extends ChannelInboundHandlerAdapter {
+    // the body being streamed on this connection, null if the current request is aggregated
+    private RequestBodyStream bodyStream;
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof HttpRequest && !(msg instanceof FullHttpRequest) && ((HttpRequest) msg).decoderResult().isSuccess()) {
+            HttpRequest request = (HttpRequest) msg;
+            MethodDetail methodDetail = RouteMethodMapper.getMethodDetail(UrlUtil.getRequestPath(request.uri()), request.method());
+            InvocationPlan invocationPlan = methodDetail.getInvocationPlan();
+            if (invocationPlan != null && invocationPlan.isStreamingBody()) {
+                if (HttpUtil.is100ContinueExpected(request)) {
+                    ctx.writeAndFlush(new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.CONTINUE));
+                    request.headers().remove(HttpHeaderNames.EXPECT);
+                }
+                bodyStream = new RequestBodyStream(ctx.channel());
+                methodDetail.setBodyStream(bodyStream);
+                ctx.fireChannelRead(new StreamingHttpRequest(request, methodDetail));
+                return;
+            }
+        }
+        if (msg instanceof HttpContent && bodyStream != null) {
+            bodyStream.offer(((HttpContent) msg).content());
+            if (msg instanceof LastHttpContent) {
+                bodyStream.finish();
+                bodyStream = null;
+                ctx.fireUserEventTriggered(BodyReceivedEvent.INSTANCE);
+            }
+            return;
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (bodyStream != null) {
+            bodyStream.abort();
+            bodyStream = null;
+        }
+        super.channelInactive(ctx);
+    }
+
+    /**
+     * the whole body of the streaming request has been received, the connection may stop reading again
+     */
+    static final class BodyReceivedEvent {
+        static final BodyReceivedEvent INSTANCE = new BodyReceivedEvent();
+
+        private BodyReceivedEvent() {
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.jsoncat.server;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 限制整个服务器同时执行的请求数，超出的请求直接返回 503
+ * <p>
+ * A request is in flight from the moment it is dispatched to its route until the route has produced the
+ * response (for a CompletableFuture route: until the future completes). Static resources and 404s are not
+ * counted. Shedding the excess right away keeps the latency of the admitted requests bounded under a spike,
+ * instead of queueing everything until the clients time out.
+ * </p>
+ **/
+public class RequestLimiter {
+    // 0 means unlimited
+    private final int maxInFlightRequests;
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+
+    public RequestLimiter(int maxInFlightRequests) {
+        this.maxInFlightRequests = maxInFlightRequests;
+    }
+
+    public boolean tryAcquire() {
+        if (inFlightRequests.incrementAndGet() > maxInFlightRequests && maxInFlightRequests > 0) {
+            inFlightRequests.decrementAndGet();
+            ServerMetrics.SHED_REQUESTS.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public void release() {
+        inFlightRequests.decrementAndGet();
+    }
+
+    public int getInFlightRequests() {
+        return inFlightRequests.get();
+    }
+}
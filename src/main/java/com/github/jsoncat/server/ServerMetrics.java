@@ -0,0 +1,20 @@
+package com.github.jsoncat.server;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 服务器层面的计数器，自启动以来累计
+ **/
+public final class ServerMetrics {
+    // connections closed right after accept because of max-connections or max-connections-per-ip
+    public static final LongAdder REJECTED_CONNECTIONS = new LongAdder();
+    // connections closed because of the read, write or idle timeout
+    public static final LongAdder TIMED_OUT_CONNECTIONS = new LongAdder();
+    // requests answered with a 503 because of max-in-flight-requests or a saturated worker pool
+    public static final LongAdder SHED_REQUESTS = new LongAdder();
+    // access log entries dropped because the writer fell behind and the ring buffer was full
+    public static final LongAdder DROPPED_ACCESS_LOGS = new LongAdder();
+
+    private ServerMetrics() {
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.jsoncat.server;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 缓存访问频繁的小静态文件，所有连接共享
+ * <p>
+ * The contents are kept in pooled direct buffers, a response gets a retained slice of them, so serving a cached
+ * file is neither a read from disk nor a copy to a socket buffer. The least recently used files are evicted once
+ * the cached bytes exceed the max size. An entry is only used while the length and the modification time of the
+ * file are unchanged.
+ * </p>
+ **/
+public class StaticResourceCache {
+    private final int maxFileSize;
+    private final long maxSize;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+
+    public StaticResourceCache(int maxFileSize, long maxSize) {
+        this.maxFileSize = maxFileSize;
+        this.maxSize = maxSize;
+    }
+
+    public boolean isCacheable(long length) {
+        return length <= maxFileSize;
+    }
+
+    /**
+     * @return a retained duplicate of the cached content, the caller must release it; null if the file is not cached
+     * or it has changed since
+     */
+    public synchronized ByteBuf get(String key, long length, long lastModified) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.length != length || entry.lastModified != lastModified) {
+            remove(key);
+            return null;
+        }
+        return entry.content.retainedDuplicate();
+    }
+
+    /**
+     * @param content the cache takes over the reference
+     * @return a retained duplicate of the content, the caller must release it
+     */
+    public synchronized ByteBuf put(String key, long lastModified, ByteBuf content) {
+        remove(key);
+        entries.put(key, new Entry(content, content.readableBytes(), lastModified));
+        size += content.readableBytes();
+        ByteBuf duplicate = content.retainedDuplicate();
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            size -= eldest.length;
+            // the responses still holding a slice keep the buffer alive
+            eldest.content.release();
+        }
+        return duplicate;
+    }
+
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            size -= entry.length;
+            entry.content.release();
+        }
+    }
+
+    private static final class Entry {
+        private final ByteBuf content;
+        private final long length;
+        private final long lastModified;
+
+        private Entry(ByteBuf content, long length, long lastModified) {
+            this.content = content;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+    }
+}
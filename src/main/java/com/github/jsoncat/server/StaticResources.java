@@ -0,0 +1,435 @@
+package com.github.jsoncat.server;
+
+import com.github.jsoncat.core.springmvc.entity.FileRegionHttpResponse;
+import com.github.jsoncat.core.springmvc.entity.StreamingHttpResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.codec.DateFormatter;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpChunkedInput;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedNioFile;
+import io.netty.handler.stream.ChunkedStream;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+/**
+ * 静态资源，在没有匹配的路由时按顺序在各个位置中查找
+ * <pre>
+ * jsoncat.server.static.locations: classpath:/static, file:/var/www   # comma separated, empty disables static resources
+ * jsoncat.server.executors.static.threads: 200   # the worker pool looking up and reading the files
+ * </pre>
+ * <p>
+ * Files are sent with sendfile (DefaultFileRegion) on cleartext HTTP/1.1 connections, and in chunks read from the
+ * file with TLS or HTTP/2 where the bytes have to go through the encoders. Small files are served from
+ * {@link StaticResourceCache}. Single byte ranges, ETag / If-None-Match, If-Modified-Since and If-Range are
+ * supported. A classpath location packaged in a jar can only be served whole unless the file is small enough
+ * to be cached.
+ * </p>
+ * <p>
+ * Looking a file up, opening it and filling the cache block on the disk, so serve() is called on the executor of the
+ * static resources and never on an I/O thread.
+ * </p>
+ **/
+@Slf4j
+public class StaticResources {
+    private static final String CLASSPATH_PREFIX = "classpath:";
+    private static final String FILE_PREFIX = "file:";
+    private static final String INDEX = "index.html";
+    private static final String BYTES_UNIT = "bytes=";
+    private static final String OCTET_STREAM = "application/octet-stream";
+    private static final int CHUNK_SIZE = 8192;
+    private static final Map<String, String> CONTENT_TYPES = new HashMap<>();
+
+    static {
+        CONTENT_TYPES.put("html", "text/html; charset=UTF-8");
+        CONTENT_TYPES.put("htm", "text/html; charset=UTF-8");
+        CONTENT_TYPES.put("css", "text/css; charset=UTF-8");
+        CONTENT_TYPES.put("js", "application/javascript; charset=UTF-8");
+        CONTENT_TYPES.put("json", "application/json");
+        CONTENT_TYPES.put("map", "application/json");
+        CONTENT_TYPES.put("txt", "text/plain; charset=UTF-8");
+        CONTENT_TYPES.put("xml", "application/xml");
+        CONTENT_TYPES.put("svg", "image/svg+xml");
+        CONTENT_TYPES.put("png", "image/png");
+        CONTENT_TYPES.put("jpg", "image/jpeg");
+        CONTENT_TYPES.put("jpeg", "image/jpeg");
+        CONTENT_TYPES.put("gif", "image/gif");
+        CONTENT_TYPES.put("webp", "image/webp");
+        CONTENT_TYPES.put("ico", "image/x-icon");
+        CONTENT_TYPES.put("woff", "font/woff");
+        CONTENT_TYPES.put("woff2", "font/woff2");
+        CONTENT_TYPES.put("pdf", "application/pdf");
+        CONTENT_TYPES.put("wasm", "application/wasm");
+    }
+
+    // directories on the file system
+    private final List<Path> directories = new ArrayList<>();
+    // resource name prefixes on the classpath, eg: "static/"
+    private final List<String> classpathPrefixes = new ArrayList<>();
+    private final String cacheControl;
+    private final StaticResourceCache cache;
+    private final Executor executor;
+
+    public StaticResources(String locations, int maxAgeSeconds, StaticResourceCache cache, Executor executor) {
+        for (String location : locations.split(",")) {
+            location = location.trim();
+            if (location.startsWith(CLASSPATH_PREFIX)) {
+                String prefix = location.substring(CLASSPATH_PREFIX.length()).replaceAll("^/+", "");
+                classpathPrefixes.add(prefix.isEmpty() || prefix.endsWith("/") ? prefix : prefix + "/");
+            } else if (!location.isEmpty()) {
+                String directory = location.startsWith(FILE_PREFIX) ? location.substring(FILE_PREFIX.length()) : location;
+                directories.add(Paths.get(directory).toAbsolutePath().normalize());
+            }
+        }
+        // without max-age the client revalidates with the ETag every time
+        this.cacheControl = maxAgeSeconds > 0 ? "max-age=" + maxAgeSeconds : "no-cache";
+        this.cache = cache;
+        this.executor = executor;
+    }
+
+    /**
+     * @return the executor serve() must be called on, it may reject the task when it is saturated
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return false if the request can't be for a static resource, without touching the disk
+     */
+    public boolean accepts(HttpRequest request) {
+        return request.method() == HttpMethod.GET || request.method() == HttpMethod.HEAD;
+    }
+
+    /**
+     * blocks on the disk, must be called on the executor
+     *
+     * @return the response for the static resource, or null if there is no such resource
+     */
+    public HttpResponse serve(ChannelHandlerContext ctx, HttpRequest request, String requestPath) {
+        if (!accepts(request)) {
+            return null;
+        }
+        String name = requestPath.startsWith("/") ? requestPath.substring(1) : requestPath;
+        if (name.isEmpty() || name.endsWith("/")) {
+            name += INDEX;
+        }
+        try {
+            Resource resource = resolve(name);
+            return resource == null ? null : serve(ctx, request, resource);
+        } catch (IOException e) {
+            log.warn("Failed to read the static resource:{}", requestPath, e);
+            return null;
+        }
+    }
+
+    private Resource resolve(String name) throws IOException {
+        if (name.indexOf('\0') >= 0 || name.indexOf('\\') >= 0) {
+            return null;
+        }
+        for (Path directory : directories) {
+            Path path = directory.resolve(name).normalize();
+            // "../" must not escape the directory
+            if (path.startsWith(directory) && Files.isRegularFile(path) && Files.isReadable(path)) {
+                return Resource.of(path.toFile());
+            }
+        }
+        if (classpathPrefixes.isEmpty() || isTraversal(name)) {
+            return null;
+        }
+        ClassLoader classLoader = StaticResources.class.getClassLoader();
+        for (String prefix : classpathPrefixes) {
+            URL url = classLoader.getResource(prefix + name);
+            if (url == null) {
+                continue;
+            }
+            if ("file".equals(url.getProtocol())) {
+                // an exploded classpath directory, served like any other file
+                try {
+                    File file = Paths.get(url.toURI()).toFile();
+                    if (file.isFile()) {
+                        return Resource.of(file);
+                    }
+                } catch (URISyntaxException e) {
+                    log.warn("Unexpected classpath resource url:{}", url, e);
+                }
+                continue;
+            }
+            URLConnection connection = url.openConnection();
+            long length = connection.getContentLengthLong();
+            if (length >= 0) {
+                return new Resource(url.toString(), null, url, length, connection.getLastModified());
+            }
+        }
+        return null;
+    }
+
+    private HttpResponse serve(ChannelHandlerContext ctx, HttpRequest request, Resource resource) throws IOException {
+        HttpHeaders requestHeaders = request.headers();
+        // second precision, the same as Last-Modified
+        long lastModified = resource.lastModified / 1000 * 1000;
+        String etag = "\"" + Long.toHexString(lastModified / 1000) + "-" + Long.toHexString(resource.length) + "\"";
+        if (isNotModified(requestHeaders, etag, lastModified)) {
+            FullHttpResponse notModified = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.NOT_MODIFIED, Unpooled.EMPTY_BUFFER);
+            setValidators(notModified.headers(), etag, lastModified);
+            return notModified;
+        }
+        ByteBuf cached = cache.isCacheable(resource.length) ? getCached(resource) : null;
+        try {
+            return newResponse(ctx, request, resource, cached, etag, lastModified);
+        } catch (IOException | RuntimeException e) {
+            // the response takes over the cached buffer, it is released on every other way out
+            release(cached);
+            throw e;
+        }
+    }
+
+    private HttpResponse newResponse(ChannelHandlerContext ctx, HttpRequest request, Resource resource, ByteBuf cached,
+                                     String etag, long lastModified) throws IOException {
+        HttpHeaders requestHeaders = request.headers();
+        // a resource in a jar can only be read from the start
+        boolean rangeable = cached != null || resource.file != null;
+        long start = 0;
+        long length = resource.length;
+        HttpResponseStatus status = HttpResponseStatus.OK;
+        String range = requestHeaders.get(HttpHeaderNames.RANGE);
+        if (range != null && rangeable && isRangeApplicable(requestHeaders, etag, lastModified)) {
+            long[] byteRange = parseRange(range, resource.length);
+            if (byteRange != null && byteRange.length == 0) {
+                release(cached);
+                FullHttpResponse notSatisfiable = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE, Unpooled.EMPTY_BUFFER);
+                notSatisfiable.headers().set(HttpHeaderNames.CONTENT_RANGE, "bytes */" + resource.length);
+                notSatisfiable.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, 0);
+                return notSatisfiable;
+            }
+            if (byteRange != null) {
+                start = byteRange[0];
+                length = byteRange[1] - byteRange[0] + 1;
+                status = HttpResponseStatus.PARTIAL_CONTENT;
+            }
+        }
+        HttpResponse response;
+        if (request.method() == HttpMethod.HEAD) {
+            release(cached);
+            response = new DefaultFullHttpResponse(HTTP_1_1, status, Unpooled.EMPTY_BUFFER);
+        } else if (cached != null) {
+            response = new DefaultFullHttpResponse(HTTP_1_1, status, cached.slice((int) start, (int) length));
+        } else if (resource.file == null) {
+            response = new StreamingHttpResponse(HTTP_1_1, status, new HttpChunkedInput(new ChunkedStream(resource.url.openStream(), CHUNK_SIZE)));
+        } else {
+            FileChannel fileChannel = new RandomAccessFile(resource.file, "r").getChannel();
+            if (isZeroCopyPossible(ctx)) {
+                // DefaultFileRegion closes the file once it is transferred or released
+                response = new FileRegionHttpResponse(HTTP_1_1, status, new DefaultFileRegion(fileChannel, start, length));
+            } else {
+                response = new StreamingHttpResponse(HTTP_1_1, status, new HttpChunkedInput(new ChunkedNioFile(fileChannel, start, length, CHUNK_SIZE)));
+            }
+        }
+        HttpHeaders headers = response.headers();
+        headers.set(HttpHeaderNames.CONTENT_TYPE, contentType(resource.name));
+        headers.set(HttpHeaderNames.CONTENT_LENGTH, length);
+        headers.set(HttpHeaderNames.ACCEPT_RANGES, rangeable ? "bytes" : "none");
+        if (status == HttpResponseStatus.PARTIAL_CONTENT) {
+            headers.set(HttpHeaderNames.CONTENT_RANGE, "bytes " + start + "-" + (start + length - 1) + "/" + resource.length);
+        }
+        setValidators(headers, etag, lastModified);
+        return response;
+    }
+
+    private ByteBuf getCached(Resource resource) throws IOException {
+        ByteBuf cached = cache.get(resource.name, resource.length, resource.lastModified);
+        if (cached != null) {
+            return cached;
+        }
+        ByteBuf content = PooledByteBufAllocator.DEFAULT.directBuffer((int) resource.length);
+        try (InputStream in = resource.file != null ? Files.newInputStream(resource.file.toPath()) : resource.url.openStream()) {
+            while (content.writeBytes(in, content.writableBytes()) > 0) {
+                if (!content.isWritable()) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            content.release();
+            throw e;
+        }
+        if (content.readableBytes() != resource.length) {
+            // the file changed while it was read, serve it uncached
+            content.release();
+            return null;
+        }
+        return cache.put(resource.name, resource.lastModified, content);
+    }
+
+    private void setValidators(HttpHeaders headers, String etag, long lastModified) {
+        headers.set(HttpHeaderNames.ETAG, etag);
+        headers.set(HttpHeaderNames.LAST_MODIFIED, DateFormatter.format(new Date(lastModified)));
+        headers.set(HttpHeaderNames.CACHE_CONTROL, cacheControl);
+    }
+
+    /**
+     * If-None-Match takes precedence over If-Modified-Since
+     */
+    private static boolean isNotModified(HttpHeaders headers, String etag, long lastModified) {
+        String ifNoneMatch = headers.get(HttpHeaderNames.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                // weak comparison
+                if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        String ifModifiedSince = headers.get(HttpHeaderNames.IF_MODIFIED_SINCE);
+        Date date = ifModifiedSince == null ? null : DateFormatter.parseHttpDate(ifModifiedSince);
+        return date != null && lastModified <= date.getTime();
+    }
+
+    /**
+     * without If-Range, or if it still matches the resource (strong comparison)
+     */
+    private static boolean isRangeApplicable(HttpHeaders headers, String etag, long lastModified) {
+        String ifRange = headers.get(HttpHeaderNames.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        Date date = DateFormatter.parseHttpDate(ifRange);
+        return date != null && date.getTime() == lastModified;
+    }
+
+    /**
+     * only a single range is supported, other valid requests are answered with the whole resource
+     *
+     * @return {first, last}, an empty array if the range is not satisfiable, null to ignore the header
+     */
+    static long[] parseRange(String range, long resourceLength) {
+        if (!range.startsWith(BYTES_UNIT) || range.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = range.substring(BYTES_UNIT.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+        // "--1" or "5--3" are not ranges
+        if (!(first.isEmpty() || isDigits(first)) || !(last.isEmpty() || isDigits(last)) || (first.isEmpty() && last.isEmpty())) {
+            return null;
+        }
+        try {
+            if (first.isEmpty()) {
+                // the last n bytes
+                long suffixLength = Long.parseLong(last);
+                if (suffixLength <= 0 || resourceLength == 0) {
+                    return new long[0];
+                }
+                return new long[]{Math.max(0, resourceLength - suffixLength), resourceLength - 1};
+            }
+            long start = Long.parseLong(first);
+            if (!last.isEmpty() && Long.parseLong(last) < start) {
+                // syntactically invalid
+                return null;
+            }
+            if (start >= resourceLength) {
+                return new long[0];
+            }
+            long end = last.isEmpty() ? resourceLength - 1 : Math.min(Long.parseLong(last), resourceLength - 1);
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean isDigits(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isZeroCopyPossible(ChannelHandlerContext ctx) {
+        // TLS encrypts in user space and HTTP/2 frames the bytes, both need the content in a buffer
+        return !(ctx.channel() instanceof Http2StreamChannel) && ctx.pipeline().get(SslHandler.class) == null;
+    }
+
+    private static boolean isTraversal(String name) {
+        for (String segment : name.split("/")) {
+            if (segment.equals("..")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String contentType(String name) {
+        int dot = name.lastIndexOf('.');
+        String contentType = dot < 0 ? null : CONTENT_TYPES.get(name.substring(dot + 1).toLowerCase());
+        return contentType == null ? OCTET_STREAM : contentType;
+    }
+
+    private static void release(ByteBuf buf) {
+        if (buf != null) {
+            buf.release();
+        }
+    }
+
+    private static final class Resource {
+        // the cache key
+        private final String name;
+        // null for a resource in a jar
+        private final File file;
+        private final URL url;
+        private final long length;
+        private final long lastModified;
+
+        private Resource(String name, File file, URL url, long length, long lastModified) {
+            this.name = name;
+            this.file = file;
+            this.url = url;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        private static Resource of(File file) {
+            return new Resource(file.getPath(), file, null, file.length(), file.lastModified());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.jsoncat.server;
+
+import com.github.jsoncat.core.springmvc.entity.MethodDetail;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+import lombok.Getter;
+
+/**
+ * A request to a route that reads its body as a stream, the content is empty and the body is
+ * delivered through the RequestBodyStream of the method detail.
+ **/
+@Getter
+public class StreamingHttpRequest extends DefaultFullHttpRequest {
+    // the route already matched by RequestBodyStreamHandler
+    private final MethodDetail methodDetail;
+
+    public StreamingHttpRequest(HttpRequest request, MethodDetail methodDetail) {
+        super(request.protocolVersion(), request.method(), request.uri(), Unpooled.EMPTY_BUFFER, request.headers(), new DefaultHttpHeaders());
+        this.methodDetail = methodDetail;
+    }
+}
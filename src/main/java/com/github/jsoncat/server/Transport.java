@@ -0,0 +1,72 @@
+package com.github.jsoncat.server;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Locale;
+
+/**
+ * netty 的传输层实现
+ * <p>
+ * EPOLL uses the native linux transport (edge-triggered, supports SO_REUSEPORT), NIO works everywhere.
+ * </p>
+ **/
+@Slf4j
+public enum Transport {
+    EPOLL {
+        @Override
+        public EventLoopGroup newEventLoopGroup(int threads, String name) {
+            return new EpollEventLoopGroup(threads, new DefaultThreadFactory(name));
+        }
+
+        @Override
+        public Class<? extends ServerSocketChannel> serverChannelClass() {
+            return EpollServerSocketChannel.class;
+        }
+    },
+    NIO {
+        @Override
+        public EventLoopGroup newEventLoopGroup(int threads, String name) {
+            return new NioEventLoopGroup(threads, new DefaultThreadFactory(name));
+        }
+
+        @Override
+        public Class<? extends ServerSocketChannel> serverChannelClass() {
+            return NioServerSocketChannel.class;
+        }
+    };
+
+    /**
+     * @param threads the number of event loops, 0 means netty's default (2 * available processors)
+     */
+    public abstract EventLoopGroup newEventLoopGroup(int threads, String name);
+
+    public abstract Class<? extends ServerSocketChannel> serverChannelClass();
+
+    /**
+     * @param name auto | epoll | nio, "auto" picks epoll when the native transport can be loaded
+     */
+    public static Transport of(String name) {
+        switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "auto":
+                return Epoll.isAvailable() ? EPOLL : NIO;
+            case "epoll":
+                if (!Epoll.isAvailable()) {
+                    log.warn("The epoll transport is not available, fall back to nio", Epoll.unavailabilityCause());
+                    return NIO;
+                }
+                return EPOLL;
+            case "nio":
+                return NIO;
+            default:
+                throw new IllegalArgumentException("unknown transport: " + name);
+        }
+    }
+}
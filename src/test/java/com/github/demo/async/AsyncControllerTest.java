@@ -0,0 +1,34 @@
+package com.github.demo.async;
+
+import com.github.demo.TestConfig;
+import io.restassured.RestAssured;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.when;
+import static org.hamcrest.Matchers.equalTo;
+
+class AsyncControllerTest {
+
+    @BeforeAll
+    static void setUp() {
+        RestAssured.baseURI = TestConfig.host;
+    }
+
+    @Test
+    void should_respond_when_the_future_completes() {
+        when().get("/async/users/{first}/{second}", 1, 1).
+                then().
+                statusCode(200).
+                body("[0].name", equalTo("盖伦"),
+                        "[1].name", equalTo("盖伦"));
+    }
+
+    // test @AsyncTimeout
+    @Test
+    void should_respond_504_when_the_future_times_out() {
+        when().get("/async/never").
+                then().
+                statusCode(504);
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.demo.compression;
+
+import com.github.demo.TestConfig;
+import io.restassured.RestAssured;
+import io.restassured.config.DecoderConfig;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static io.restassured.config.DecoderConfig.decoderConfig;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+class CompressionControllerTest {
+
+    @BeforeAll
+    static void setUp() {
+        RestAssured.baseURI = TestConfig.host;
+    }
+
+    @Test
+    void should_compress_as_negotiated() {
+        given().header("Accept-Encoding", "gzip").
+                when().get("/compression/heroes").
+                then().
+                statusCode(200).
+                header("Content-Encoding", "gzip").
+                body("[199]", equalTo("德玛西亚之力-盖伦-199"));
+
+        // the http client sends "Accept-Encoding: gzip,deflate" unless told to only decode deflate
+        given().config(RestAssured.config().decoderConfig(decoderConfig().contentDecoders(DecoderConfig.ContentDecoder.DEFLATE))).
+                when().get("/compression/heroes").
+                then().
+                statusCode(200).
+                header("Content-Encoding", "deflate").
+                body("[0]", equalTo("德玛西亚之力-盖伦-0"));
+    }
+
+    // test @Compress(cacheable = true), the second response comes from the cache
+    @Test
+    void should_compress_from_cache() {
+        for (int i = 0; i < 2; i++) {
+            given().header("Accept-Encoding", "gzip").
+                    when().get("/compression/heroes/cached").
+                    then().
+                    statusCode(200).
+                    header("Content-Encoding", "gzip").
+                    body("[199]", equalTo("德玛西亚之力-盖伦-199"));
+        }
+    }
+
+    // test @Compress(false)
+    @Test
+    void should_not_compress_when_the_route_opts_out() {
+        given().header("Accept-Encoding", "gzip").
+                when().get("/compression/heroes/raw").
+                then().
+                statusCode(200).
+                header("Content-Encoding", nullValue()).
+                body("[199]", equalTo("德玛西亚之力-盖伦-199"));
+    }
+
+    @Test
+    void should_not_compress_small_responses() {
+        given().header("Accept-Encoding", "gzip").
+                when().get("/user/{id}", 1).
+                then().
+                statusCode(200).
+                header("Content-Encoding", nullValue());
+    }
+}
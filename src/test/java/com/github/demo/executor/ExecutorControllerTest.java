@@ -0,0 +1,76 @@
+package com.github.demo.executor;
+
+import com.github.demo.TestConfig;
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static io.restassured.RestAssured.when;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExecutorControllerTest {
+
+    @BeforeAll
+    static void setUp() {
+        RestAssured.baseURI = TestConfig.host;
+    }
+
+    @Test
+    void should_execute_the_route_on_the_default_pool() {
+        when().get("/executor/default").
+                then().
+                statusCode(200).
+                body(containsString("jsoncat-default"));
+    }
+
+    // test @NonBlocking
+    @Test
+    void should_execute_a_non_blocking_route_on_the_io_thread() {
+        when().get("/executor/io").
+                then().
+                statusCode(200).
+                body(containsString("jsoncat-worker"));
+    }
+
+    // a virtual thread on Java 21+, a platform thread of the pool before
+    @Test
+    void should_execute_the_route_on_the_virtual_pool() {
+        when().get("/executor/virtual").
+                then().
+                statusCode(200).
+                body(containsString("jsoncat-virtual-"));
+    }
+
+    // test @WorkerPool, one thread and a queue of one task: the third request at the same time is rejected
+    @Test
+    void should_respond_503_when_the_worker_pool_is_saturated() {
+        ExecutorService clients = Executors.newFixedThreadPool(4);
+        List<CompletableFuture<Response>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> when().get("/executor/single"), clients));
+        }
+        int ok = 0;
+        int rejected = 0;
+        for (CompletableFuture<Response> future : futures) {
+            Response response = future.join();
+            if (response.statusCode() == 200) {
+                assertTrue(response.asString().contains("jsoncat-single"));
+                ok++;
+            } else if (response.statusCode() == 503) {
+                rejected++;
+            }
+        }
+        assertTrue(ok >= 1, "at least the first request is executed");
+        assertTrue(rejected >= 1, "the requests beyond the thread and the queue are rejected");
+        assertTrue(ok + rejected == futures.size());
+        clients.shutdown();
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.demo.http2;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * requires jsoncat.server.http2.enabled, the requests are sent as concurrent streams of one h2c connection (prior knowledge)
+ */
+class Http2Test {
+    private static final int STREAMS = 20;
+
+    @Test
+    void should_handle_concurrent_streams_on_one_connection() throws Exception {
+        EventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            Channel channel = new Bootstrap().group(group).channel(NioSocketChannel.class)
+                    .handler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) {
+                            ch.pipeline().addLast(Http2FrameCodecBuilder.forClient().build(), new Http2MultiplexHandler(new ChannelInitializer<Channel>() {
+                                @Override
+                                protected void initChannel(Channel ch) {
+                                    // the server does not push
+                                }
+                            }));
+                        }
+                    }).connect("localhost", 8080).sync().channel();
+            List<CompletableFuture<FullHttpResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < STREAMS; i++) {
+                CompletableFuture<FullHttpResponse> response = new CompletableFuture<>();
+                Http2StreamChannel stream = new Http2StreamChannelBootstrap(channel).handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new Http2StreamFrameToHttpObjectCodec(false), new HttpObjectAggregator(1024 * 1024),
+                                new SimpleChannelInboundHandler<FullHttpResponse>() {
+                                    @Override
+                                    protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse msg) {
+                                        response.complete(msg.retain());
+                                    }
+                                });
+                    }
+                }).open().sync().getNow();
+                DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/user/1");
+                request.headers().set(HttpHeaderNames.HOST, "localhost:8080");
+                stream.writeAndFlush(request);
+                responses.add(response);
+            }
+            for (CompletableFuture<FullHttpResponse> future : responses) {
+                FullHttpResponse response = future.get(10, TimeUnit.SECONDS);
+                try {
+                    assertEquals(200, response.status().code());
+                    assertTrue(response.content().toString(StandardCharsets.UTF_8).contains("盖伦"));
+                } finally {
+                    response.release();
+                }
+            }
+            channel.close().sync();
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.github.demo.metrics;
+
+import com.github.demo.TestConfig;
+import io.restassured.RestAssured;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.when;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+
+class MetricsTest {
+
+    @BeforeAll
+    static void setUp() {
+        RestAssured.baseURI = TestConfig.host;
+    }
+
+    @Test
+    void should_expose_the_route_metrics_in_prometheus_format() {
+        when().get("/user/{id}", 1).then().statusCode(200);
+        when().get("/metrics").
+                then().
+                statusCode(200).
+                contentType(startsWith("text/plain")).
+                body(containsString("# TYPE jsoncat_http_request_duration_seconds histogram"),
+                        containsString("jsoncat_http_request_duration_seconds_count{method=\"GET\",route=\"/user/{id}\",phase=\"execute\"}"),
+                        containsString("jsoncat_http_requests_in_flight{method=\"GET\",route=\"/user/{id}\"} 0"),
+                        containsString("jsoncat_connections "),
+                        containsString("jsoncat_executor_active_threads{pool=\"default\"}"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.demo.pipelining;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * the requests are written to one HTTP/1.1 connection without waiting for the responses
+ */
+class PipeliningTest {
+
+    @Test
+    void should_respond_in_request_order() throws Exception {
+        EventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            BlockingQueue<FullHttpResponse> responses = new LinkedBlockingQueue<>();
+            Channel channel = new Bootstrap().group(group).channel(NioSocketChannel.class)
+                    .handler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) {
+                            ch.pipeline().addLast(new HttpClientCodec(), new HttpObjectAggregator(1024 * 1024),
+                                    new SimpleChannelInboundHandler<FullHttpResponse>() {
+                                        @Override
+                                        protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse msg) {
+                                            responses.add(msg.retain());
+                                        }
+                                    });
+                        }
+                    }).connect("localhost", 8080).sync().channel();
+            // the first route times out after 200 ms, the following ones complete long before it
+            String[] uris = {"/async/never", "/user/1", "/nothing", "/user/all", "/user/1"};
+            int[] statusCodes = {504, 200, 404, 200, 200};
+            for (String uri : uris) {
+                DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri);
+                request.headers().set(HttpHeaderNames.HOST, "localhost:8080");
+                channel.write(request);
+            }
+            channel.flush();
+            for (int i = 0; i < uris.length; i++) {
+                FullHttpResponse response = responses.poll(10, TimeUnit.SECONDS);
+                try {
+                    assertEquals(statusCodes[i], response.status().code(), uris[i]);
+                    assertTrue(response.content().toString(StandardCharsets.UTF_8).contains(i == 2 ? "/nothing" : i == 0 ? "200 ms" : "盖伦"), uris[i]);
+                } finally {
+                    response.release();
+                }
+            }
+            channel.close().sync();
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.demo.resource;
+
+import com.github.demo.TestConfig;
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static io.restassured.RestAssured.when;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.startsWith;
+
+/**
+ * requires jsoncat.server.static.locations: classpath:/static
+ */
+class StaticResourceTest {
+
+    @BeforeAll
+    static void setUp() {
+        RestAssured.baseURI = TestConfig.host;
+    }
+
+    // index.html is small enough to be served from the cache
+    @Test
+    void should_serve_the_index() {
+        when().get("/").
+                then().
+                statusCode(200).
+                header("Content-Type", startsWith("text/html")).
+                header("Accept-Ranges", "bytes").
+                body(containsString("<h1>jsoncat</h1>"));
+    }
+
+    // the stylesheet is sent with sendfile
+    @Test
+    void should_serve_a_byte_range() {
+        Response whole = when().get("/css/jsoncat.css");
+        whole.then().statusCode(200).header("Content-Type", startsWith("text/css"));
+        String css = whole.asString();
+
+        given().header("Range", "bytes=0-3").
+                when().get("/css/jsoncat.css").
+                then().
+                statusCode(206).
+                header("Content-Range", "bytes 0-3/" + css.length()).
+                body(equalTo("body"));
+
+        given().header("Range", "bytes=-2").
+                when().get("/css/jsoncat.css").
+                then().
+                statusCode(206).
+                body(equalTo(css.substring(css.length() - 2)));
+
+        given().header("Range", "bytes=100000-").
+                when().get("/css/jsoncat.css").
+                then().
+                statusCode(416).
+                header("Content-Range", "bytes */" + css.length());
+    }
+
+    @Test
+    void should_respond_304_when_not_modified() {
+        Response response = when().get("/css/jsoncat.css");
+        String etag = response.header("ETag");
+        String lastModified = response.header("Last-Modified");
+
+        given().header("If-None-Match", etag).
+                when().get("/css/jsoncat.css").
+                then().
+                statusCode(304).
+                header("ETag", etag);
+
+        given().header("If-Modified-Since", lastModified).
+                when().get("/index.html").
+                then().
+                statusCode(304);
+
+        given().header("If-None-Match", "\"stale\"").
+                when().get("/css/jsoncat.css").
+                then().
+                statusCode(200);
+    }
+
+    @Test
+    void should_not_serve_files_outside_of_the_locations() {
+        when().get("/%2e%2e/application.yaml").
+                then().
+                statusCode(404);
+
+        when().get("/static/../application.yaml").
+                then().
+                statusCode(404);
+    }
+}
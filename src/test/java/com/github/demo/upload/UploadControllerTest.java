@@ -0,0 +1,28 @@
+package com.github.demo.upload;
+
+import com.github.demo.TestConfig;
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.with;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UploadControllerTest {
+
+    @BeforeAll
+    static void setUp() {
+        RestAssured.baseURI = TestConfig.host;
+    }
+
+    // larger than the 512 KB limit of the aggregator
+    @Test
+    void should_stream_large_request_body() {
+        byte[] body = new byte[8 * 1024 * 1024];
+        Response response = with().body(body).header("Content-Type", "application/octet-stream").
+                when().post("upload");
+        assertEquals(200, response.getStatusCode());
+        assertEquals(String.valueOf(body.length), response.getBody().asString());
+    }
+}
@@ -66,4 +66,14 @@ class UserControllerTest {
                 statusCode(200);
 
     }
-}
\ No newline at end of file
+
+    // test streaming response
+    @Test
+    void list_users() {
+        when().get("/user/all").
+                then().
+                statusCode(200).
+                header("Transfer-Encoding", "chunked").
+                body("[0].name", equalTo("盖伦"));
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.jsoncat.core.boot;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StartupTimelineTest {
+
+    @AfterEach
+    void reset() {
+        StartupTimeline.reset();
+    }
+
+    @Test
+    void should_nest_the_steps_started_within_a_phase() throws Exception {
+        StartupTimeline.reset();
+        try (StartupStep phase = StartupTimeline.startPhase("load-beans")) {
+            try (StartupStep bean = StartupTimeline.start("bean", "fast")) {
+                assertEquals("fast", bean.getName());
+            }
+            try (StartupStep bean = StartupTimeline.start("bean", "slow")) {
+                Thread.sleep(20);
+                assertEquals(phase, bean.getParent());
+            }
+        }
+        StartupStep loadRoutes = StartupTimeline.startPhase("load-routes");
+        new Object();
+        loadRoutes.end();
+
+        List<StartupStep> steps = StartupTimeline.getSteps();
+        assertEquals(2, steps.size());
+        StartupStep loadBeans = steps.get(0);
+        assertEquals(2, loadBeans.getChildren().size());
+        assertTrue(loadBeans.getDurationMillis() >= 20);
+        assertTrue(loadBeans.getLoadedClasses() >= 0);
+        assertTrue(steps.get(1).getStartMillis() >= loadBeans.getStartMillis() + loadBeans.getDurationMillis());
+
+        String report = StartupTimeline.toReport(10);
+        // sorted by wall time, slowest first
+        assertTrue(report.indexOf("load-beans") < report.indexOf("load-routes"));
+        assertTrue(report.indexOf("bean slow") < report.indexOf("bean fast"));
+
+        JsonNode json = new ObjectMapper().readTree(StartupTimeline.toJson());
+        assertEquals("load-beans", json.get("steps").get(0).get("name").asText());
+        assertEquals("slow", json.get("steps").get(0).get("children").get(1).get("name").asText());
+        assertTrue(json.get("steps").get(1).get("children") == null);
+    }
+}
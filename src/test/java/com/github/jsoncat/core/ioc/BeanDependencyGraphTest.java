@@ -0,0 +1,111 @@
+package com.github.jsoncat.core.ioc;
+
+import com.github.demo.circularDependency.CircularDependencyAImpl;
+import com.github.demo.circularDependency.CircularDependencyBImpl;
+import com.github.demo.circularDependency.CircularDependencyCImpl;
+import com.github.demo.circularDependency.CircularDependencyController;
+import com.github.demo.sms.AliSmsServiceImpl;
+import com.github.demo.sms.QiNiuSmsServiceImpl;
+import com.github.demo.sms.SmsController;
+import com.github.jsoncat.exception.CanNotDetermineTargetBeanException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BeanDependencyGraphTest {
+    private static final String[] PACKAGE_NAMES = {"com.github.demo"};
+
+    @Test
+    void should_put_a_bean_in_a_later_wave_than_its_dependencies() {
+        Map<String, Class<?>> beanClasses = new LinkedHashMap<>();
+        beanClasses.put(CircularDependencyController.class.getName(), CircularDependencyController.class);
+        beanClasses.put("CircularDependencyAImpl", CircularDependencyAImpl.class);
+        beanClasses.put("CircularDependencyBImpl", CircularDependencyBImpl.class);
+        beanClasses.put("CircularDependencyCImpl", CircularDependencyCImpl.class);
+        beanClasses.put(SmsController.class.getName(), SmsController.class);
+        beanClasses.put("aliSmsServiceImpl", AliSmsServiceImpl.class);
+        beanClasses.put("qiNiuSmsServiceImpl", QiNiuSmsServiceImpl.class);
+
+        BeanDependencyGraph graph = new BeanDependencyGraph(beanClasses, Collections.emptySet(), new AutowiredBeanInitialization(PACKAGE_NAMES));
+
+        List<List<String>> waves = graph.getWaves();
+        assertEquals(2, waves.size());
+        assertEquals(new HashSet<>(Arrays.asList("CircularDependencyAImpl", "CircularDependencyBImpl", "CircularDependencyCImpl",
+                "aliSmsServiceImpl", "qiNiuSmsServiceImpl")), new HashSet<>(waves.get(0)));
+        assertEquals(new HashSet<>(Arrays.asList(CircularDependencyController.class.getName(), SmsController.class.getName())),
+                new HashSet<>(waves.get(1)));
+        assertEquals(1, graph.getCycles().size());
+        assertEquals(3, graph.getCycles().get(0).size());
+
+        // every bean is processed after its dependencies
+        Set<String> done = ConcurrentHashMap.newKeySet();
+        graph.forEachInWaves(4, beanName -> {
+            if (beanName.equals(SmsController.class.getName())) {
+                assertTrue(done.contains("aliSmsServiceImpl"));
+            }
+            done.add(beanName);
+        });
+        assertEquals(beanClasses.keySet(), done);
+    }
+
+    @Test
+    void should_hand_the_results_to_the_calling_thread_in_wave_order() {
+        BeanDependencyGraph graph = new BeanDependencyGraph(smsBeanClasses(), Collections.emptySet(), new AutowiredBeanInitialization(PACKAGE_NAMES));
+        List<String> waveOrder = graph.getWaves().stream().flatMap(List::stream).collect(Collectors.toList());
+
+        Thread caller = Thread.currentThread();
+        List<String> consumed = new ArrayList<>();
+        graph.forEachInWaves(4, beanName -> {
+            // the first beans of a wave complete last
+            try {
+                Thread.sleep(10L * (waveOrder.size() - waveOrder.indexOf(beanName)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return beanName.length();
+        }, (beanName, result) -> {
+            assertSame(caller, Thread.currentThread());
+            assertEquals(beanName.length(), result);
+            consumed.add(beanName);
+        });
+        assertEquals(waveOrder, consumed);
+    }
+
+    @Test
+    void should_fail_before_creating_the_beans_if_a_dependency_is_missing() {
+        Map<String, Class<?>> beanClasses = Collections.singletonMap(SmsController.class.getName(), SmsController.class);
+        assertThrows(CanNotDetermineTargetBeanException.class,
+                () -> new BeanDependencyGraph(beanClasses, Collections.emptySet(), new AutowiredBeanInitialization(PACKAGE_NAMES)));
+    }
+
+    @Test
+    void should_rethrow_the_exception_of_an_action() {
+        Map<String, Class<?>> beanClasses = Collections.singletonMap("aliSmsServiceImpl", AliSmsServiceImpl.class);
+        BeanDependencyGraph graph = new BeanDependencyGraph(beanClasses, Collections.emptySet(), new AutowiredBeanInitialization(PACKAGE_NAMES));
+        assertThrows(IllegalStateException.class, () -> graph.forEachInWaves(2, beanName -> {
+            throw new IllegalStateException(beanName);
+        }));
+    }
+
+    private static Map<String, Class<?>> smsBeanClasses() {
+        Map<String, Class<?>> beanClasses = new LinkedHashMap<>();
+        beanClasses.put(SmsController.class.getName(), SmsController.class);
+        beanClasses.put("aliSmsServiceImpl", AliSmsServiceImpl.class);
+        beanClasses.put("qiNiuSmsServiceImpl", QiNiuSmsServiceImpl.class);
+        return beanClasses;
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.jsoncat.core.ioc;
+
+import com.github.demo.sms.AliSmsServiceImpl;
+import com.github.demo.sms.SmsController;
+import com.github.demo.sms.SmsService;
+import com.github.jsoncat.core.aop.factory.InterceptorFactory;
+import com.github.jsoncat.core.config.Configuration;
+import com.github.jsoncat.core.config.ConfigurationManager;
+import com.github.jsoncat.exception.DoGetBeanException;
+import com.github.jsoncat.factory.ClassFactory;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BeanFactoryTest {
+    private static final String[] PACKAGE_NAMES = {"com.github.demo"};
+
+    @Test
+    void should_register_the_beans_in_the_same_order_on_every_boot() {
+        String parallelism = System.getProperty(BeanFactory.PARALLELISM_PROPERTY);
+        System.setProperty(BeanFactory.PARALLELISM_PROPERTY, "8");
+        try {
+            List<List<String>> firstBoot = boot();
+            for (int i = 0; i < 3; i++) {
+                assertEquals(firstBoot, boot());
+            }
+            // the order of the dependency graph, not the order the threads complete in
+            List<String> waveOrder = BeanFactory.getDependencyGraph().getWaves().stream().flatMap(List::stream).collect(Collectors.toList());
+            List<String> smsServices = firstBoot.get(0);
+            assertEquals(waveOrder.stream().filter(smsServices::contains).collect(Collectors.toList()), smsServices);
+            assertSame(BeanFactory.BEANS.get(smsServices.get(0)), BeanFactory.getBean(SmsService.class));
+        } finally {
+            if (parallelism == null) {
+                System.clearProperty(BeanFactory.PARALLELISM_PROPERTY);
+            } else {
+                System.setProperty(BeanFactory.PARALLELISM_PROPERTY, parallelism);
+            }
+        }
+    }
+
+    @Test
+    void should_only_return_the_beans_which_are_instances_of_the_type() throws Exception {
+        ClassFactory.loadClass(PACKAGE_NAMES);
+        BeanFactory.loadBeans(PACKAGE_NAMES);
+        // the @Value fields are injected from the configuration
+        List<Path> configFiles = new ArrayList<>();
+        for (String configName : Configuration.DEFAULT_CONFIG_NAMES) {
+            URL url = getClass().getClassLoader().getResource(configName);
+            if (url != null) {
+                configFiles.add(Paths.get(url.toURI()));
+            }
+        }
+        BeanFactory.getBean(ConfigurationManager.class).loadResources(configFiles);
+        if (InterceptorFactory.getInterceptors().isEmpty()) {
+            InterceptorFactory.loadInterceptors(PACKAGE_NAMES);
+        }
+        DependencyInjection.inject(PACKAGE_NAMES);
+        BeanFactory.applyBeanPostProcessors();
+
+        // the sms services are replaced by jdk proxies, which implement SmsService but do not extend their target class
+        Object aliSmsService = BeanFactory.BEANS.get("aliSmsServiceImpl");
+        assertTrue(Proxy.isProxyClass(aliSmsService.getClass()));
+        assertTrue(Arrays.asList(BeanFactory.getBeanNamesForType(AliSmsServiceImpl.class)).contains("aliSmsServiceImpl"));
+        assertTrue(BeanFactory.getBeansOfType(AliSmsServiceImpl.class).isEmpty());
+        assertThrows(DoGetBeanException.class, () -> BeanFactory.getBean(AliSmsServiceImpl.class));
+
+        Map<String, SmsService> smsServices = BeanFactory.getBeansOfType(SmsService.class);
+        List<String> waveOrder = BeanFactory.getDependencyGraph().getWaves().stream().flatMap(List::stream).collect(Collectors.toList());
+        assertEquals(waveOrder.stream().filter(smsServices::containsKey).collect(Collectors.toList()), new ArrayList<>(smsServices.keySet()));
+        assertSame(smsServices.values().iterator().next(), BeanFactory.getBean(SmsService.class));
+
+        // a controller is replaced by a cglib proxy, which extends it
+        SmsController smsController = BeanFactory.getBean(SmsController.class);
+        assertSame(BeanFactory.BEANS.get(SmsController.class.getName()), smsController);
+        assertTrue(smsController.getClass() != SmsController.class);
+    }
+
+    /**
+     * @return the names of the sms services in registration order, then the names of all the beans
+     */
+    private static List<List<String>> boot() {
+        ClassFactory.loadClass(PACKAGE_NAMES);
+        BeanFactory.loadBeans(PACKAGE_NAMES);
+        List<List<String>> beanNames = new ArrayList<>();
+        beanNames.add(Arrays.asList(BeanFactory.getBeanNamesForType(SmsService.class)));
+        beanNames.add(new ArrayList<>(BeanFactory.getBeansOfType(SmsService.class).keySet()));
+        beanNames.add(new ArrayList<>(BeanFactory.BEANS.keySet()));
+        return beanNames;
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.jsoncat.core.ioc;
+
+import com.github.demo.sms.AliSmsServiceImpl;
+import com.github.demo.sms.QiNiuSmsServiceImpl;
+import com.github.demo.sms.SmsService;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BeanTypeIndexTest {
+
+    @Test
+    void should_find_the_beans_by_any_of_their_types() {
+        BeanTypeIndex index = new BeanTypeIndex();
+        index.register("ali", AliSmsServiceImpl.class);
+        index.register("qiNiu", QiNiuSmsServiceImpl.class);
+        index.register("text", String.class);
+
+        assertArrayEquals(new String[]{"ali", "qiNiu"}, index.getBeanNames(SmsService.class));
+        assertArrayEquals(new String[]{"ali"}, index.getBeanNames(AliSmsServiceImpl.class));
+        // interfaces of interfaces
+        assertArrayEquals(new String[]{"text"}, index.getBeanNames(CharSequence.class));
+        assertArrayEquals(new String[]{"text"}, index.getBeanNames(Comparable.class));
+        assertEquals(0, index.getBeanNames(Object.class).length);
+        assertEquals(0, index.getBeanNames(Runnable.class).length);
+    }
+
+    @Test
+    void should_keep_the_types_of_the_target_when_a_bean_is_replaced_by_a_proxy() {
+        BeanTypeIndex index = new BeanTypeIndex();
+        index.register("ali", AliSmsServiceImpl.class);
+        Object proxy = Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{SmsService.class, Runnable.class},
+                (target, method, args) -> null);
+        index.addTypes("ali", proxy.getClass());
+
+        assertArrayEquals(new String[]{"ali"}, index.getBeanNames(AliSmsServiceImpl.class));
+        assertArrayEquals(new String[]{"ali"}, index.getBeanNames(SmsService.class));
+        assertArrayEquals(new String[]{"ali"}, index.getBeanNames(Runnable.class));
+        assertEquals(0, index.getBeanNames(Proxy.class).length);
+
+        // registered again: only the types of the new class
+        index.register("ali", QiNiuSmsServiceImpl.class);
+        assertEquals(0, index.getBeanNames(AliSmsServiceImpl.class).length);
+        assertEquals(0, index.getBeanNames(Runnable.class).length);
+        assertArrayEquals(new String[]{"ali"}, index.getBeanNames(QiNiuSmsServiceImpl.class));
+        assertArrayEquals(new String[]{"ali"}, index.getBeanNames(SmsService.class));
+    }
+}
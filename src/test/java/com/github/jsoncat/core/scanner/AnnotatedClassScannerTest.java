@@ -15,7 +15,7 @@ class AnnotatedClassScannerTest {
     void should_scan_the_annotated_class() {
         String[] packageNames = {"com.github.demo"};
         Set<Class<?>> annotatedClasses = ReflectionUtil.scanAnnotatedClass(packageNames, RestController.class);
-        assertEquals(6, annotatedClasses.size());
+        assertEquals(10, annotatedClasses.size());
     }
 
 }
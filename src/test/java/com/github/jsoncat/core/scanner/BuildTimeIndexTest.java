@@ -0,0 +1,100 @@
+package com.github.jsoncat.core.scanner;
+
+import com.github.demo.sms.AliSmsServiceImpl;
+import com.github.demo.sms.QiNiuSmsServiceImpl;
+import com.github.demo.sms.SmsController;
+import com.github.demo.sms.SmsDto;
+import com.github.demo.sms.SmsService;
+import com.github.jsoncat.annotation.ioc.Component;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BuildTimeIndexTest {
+
+    @Test
+    void should_answer_from_the_index_files(@TempDir Path dir) throws Exception {
+        BuildTimeIndex index = load(dir,
+                "# comment",
+                "type com.github.demo.sms.SmsController",
+                "type com.github.demo.sms.AliSmsServiceImpl com.github.demo.sms.SmsService",
+                "type com.github.demo.sms.QiNiuSmsServiceImpl com.github.demo.sms.SmsService",
+                "annotated com.github.jsoncat.annotation.ioc.Component com.github.demo.sms.AliSmsServiceImpl",
+                "route com.github.demo.sms.SmsController send com.github.demo.sms.SmsDto",
+                "injection com.github.demo.sms.SmsController smsService");
+
+        assertTrue(index.isIndexedRoot(dir.toUri().toURL()));
+        assertFalse(index.isIndexedRoot(dir.resolve("other").toUri().toURL()));
+        assertEquals(Collections.singleton(AliSmsServiceImpl.class.getName()), index.getTypesAnnotatedWith(Component.class.getName()));
+        assertEquals(new HashSet<>(Arrays.asList(AliSmsServiceImpl.class.getName(), QiNiuSmsServiceImpl.class.getName())),
+                index.getSubTypesOf(SmsService.class.getName()));
+        assertArrayEquals(new Method[]{SmsController.class.getDeclaredMethod("send", SmsDto.class)}, index.getRouteMethods(SmsController.class));
+        assertArrayEquals(new Field[]{SmsController.class.getDeclaredField("smsService")}, index.getInjectionPoints(SmsController.class));
+        // indexed, without any injection point
+        assertEquals(0, index.getInjectionPoints(AliSmsServiceImpl.class).length);
+        // not indexed, the caller falls back to reflection
+        assertNull(index.getRouteMethods(SmsDto.class));
+        assertNull(index.getInjectionPoints(SmsDto.class));
+    }
+
+    @Test
+    void should_fail_if_the_index_is_out_of_date(@TempDir Path dir) throws Exception {
+        BuildTimeIndex index = load(dir,
+                "type com.github.demo.sms.SmsController",
+                "route com.github.demo.sms.SmsController removed");
+        assertThrows(IllegalStateException.class, () -> index.getRouteMethods(SmsController.class));
+    }
+
+    // an IDE compiling the changed files only overwrites the index with them
+    @Test
+    void should_list_the_classes_missing_from_the_index(@TempDir Path dir) throws Exception {
+        BuildTimeIndex index = load(dir,
+                "type com.github.demo.sms.SmsController",
+                "type com.github.demo.sms.SmsController$Nested");
+        for (String classFile : new String[]{"SmsController.class", "SmsController$Nested.class", "SmsController$1.class",
+                "AliSmsServiceImpl.class", "package-info.class", "impl/QiNiuSmsServiceImpl.class", "readme.txt"}) {
+            Path file = dir.resolve("com/github/demo/sms").resolve(classFile);
+            Files.createDirectories(file.getParent());
+            Files.createFile(file);
+        }
+
+        assertEquals(new HashSet<>(Arrays.asList(AliSmsServiceImpl.class.getName(), "com.github.demo.sms.impl.QiNiuSmsServiceImpl")),
+                index.getUnindexedClasses(dir.toUri().toURL(), "com.github.demo.sms"));
+        assertEquals(Collections.emptySet(), index.getUnindexedClasses(dir.toUri().toURL(), "com.github.other"));
+        assertEquals(Collections.emptySet(), index.getUnindexedClasses(new URL("jar:" + dir.toUri() + "app.jar!/"), "com.github.demo.sms"));
+    }
+
+    @Test
+    void should_resolve_primitive_and_array_types() {
+        ClassLoader classLoader = getClass().getClassLoader();
+        assertEquals(int.class, BuildTimeIndex.forName("int", classLoader));
+        assertEquals(String[].class, BuildTimeIndex.forName("[Ljava.lang.String;", classLoader));
+        assertEquals(long[][].class, BuildTimeIndex.forName("[[J", classLoader));
+    }
+
+    private static BuildTimeIndex load(Path dir, String... lines) throws IOException {
+        Path file = dir.resolve(BuildTimeIndex.LOCATION);
+        Files.createDirectories(file.getParent());
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+        // no parent, so the index of the classpath is not read
+        return BuildTimeIndex.load(new URLClassLoader(new URL[]{dir.toUri().toURL()}, null));
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.jsoncat.core.scanner;
+
+import com.github.demo.sms.AliSmsServiceImpl;
+import com.github.demo.sms.QiNiuSmsServiceImpl;
+import com.github.demo.sms.SmsService;
+import com.github.jsoncat.annotation.springmvc.RestController;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.ToolProvider;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClassIndexTest {
+
+    @Test
+    void should_answer_every_query_from_one_scan() {
+        String[] packageNames = {"com.github.demo"};
+        ClassIndex classIndex = ClassIndex.of(packageNames);
+        assertSame(classIndex, ClassIndex.of(new String[]{"com.github.demo"}));
+        assertEquals(10, classIndex.getTypesAnnotatedWith(RestController.class).size());
+        assertEquals(new HashSet<>(Arrays.asList(AliSmsServiceImpl.class, QiNiuSmsServiceImpl.class)),
+                classIndex.getSubTypesOf(SmsService.class));
+
+        ClassIndex.clear();
+        assertNotSame(classIndex, ClassIndex.of(packageNames));
+    }
+
+    @Test
+    void should_scan_the_classes_compiled_without_the_processor(@TempDir Path dir) throws Exception {
+        // the compiled class is in a directory without index file, next to the indexed demo classes
+        assertFindsUnindexedController(compileUnindexedController(dir));
+    }
+
+    @Test
+    void should_scan_a_directory_missing_classes_from_its_index(@TempDir Path dir) throws Exception {
+        Path classes = compileUnindexedController(dir);
+        // as left by a compilation of another file of the directory only
+        Path index = Files.createDirectories(classes.resolve("META-INF")).resolve("jsoncat.index");
+        Files.write(index, "type com.github.jsoncat.unindexed.Other\n".getBytes(StandardCharsets.UTF_8));
+        assertFindsUnindexedController(classes);
+    }
+
+    private static Path compileUnindexedController(Path dir) throws Exception {
+        Path source = dir.resolve("UnindexedController.java");
+        Files.write(source, ("package com.github.jsoncat.unindexed;\n"
+                + "@com.github.jsoncat.annotation.springmvc.RestController\n"
+                + "public class UnindexedController { }\n").getBytes(StandardCharsets.UTF_8));
+        Path classes = Files.createDirectories(dir.resolve("classes"));
+        String classPath = Paths.get(RestController.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, "-proc:none", "-d", classes.toString(),
+                "-cp", classPath, source.toString()));
+        return classes;
+    }
+
+    private static void assertFindsUnindexedController(Path classes) throws Exception {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, contextClassLoader)) {
+            Thread.currentThread().setContextClassLoader(classLoader);
+            ClassIndex.clear();
+            Set<Class<?>> controllers = ClassIndex.of(new String[]{"com.github.demo", "com.github.jsoncat.unindexed"})
+                    .getTypesAnnotatedWith(RestController.class);
+            assertEquals(11, controllers.size());
+            assertTrue(controllers.stream().anyMatch(aClass -> aClass.getName().equals("com.github.jsoncat.unindexed.UnindexedController")));
+        } finally {
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+            ClassIndex.clear();
+        }
+    }
+}
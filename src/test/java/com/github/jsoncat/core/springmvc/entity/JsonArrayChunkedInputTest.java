@@ -0,0 +1,42 @@
+package com.github.jsoncat.core.springmvc.entity;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonArrayChunkedInputTest {
+
+    @Test
+    void should_write_elements_as_json_array_in_several_chunks() {
+        JsonArrayChunkedInput input = new JsonArrayChunkedInput(JsonStream.of(IntStream.range(0, 10000).boxed()));
+        StringBuilder json = new StringBuilder();
+        int chunks = 0;
+        while (!input.isEndOfInput()) {
+            ByteBuf chunk = input.readChunk(UnpooledByteBufAllocator.DEFAULT);
+            json.append(chunk.toString(StandardCharsets.UTF_8));
+            chunk.release();
+            chunks++;
+        }
+        input.close();
+        String expected = IntStream.range(0, 10000).mapToObj(String::valueOf).collect(Collectors.joining(",", "[", "]"));
+        assertEquals(expected, json.toString());
+        assertTrue(chunks > 1);
+    }
+
+    @Test
+    void should_write_empty_json_array() {
+        JsonArrayChunkedInput input = new JsonArrayChunkedInput(JsonStream.of(Collections.emptyIterator()));
+        ByteBuf chunk = input.readChunk(UnpooledByteBufAllocator.DEFAULT);
+        assertEquals("[]", chunk.toString(StandardCharsets.UTF_8));
+        assertTrue(input.isEndOfInput());
+        chunk.release();
+    }
+}
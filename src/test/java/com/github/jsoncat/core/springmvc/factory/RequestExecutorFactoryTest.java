@@ -0,0 +1,66 @@
+package com.github.jsoncat.core.springmvc.factory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class RequestExecutorFactoryTest {
+
+    @Test
+    void should_fall_back_to_platform_threads_without_virtual_threads() throws Exception {
+        assumeFalse(virtualThreadsSupported(), "the jvm supports virtual threads");
+        assertThrows(IllegalStateException.class, () -> RequestExecutorFactory.newVirtualThreadExecutor("test"));
+
+        ExecutorService executor = RequestExecutorFactory.newExecutor("test", "virtual", 2, 4);
+        try {
+            // sized by the threads and queue-size of the pool
+            assertTrue(executor instanceof ThreadPoolExecutor);
+            assertEquals(2, ((ThreadPoolExecutor) executor).getMaximumPoolSize());
+            assertEquals(4, ((ThreadPoolExecutor) executor).getQueue().remainingCapacity());
+            assertTrue(executor.submit(() -> Thread.currentThread().getName()).get(10, TimeUnit.SECONDS).startsWith("jsoncat-test"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void should_start_a_virtual_thread_per_task() throws Exception {
+        assumeTrue(virtualThreadsSupported(), "the jvm does not support virtual threads");
+        ExecutorService executor = RequestExecutorFactory.newExecutor("test", "virtual", 2, 4);
+        try {
+            String thread = executor.submit(() -> Thread.currentThread().toString()).get(10, TimeUnit.SECONDS);
+            assertTrue(thread.startsWith("VirtualThread[") && thread.contains("jsoncat-test-"), thread);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void should_create_a_bounded_pool_of_platform_threads() {
+        ExecutorService executor = RequestExecutorFactory.newExecutor("test", "platform", 3, 5);
+        try {
+            assertEquals(3, ((ThreadPoolExecutor) executor).getMaximumPoolSize());
+            assertEquals(5, ((ThreadPoolExecutor) executor).getQueue().remainingCapacity());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Thread.ofVirtual() is a preview api of Java 19 and 20, it throws unless the preview is enabled
+    private static boolean virtualThreadsSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual").invoke(null);
+            return true;
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+}
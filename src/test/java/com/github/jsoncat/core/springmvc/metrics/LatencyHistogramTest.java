@@ -0,0 +1,36 @@
+package com.github.jsoncat.core.springmvc.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void should_count_every_value_in_a_bucket_containing_it() {
+        for (long value = 0; value < TimeUnit.SECONDS.toNanos(100); value = value * 3 / 2 + 1) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(LatencyHistogram.upperBoundOf(bucket) >= value || value > (1L << 37), "value " + value);
+            assertTrue(bucket == 0 || LatencyHistogram.upperBoundOf(bucket - 1) < value || value > (1L << 37), "value " + value);
+        }
+    }
+
+    @Test
+    void should_compute_the_quantiles_within_the_precision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(0.5005, snapshot.getSumSeconds(), 1e-9);
+        long p99 = snapshot.valueAtQuantile(0.99);
+        assertTrue(Math.abs(p99 - TimeUnit.MICROSECONDS.toNanos(990)) < TimeUnit.MICROSECONDS.toNanos(990) / 16, "p99 " + p99);
+        assertEquals(1000, snapshot.countAtOrBelow(TimeUnit.SECONDS.toNanos(1)));
+        long underHalf = snapshot.countAtOrBelow(TimeUnit.MICROSECONDS.toNanos(500));
+        assertTrue(underHalf > 470 && underHalf <= 500, "under 500us " + underHalf);
+    }
+}
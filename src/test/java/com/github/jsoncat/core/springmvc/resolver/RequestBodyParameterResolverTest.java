@@ -0,0 +1,61 @@
+package com.github.jsoncat.core.springmvc.resolver;
+
+import com.github.demo.validation.CarDto;
+import com.github.jsoncat.annotation.springmvc.RequestBody;
+import com.github.jsoncat.core.springmvc.entity.MethodDetail;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Parameter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestBodyParameterResolverTest {
+    private static final String CARS = "[{\"name\":\"tesla\"},{\"name\":\"volvo\"}]";
+
+    @Test
+    void should_read_a_generic_type_from_a_heap_buffer() throws Exception {
+        // the body is a slice, so the json does not start at offset 0 of the array
+        ByteBuf buffer = Unpooled.copiedBuffer("xx" + CARS, StandardCharsets.UTF_8);
+        ByteBuf body = buffer.slice(2, buffer.readableBytes() - 2);
+        assertTrue(body.hasArray());
+
+        assertCars(resolve(body));
+        buffer.release();
+    }
+
+    @Test
+    void should_read_a_direct_buffer_without_moving_its_reader_index() throws Exception {
+        byte[] bytes = CARS.getBytes(StandardCharsets.UTF_8);
+        ByteBuf body = Unpooled.directBuffer(bytes.length).writeBytes(bytes);
+        assertFalse(body.hasArray());
+
+        assertCars(resolve(body));
+        assertEquals(0, body.readerIndex());
+        body.release();
+    }
+
+    private static Object resolve(ByteBuf body) throws NoSuchMethodException {
+        Parameter parameter = RequestBodyParameterResolverTest.class.getDeclaredMethod("send", List.class).getParameters()[0];
+        MethodDetail methodDetail = new MethodDetail();
+        methodDetail.setBody(body);
+        return new RequestBodyParameterResolver(parameter).resolve(methodDetail);
+    }
+
+    private static void assertCars(Object param) {
+        List<?> cars = (List<?>) param;
+        assertEquals(2, cars.size());
+        // the element type comes from the generic parameter type, not a LinkedHashMap
+        assertEquals("tesla", ((CarDto) cars.get(0)).getName());
+        assertEquals("volvo", ((CarDto) cars.get(1)).getName());
+    }
+
+    @SuppressWarnings("unused")
+    private static void send(@RequestBody List<CarDto> cars) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.jsoncat.core.springmvc.router;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RouteTreeTest {
+
+    @Test
+    void should_match_static_and_variable_routes() {
+        RouteTree<String> routeTree = new RouteTree<>();
+        routeTree.insert("/user", "users");
+        routeTree.insert("/user/{id}", "user");
+        routeTree.insert("/users", "all");
+        routeTree.insert("/user/{id}/order/{orderId}", "order");
+        routeTree.insert("/user/me", "me");
+
+        Map<String, String> pathVariables = new HashMap<>();
+        assertEquals("users", routeTree.lookup("/user", pathVariables));
+        assertEquals("users", routeTree.lookup("/user/", pathVariables));
+        assertEquals("all", routeTree.lookup("/users", pathVariables));
+        assertEquals("me", routeTree.lookup("/user/me", pathVariables));
+        assertTrue(pathVariables.isEmpty());
+
+        assertEquals("user", routeTree.lookup("/user/盖伦", pathVariables));
+        assertEquals("盖伦", pathVariables.get("id"));
+
+        pathVariables.clear();
+        assertEquals("order", routeTree.lookup("/user/1/order/2/", pathVariables));
+        assertEquals("1", pathVariables.get("id"));
+        assertEquals("2", pathVariables.get("orderId"));
+
+        assertNull(routeTree.lookup("/user/1/order", new HashMap<>()));
+        assertNull(routeTree.lookup("/use", new HashMap<>()));
+        assertNull(routeTree.lookup("/user//", new HashMap<>()));
+    }
+
+    @Test
+    void should_reject_duplicate_url() {
+        RouteTree<String> routeTree = new RouteTree<>();
+        routeTree.insert("/user/{id}", "user");
+        assertThrows(IllegalArgumentException.class, () -> routeTree.insert("//user/{name}/", "user"));
+    }
+}
@@ -1,8 +1,11 @@
 package com.github.jsoncat.serialize.impl;
 
-
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
@@ -18,4 +21,17 @@ class JacksonSerializerTest {
         assertEquals(serializeObject, deserializeObject);
     }
 
+    @Test
+    public void should_serialize_object_into_byte_buf() {
+        JacksonSerializer jacksonSerializer = new JacksonSerializer();
+        SerializeObject serializeObject = new SerializeObject("java", "Java");
+        ByteBuf byteBuf = PooledByteBufAllocator.DEFAULT.buffer(4);
+        try {
+            jacksonSerializer.serialize(serializeObject, byteBuf);
+            assertArrayEquals(jacksonSerializer.serialize(serializeObject), ByteBufUtil.getBytes(byteBuf));
+        } finally {
+            byteBuf.release();
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.github.jsoncat.server;
+
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccessLogTest {
+    private static final InetSocketAddress CLIENT = new InetSocketAddress("127.0.0.1", 50000);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void should_write_a_line_per_request() throws IOException {
+        Path file = dir.resolve("logs/access.log");
+        AccessLog accessLog = new AccessLog(file, 1, 16, 1024 * 1024, 1);
+        accessLog.record(CLIENT, HttpMethod.GET, "/user/1?name=a", HttpVersion.HTTP_1_1, 200, 27, TimeUnit.MICROSECONDS.toNanos(412));
+        accessLog.record(CLIENT, HttpMethod.GET, "/stream", HttpVersion.HTTP_1_1, 200, -1, 0);
+        accessLog.close();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).matches("\\S+Z 127\\.0\\.0\\.1 \"GET /user/1\\?name=a HTTP/1\\.1\" 200 27 412us"), lines.get(0));
+        assertTrue(lines.get(1).endsWith("\"GET /stream HTTP/1.1\" 200 - 0us"), lines.get(1));
+    }
+
+    @Test
+    void should_always_log_the_server_errors_when_sampling() throws IOException {
+        Path file = dir.resolve("access.log");
+        AccessLog accessLog = new AccessLog(file, 0, 16, 1024 * 1024, 1);
+        accessLog.record(CLIENT, HttpMethod.GET, "/user/1", HttpVersion.HTTP_1_1, 200, 27, 0);
+        accessLog.record(CLIENT, HttpMethod.GET, "/user/2", HttpVersion.HTTP_1_1, 503, 27, 0);
+        accessLog.close();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("/user/2"));
+    }
+
+    @Test
+    void should_rotate_the_file() throws IOException {
+        Path file = dir.resolve("access.log");
+        AccessLog accessLog = new AccessLog(file, 1, 16, 100, 2);
+        for (int i = 0; i < 10; i++) {
+            accessLog.record(CLIENT, HttpMethod.GET, "/user/" + i, HttpVersion.HTTP_1_1, 200, 27, 0);
+            // let the writer consume it, so the 16 slots are enough
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(2));
+        }
+        accessLog.close();
+
+        assertTrue(Files.size(file) <= 100);
+        assertTrue(Files.exists(dir.resolve("access.log.1")));
+        assertTrue(Files.exists(dir.resolve("access.log.2")));
+        assertTrue(!Files.exists(dir.resolve("access.log.3")));
+        // the newest entry is in the current file
+        assertTrue(new String(Files.readAllBytes(file)).contains("/user/9 "));
+    }
+
+    @Test
+    void should_drop_the_entries_when_the_buffer_is_full() throws IOException {
+        Path file = dir.resolve("access.log");
+        AccessLog accessLog = new AccessLog(file, 1, 4, 1024 * 1024, 1);
+        long dropped = ServerMetrics.DROPPED_ACCESS_LOGS.sum();
+        for (int i = 0; i < 100_000; i++) {
+            accessLog.record(CLIENT, HttpMethod.GET, "/user/" + i, HttpVersion.HTTP_1_1, 200, 27, 0);
+        }
+        accessLog.close();
+
+        long written = Files.readAllLines(file).size();
+        assertEquals(100_000, written + ServerMetrics.DROPPED_ACCESS_LOGS.sum() - dropped);
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.jsoncat.server;
+
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionGuardTest {
+
+    @Test
+    void should_close_the_connections_over_the_limit() {
+        ConnectionGuard connectionGuard = new ConnectionGuard(2, 0, 0, 0, 0);
+        long rejected = ServerMetrics.REJECTED_CONNECTIONS.sum();
+        EmbeddedChannel first = new EmbeddedChannel(connectionGuard);
+        EmbeddedChannel second = new EmbeddedChannel(connectionGuard);
+        EmbeddedChannel third = new EmbeddedChannel(connectionGuard);
+        assertTrue(first.isOpen());
+        assertTrue(second.isOpen());
+        assertFalse(third.isOpen());
+        assertEquals(2, connectionGuard.getConnections());
+        assertEquals(rejected + 1, ServerMetrics.REJECTED_CONNECTIONS.sum());
+
+        // a closed connection frees its slot
+        first.close();
+        assertEquals(1, connectionGuard.getConnections());
+        assertTrue(new EmbeddedChannel(connectionGuard).isOpen());
+    }
+
+    @Test
+    void should_close_idle_connections() {
+        ConnectionGuard connectionGuard = new ConnectionGuard(0, 0, 0, 0, 60);
+        EmbeddedChannel channel = new EmbeddedChannel(connectionGuard);
+        assertTrue(channel.pipeline().get("idle") != null);
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.ALL_IDLE_STATE_EVENT);
+        assertFalse(channel.isOpen());
+        assertEquals(0, connectionGuard.getConnections());
+    }
+
+    @Test
+    void should_not_close_a_connection_with_a_request_in_flight() {
+        ConnectionGuard connectionGuard = new ConnectionGuard(0, 0, 0, 0, 60);
+        // the static resources pool holds the request until the test runs it
+        List<Runnable> tasks = new ArrayList<>();
+        StaticResources staticResources = new StaticResources("classpath:/static", 0, new StaticResourceCache(64 * 1024, 1024 * 1024), tasks::add);
+        EmbeddedChannel channel = new EmbeddedChannel(DefaultChannelId.newInstance(), connectionGuard,
+                new HttpServerHandler(64, null, staticResources, new RequestLimiter(0), null, null));
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/index.html"));
+        assertEquals(1, tasks.size());
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.ALL_IDLE_STATE_EVENT);
+        assertTrue(channel.isOpen());
+
+        tasks.forEach(Runnable::run);
+        Object response;
+        while ((response = channel.readOutbound()) != null) {
+            ReferenceCountUtil.release(response);
+        }
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.ALL_IDLE_STATE_EVENT);
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    void should_close_the_idle_connections_when_drained() {
+        ConnectionGuard connectionGuard = new ConnectionGuard(0, 0, 0, 0, 0);
+        // the connections are tracked by id, and every EmbeddedChannel has the same one by default
+        EmbeddedChannel http1 = new EmbeddedChannel(DefaultChannelId.newInstance(), connectionGuard, new HttpServerHandler(64, null, null, new RequestLimiter(0), null, null));
+        // TLS handshake or h2c detection still in progress
+        EmbeddedChannel handshaking = new EmbeddedChannel(DefaultChannelId.newInstance(), connectionGuard);
+        assertEquals(2, connectionGuard.getConnections());
+
+        connectionGuard.drain(1000);
+        http1.runPendingTasks();
+        handshaking.runPendingTasks();
+        assertFalse(http1.isOpen());
+        assertFalse(handshaking.isOpen());
+        assertEquals(0, connectionGuard.getConnections());
+        assertTrue(connectionGuard.closeFuture().isDone());
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.jsoncat.server;
+
+import com.github.jsoncat.core.springmvc.metrics.RouteMetrics;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.handler.codec.http.HttpMethod;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventLoopMonitorTest {
+
+    @Test
+    void should_detect_a_blocked_event_loop() throws InterruptedException {
+        EventLoopGroup group = new NioEventLoopGroup(1);
+        EventLoopMonitor monitor = new EventLoopMonitor(group, 10, 50);
+        try {
+            EventLoopMonitor.LoopState loop = monitor.getLoops().get(0);
+            assertTrue(loop.getName().startsWith("nioEventLoopGroup"));
+            RouteMetrics route = new RouteMetrics(HttpMethod.GET, "/slow");
+            group.submit(() -> {
+                EventLoopMonitor.enterRoute(route);
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    EventLoopMonitor.exitRoute();
+                }
+            }).sync();
+            // the probe stuck behind the blocking task runs once it returns
+            Thread.sleep(100);
+            assertEquals(1, loop.getBlocked());
+            assertTrue(loop.getLag().snapshot().valueAtQuantile(1) >= TimeUnit.MILLISECONDS.toNanos(50));
+            // at most the next probe
+            assertTrue(loop.getPendingTasks() <= 1);
+        } finally {
+            monitor.close();
+            group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.github.jsoncat.server;
+
+import com.github.jsoncat.core.aop.factory.InterceptorFactory;
+import com.github.jsoncat.core.config.Configuration;
+import com.github.jsoncat.core.config.ConfigurationManager;
+import com.github.jsoncat.core.ioc.BeanFactory;
+import com.github.jsoncat.core.ioc.DependencyInjection;
+import com.github.jsoncat.core.springmvc.factory.RouteMethodMapper;
+import com.github.jsoncat.factory.ClassFactory;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class HttpServerHandlerTest {
+    private static final String[] PACKAGE_NAMES = {"com.github.demo"};
+
+    @BeforeAll
+    static void loadRoutes() throws Exception {
+        if (!RouteMethodMapper.getRouteMetrics().isEmpty()) {
+            return;
+        }
+        ClassFactory.loadClass(PACKAGE_NAMES);
+        BeanFactory.loadBeans(PACKAGE_NAMES);
+        List<Path> configFiles = new ArrayList<>();
+        for (String configName : Configuration.DEFAULT_CONFIG_NAMES) {
+            URL url = HttpServerHandlerTest.class.getClassLoader().getResource(configName);
+            if (url != null) {
+                configFiles.add(Paths.get(url.toURI()));
+            }
+        }
+        BeanFactory.getBean(ConfigurationManager.class).loadResources(configFiles);
+        if (InterceptorFactory.getInterceptors().isEmpty()) {
+            InterceptorFactory.loadInterceptors(PACKAGE_NAMES);
+        }
+        DependencyInjection.inject(PACKAGE_NAMES);
+        BeanFactory.applyBeanPostProcessors();
+        RouteMethodMapper.loadRoutes();
+    }
+
+    // the upload counts toward the pipelining limit, but the connection must keep reading its body
+    @Test
+    void should_stream_an_upload_when_the_pipelining_limit_is_one() throws Exception {
+        EventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            Channel server = new ServerBootstrap().group(group).channel(NioServerSocketChannel.class)
+                    .childHandler(new HttpServerInitializer(null, false, 1, null, null,
+                            new ConnectionGuard(0, 0, 0, 0, 0), new RequestLimiter(0), null, null))
+                    .bind(0).sync().channel();
+            BlockingQueue<FullHttpResponse> responses = new LinkedBlockingQueue<>();
+            Channel client = connect(group, server, responses);
+            byte[] body = new byte[3 * 1024 * 1024];
+            DefaultFullHttpRequest upload = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/upload", Unpooled.wrappedBuffer(body));
+            upload.headers().set(HttpHeaderNames.HOST, "localhost");
+            upload.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/octet-stream");
+            HttpUtil.setContentLength(upload, body.length);
+            // pipelined behind the upload, it is only read once the upload is answered
+            DefaultFullHttpRequest notFound = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/nothing");
+            notFound.headers().set(HttpHeaderNames.HOST, "localhost");
+            client.write(upload);
+            client.writeAndFlush(notFound);
+
+            FullHttpResponse uploaded = responses.poll(10, TimeUnit.SECONDS);
+            assertNotNull(uploaded);
+            assertEquals(200, uploaded.status().code());
+            assertEquals(String.valueOf(body.length), uploaded.content().toString(StandardCharsets.UTF_8));
+            uploaded.release();
+            FullHttpResponse next = responses.poll(10, TimeUnit.SECONDS);
+            assertNotNull(next);
+            assertEquals(404, next.status().code());
+            next.release();
+            client.close().sync();
+            server.close().sync();
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test
+    void should_read_the_static_resources_on_their_executor() throws Exception {
+        EventLoopGroup group = new NioEventLoopGroup(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicInteger tasks = new AtomicInteger();
+        StaticResources staticResources = new StaticResources("classpath:/static", 0, new StaticResourceCache(512, 1024 * 1024),
+                task -> {
+                    tasks.incrementAndGet();
+                    executor.execute(task);
+                });
+        try {
+            Channel server = new ServerBootstrap().group(group).channel(NioServerSocketChannel.class)
+                    .childHandler(new HttpServerInitializer(null, false, 64, null, staticResources,
+                            new ConnectionGuard(0, 0, 0, 0, 0), new RequestLimiter(0), null, null))
+                    .bind(0).sync().channel();
+            BlockingQueue<FullHttpResponse> responses = new LinkedBlockingQueue<>();
+            Channel client = connect(group, server, responses);
+            for (String uri : new String[]{"/index.html", "/missing.html"}) {
+                DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri);
+                request.headers().set(HttpHeaderNames.HOST, "localhost");
+                client.writeAndFlush(request);
+            }
+            FullHttpResponse index = responses.poll(10, TimeUnit.SECONDS);
+            assertNotNull(index);
+            assertEquals(200, index.status().code());
+            index.release();
+            FullHttpResponse missing = responses.poll(10, TimeUnit.SECONDS);
+            assertNotNull(missing);
+            assertEquals(404, missing.status().code());
+            missing.release();
+            // the file found and the file missing were both looked up off the event loop
+            assertEquals(2, tasks.get());
+            client.close().sync();
+            server.close().sync();
+        } finally {
+            group.shutdownGracefully();
+            executor.shutdown();
+        }
+    }
+
+    private static Channel connect(EventLoopGroup group, Channel server, BlockingQueue<FullHttpResponse> responses) throws InterruptedException {
+        return new Bootstrap().group(group).channel(NioSocketChannel.class)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new HttpClientCodec(), new HttpObjectAggregator(1024 * 1024),
+                                new SimpleChannelInboundHandler<FullHttpResponse>() {
+                                    @Override
+                                    protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse msg) {
+                                        responses.add(msg.retain());
+                                    }
+                                });
+                    }
+                }).connect(server.localAddress()).sync().channel();
+    }
+}
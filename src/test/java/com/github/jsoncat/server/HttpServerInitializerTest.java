@@ -0,0 +1,106 @@
+package com.github.jsoncat.server;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HttpServerInitializerTest {
+
+    @Test
+    void should_negotiate_h2_by_alpn_over_tls() throws Exception {
+        SelfSignedCertificate certificate = new SelfSignedCertificate();
+        SslContext serverSslContext = HttpServerInitializer.newSslContext(SslContextBuilder.forServer(certificate.certificate(), certificate.privateKey()));
+        SslContext clientSslContext = SslContextBuilder.forClient()
+                .trustManager(InsecureTrustManagerFactory.INSTANCE)
+                .applicationProtocolConfig(new ApplicationProtocolConfig(ApplicationProtocolConfig.Protocol.ALPN,
+                        ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                        ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                        ApplicationProtocolNames.HTTP_2, ApplicationProtocolNames.HTTP_1_1))
+                .build();
+        EventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            Channel server = new ServerBootstrap().group(group).channel(NioServerSocketChannel.class)
+                    .childHandler(new HttpServerInitializer(serverSslContext, true, 64, null, null,
+                            new ConnectionGuard(0, 0, 0, 0, 0), new RequestLimiter(0), null, null))
+                    .bind(0).sync().channel();
+            CompletableFuture<String> protocol = new CompletableFuture<>();
+            Channel client = new Bootstrap().group(group).channel(NioSocketChannel.class)
+                    .handler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) {
+                            ch.pipeline().addLast(clientSslContext.newHandler(ch.alloc()), new ApplicationProtocolNegotiationHandler(ApplicationProtocolNames.HTTP_1_1) {
+                                @Override
+                                protected void configurePipeline(ChannelHandlerContext ctx, String negotiated) {
+                                    ctx.pipeline().addLast(Http2FrameCodecBuilder.forClient().build(), new Http2MultiplexHandler(new ChannelInitializer<Channel>() {
+                                        @Override
+                                        protected void initChannel(Channel ch) {
+                                            // the server does not push
+                                        }
+                                    }));
+                                    protocol.complete(negotiated);
+                                }
+                            });
+                        }
+                    }).connect(server.localAddress()).sync().channel();
+            assertEquals(ApplicationProtocolNames.HTTP_2, protocol.get(10, TimeUnit.SECONDS));
+
+            CompletableFuture<FullHttpResponse> response = new CompletableFuture<>();
+            Http2StreamChannel stream = new Http2StreamChannelBootstrap(client).handler(new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel ch) {
+                    ch.pipeline().addLast(new Http2StreamFrameToHttpObjectCodec(false), new HttpObjectAggregator(1024 * 1024),
+                            new SimpleChannelInboundHandler<FullHttpResponse>() {
+                                @Override
+                                protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse msg) {
+                                    response.complete(msg.retain());
+                                }
+                            });
+                }
+            }).open().sync().getNow();
+            DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/nothing");
+            request.headers().set(HttpHeaderNames.HOST, "localhost:" + ((InetSocketAddress) server.localAddress()).getPort());
+            stream.writeAndFlush(request);
+            FullHttpResponse fullHttpResponse = response.get(10, TimeUnit.SECONDS);
+            // no route is registered, the request went through the stream's pipeline to HttpServerHandler
+            assertEquals(404, fullHttpResponse.status().code());
+            fullHttpResponse.release();
+            client.close().sync();
+            server.close().sync();
+        } finally {
+            group.shutdownGracefully();
+            certificate.delete();
+        }
+    }
+}
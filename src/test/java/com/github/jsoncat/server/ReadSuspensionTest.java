@@ -0,0 +1,51 @@
+package com.github.jsoncat.server;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadSuspensionTest {
+
+    @Test
+    void should_read_again_once_every_reason_is_gone() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ReadSuspension suspension = ReadSuspension.of(channel);
+        assertSame(suspension, ReadSuspension.of(channel));
+
+        // the pipelining limit is reached, then an upload goes above its high water mark
+        suspension.suspend();
+        suspension.suspend();
+        assertFalse(channel.config().isAutoRead());
+        // a pipelined response is written, the upload still holds the channel
+        suspension.resume();
+        assertFalse(channel.config().isAutoRead());
+        assertTrue(suspension.isSuspended());
+        suspension.resume();
+        assertTrue(channel.config().isAutoRead());
+        assertThrows(IllegalStateException.class, suspension::resume);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void should_keep_an_upload_paused_while_pipelined_requests_are_answered() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        RequestBodyStream bodyStream = new RequestBodyStream(channel);
+        bodyStream.offer(Unpooled.wrappedBuffer(new byte[1024 * 1024]));
+        assertFalse(channel.config().isAutoRead());
+
+        ReadSuspension suspension = ReadSuspension.of(channel);
+        suspension.suspend();
+        suspension.resume();
+        assertFalse(channel.config().isAutoRead());
+
+        bodyStream.close();
+        channel.runPendingTasks();
+        assertTrue(channel.config().isAutoRead());
+        channel.finishAndReleaseAll();
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.jsoncat.server;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestLimiterTest {
+
+    @Test
+    void should_shed_the_requests_over_the_limit() {
+        RequestLimiter requestLimiter = new RequestLimiter(2);
+        long shed = ServerMetrics.SHED_REQUESTS.sum();
+        assertTrue(requestLimiter.tryAcquire());
+        assertTrue(requestLimiter.tryAcquire());
+        assertFalse(requestLimiter.tryAcquire());
+        assertEquals(2, requestLimiter.getInFlightRequests());
+        assertEquals(shed + 1, ServerMetrics.SHED_REQUESTS.sum());
+
+        requestLimiter.release();
+        assertTrue(requestLimiter.tryAcquire());
+    }
+
+    @Test
+    void should_not_limit_when_the_max_is_0() {
+        RequestLimiter requestLimiter = new RequestLimiter(0);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(requestLimiter.tryAcquire());
+        }
+        assertEquals(1000, requestLimiter.getInFlightRequests());
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.jsoncat.server;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StaticResourcesTest {
+
+    @Test
+    void should_parse_a_single_byte_range() {
+        assertArrayEquals(new long[]{0, 3}, StaticResources.parseRange("bytes=0-3", 10));
+        assertArrayEquals(new long[]{5, 9}, StaticResources.parseRange("bytes=5-", 10));
+        assertArrayEquals(new long[]{8, 9}, StaticResources.parseRange("bytes=-2", 10));
+        assertArrayEquals(new long[]{0, 9}, StaticResources.parseRange("bytes=-20", 10));
+        assertArrayEquals(new long[]{5, 9}, StaticResources.parseRange("bytes=5-100", 10));
+    }
+
+    @Test
+    void should_not_satisfy_an_empty_range() {
+        assertArrayEquals(new long[0], StaticResources.parseRange("bytes=-0", 10));
+        assertArrayEquals(new long[0], StaticResources.parseRange("bytes=10-", 10));
+    }
+
+    @Test
+    void should_ignore_a_malformed_range() {
+        // a negative suffix length, its slice would have a length of -1
+        assertNull(StaticResources.parseRange("bytes=--1", 10));
+        assertNull(StaticResources.parseRange("bytes=5--3", 10));
+        assertNull(StaticResources.parseRange("bytes=+1-2", 10));
+        assertNull(StaticResources.parseRange("bytes=-", 10));
+        assertNull(StaticResources.parseRange("bytes=5-3", 10));
+        assertNull(StaticResources.parseRange("bytes=0-1,3-4", 10));
+        assertNull(StaticResources.parseRange("items=0-1", 10));
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.jsoncat.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TransportTest {
+
+    @Test
+    void should_parse_the_transport_whatever_the_default_locale() {
+        Locale defaultLocale = Locale.getDefault();
+        // the lower case of "I" is a dotless "ı" in turkish
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            assertEquals(Transport.NIO, Transport.of(" NIO "));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+}